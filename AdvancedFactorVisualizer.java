@@ -1,9 +1,12 @@
 package com.quant.altdata.visualization;
 
 import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
 import com.quant.altdata.backtest.BacktestResult;
+import com.quant.altdata.exception.FactorEngineException;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.DateAxis;
 import org.jfree.chart.axis.NumberAxis;
@@ -23,17 +26,72 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 高级因子可视化器 - 提供丰富的因子表现和回测结果可视化功能
+ * <p>
+ * 交互模式下在Swing窗口中展示图表；无头模式（visualization.headless=true，或运行环境本身无图形界面）下
+ * 将图表写入visualization.output.dir目录下的PNG或SVG文件。两种模式下长序列都会在创建JFreeChart对象之前
+ * 按LTTB算法降采样到约等于图表像素宽度的点数。
  */
 public class AdvancedFactorVisualizer implements FactorVisualizer {
     private static final Logger logger = LoggerFactory.getLogger(AdvancedFactorVisualizer.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String[] SVG_GRAPHICS_CLASSES = {
+            "org.jfree.svg.SVGGraphics2D", "org.jfree.graphics2d.svg.SVGGraphics2D"};
+
+    private final boolean headless;
+    private final Path outputDir;
+    private final String format;
+    private final int width;
+    private final int height;
+    private final int renderThreads;
+
+    /**
+     * 构造函数，使用交互模式和默认图表尺寸
+     */
+    public AdvancedFactorVisualizer() {
+        this(new Properties());
+    }
+
+    /**
+     * 构造函数
+     * @param config 配置属性：visualization.headless、visualization.output.dir、visualization.format（png或svg）、
+     *               visualization.width、visualization.height、visualization.render.threads
+     */
+    public AdvancedFactorVisualizer(Properties config) {
+        this.headless = Boolean.parseBoolean(config.getProperty("visualization.headless",
+                String.valueOf(GraphicsEnvironment.isHeadless())));
+        this.outputDir = Paths.get(config.getProperty("visualization.output.dir", "charts"));
+        this.format = config.getProperty("visualization.format", "png").toLowerCase();
+        this.width = Integer.parseInt(config.getProperty("visualization.width", "1200"));
+        this.height = Integer.parseInt(config.getProperty("visualization.height", "800"));
+        this.renderThreads = Integer.parseInt(config.getProperty("visualization.render.threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (!"png".equals(format) && !"svg".equals(format)) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.CONFIGURATION_ERROR,
+                    "Unsupported chart format: " + format);
+        }
+    }
 
     @Override
     public void visualizeFactorPerformance(List<FactorData> factorDataList, BacktestResult backtestResult) {
@@ -43,14 +101,123 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
 
         logger.info("Visualizing factor performance with {} data points", factorDataList.size());
 
+        output(createPerformanceChart(factorDataList, backtestResult), "factor-performance");
+    }
+
+    /**
+     * 基于列式数据帧展示因子表现，直接读取因子值列和收益率列
+     * @param factorFrame 因子数据帧
+     * @param backtestResult 回测结果
+     */
+    public void visualizeFactorPerformance(FactorFrame factorFrame, BacktestResult backtestResult) {
+        if (factorFrame == null || factorFrame.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        logger.info("Visualizing factor performance with {} columnar data points", factorFrame.rowCount());
+
+        output(createPerformanceChart(factorFrame, backtestResult), "factor-performance");
+    }
+
+    /**
+     * 并行渲染多个因子的表现报告，每个因子写出一个图表文件
+     * @param factorFrames 因子名称到数据帧的映射
+     * @param backtestResults 因子名称到回测结果的映射，缺失的因子只绘制因子值和收益率
+     * @param directory 输出目录
+     * @return 因子名称到图表文件的映射，顺序与factorFrames一致
+     */
+    public Map<String, Path> renderFactorReports(Map<String, FactorFrame> factorFrames,
+                                                 Map<String, BacktestResult> backtestResults, Path directory) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(renderThreads, factorFrames.size())));
+        try {
+            Map<String, Future<Path>> futures = new LinkedHashMap<>();
+            factorFrames.forEach((factor, frame) -> futures.put(factor, executor.submit(() ->
+                    renderChart(createPerformanceChart(frame, backtestResults.get(factor)),
+                            directory.resolve(fileName("factor-" + factor))))));
+
+            Map<String, Path> files = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<Path>> entry : futures.entrySet()) {
+                files.put(entry.getKey(), entry.getValue().get());
+            }
+            logger.info("Rendered {} factor reports to {}", files.size(), directory);
+            return files;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                    "Interrupted while rendering factor reports", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FactorEngineException) {
+                throw (FactorEngineException) e.getCause();
+            }
+            throw new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                    "Failed to render factor reports", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 将图表写入文件，按扩展名选择PNG或SVG格式
+     * @param chart 图表
+     * @param file 目标文件
+     * @return 目标文件
+     */
+    public Path renderChart(JFreeChart chart, Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (file.toString().toLowerCase().endsWith(".svg")) {
+                Files.write(file, renderSvg(chart).getBytes(StandardCharsets.UTF_8));
+            } else {
+                ChartUtilities.saveChartAsPNG(file.toFile(), chart, width, height);
+            }
+            logger.debug("Chart written to {}", file);
+            return file;
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                    "Failed to write chart " + file, e);
+        }
+    }
+
+    /**
+     * 通过反射使用JFreeSVG绘制SVG文档，未引入JFreeSVG时给出明确错误
+     */
+    private String renderSvg(JFreeChart chart) {
+        for (String className : SVG_GRAPHICS_CLASSES) {
+            try {
+                Class<?> graphicsClass = Class.forName(className);
+                Graphics2D graphics = (Graphics2D) graphicsClass.getConstructor(int.class, int.class)
+                        .newInstance(width, height);
+                chart.draw(graphics, new Rectangle2D.Double(0, 0, width, height));
+                return (String) graphicsClass.getMethod("getSVGDocument").invoke(graphics);
+            } catch (ClassNotFoundException e) {
+                // 尝试下一个包名
+            } catch (ReflectiveOperationException e) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                        "Failed to render SVG chart", e);
+            }
+        }
+        throw new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                "SVG output requires JFreeSVG on the classpath");
+    }
+
+    /**
+     * 无头模式下写入文件，交互模式下打开窗口
+     */
+    private void output(JFreeChart chart, String name) {
+        if (headless) {
+            Path file = renderChart(chart, outputDir.resolve(fileName(name)));
+            logger.info("Chart {} written to {}", name, file);
+            return;
+        }
+
         // 创建主窗口
-        ApplicationFrame frame = new ApplicationFrame("Advanced Factor Performance Visualization");
+        ApplicationFrame frame = new ApplicationFrame(chart.getTitle().getText());
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        // 创建图表
-        JFreeChart chart = createCombinedChart(factorDataList, backtestResult);
         ChartPanel chartPanel = new ChartPanel(chart);
-        chartPanel.setPreferredSize(new Dimension(1200, 800));
+        chartPanel.setPreferredSize(new Dimension(width, height));
 
         // 添加到窗口
         frame.setContentPane(chartPanel);
@@ -58,22 +225,44 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
         RefineryUtilities.centerFrameOnScreen(frame);
         frame.setVisible(true);
 
-        logger.info("Factor performance visualization completed");
+        logger.info("Chart {} displayed", name);
     }
 
-    private JFreeChart createCombinedChart(List<FactorData> factorDataList, BacktestResult backtestResult) {
+    private String fileName(String name) {
+        return name + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + format;
+    }
+
+    private JFreeChart createPerformanceChart(List<FactorData> factorDataList, BacktestResult backtestResult) {
+        int n = factorDataList.size();
+        int[] dates = new int[n];
+        double[] factorValues = new double[n];
+        double[] returns = new double[n];
+        for (int i = 0; i < n; i++) {
+            FactorData data = factorDataList.get(i);
+            dates[i] = (int) data.getDate().toEpochDay();
+            factorValues[i] = data.getFactorValue();
+            returns[i] = data.getReturn();
+        }
+        return createCombinedChart(createDailyDataset("Factor Value", dates, factorValues, 0, n),
+                createDailyDataset("Return", dates, returns, 0, n), backtestResult);
+    }
+
+    private JFreeChart createPerformanceChart(FactorFrame factorFrame, BacktestResult backtestResult) {
+        return createCombinedChart(createColumnDataset("Factor Value", factorFrame, FactorFrame.Column.FACTOR_VALUE),
+                createColumnDataset("Return", factorFrame, FactorFrame.Column.RETURN), backtestResult);
+    }
+
+    private JFreeChart createCombinedChart(XYDataset factorDataset, XYDataset returnDataset, BacktestResult backtestResult) {
         // 创建共用的X轴（日期轴）
         DateAxis domainAxis = new DateAxis("Date");
         domainAxis.setAutoRange(true);
         domainAxis.setLabelFont(new Font("SansSerif", Font.BOLD, 12));
 
         // 创建主图表（因子值走势）
-        XYDataset factorDataset = createFactorDataset(factorDataList);
         XYPlot factorPlot = new XYPlot(factorDataset, domainAxis, new NumberAxis("Factor Value"), new XYLineAndShapeRenderer(true, true));
         factorPlot.getRangeAxis().setLabelFont(new Font("SansSerif", Font.BOLD, 12));
 
         // 创建第二个图表（收益率）
-        XYDataset returnDataset = createReturnDataset(factorDataList);
         XYPlot returnPlot = new XYPlot(returnDataset, domainAxis, new NumberAxis("Return"), new XYLineAndShapeRenderer(true, true));
         returnPlot.getRangeAxis().setLabelFont(new Font("SansSerif", Font.BOLD, 12));
 
@@ -107,44 +296,42 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
         return chart;
     }
 
-    private XYDataset createFactorDataset(List<FactorData> factorDataList) {
-        TimeSeries series = new TimeSeries("Factor Value");
-        for (FactorData data : factorDataList) {
-            LocalDate date = data.getDate();
-            Date utilDate = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
-            series.add(new Day(utilDate), data.getFactorValue());
-        }
-        return new TimeSeriesCollection(series);
+    private XYDataset createColumnDataset(String name, FactorFrame factorFrame, FactorFrame.Column column) {
+        return createDailyDataset(name, factorFrame.dateArray(), factorFrame.columnArray(column),
+                factorFrame.rowOffset(), factorFrame.rowCount());
     }
 
-    private XYDataset createReturnDataset(List<FactorData> factorDataList) {
-        TimeSeries series = new TimeSeries("Return");
-        for (FactorData data : factorDataList) {
-            LocalDate date = data.getDate();
-            Date utilDate = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
-            series.add(new Day(utilDate), data.getReturn());
-        }
-        return new TimeSeriesCollection(series);
+    /**
+     * 同一日期的多个标的取均值后按日期构建序列
+     */
+    private XYDataset createDailyDataset(String name, int[] epochDays, double[] values, int offset, int length) {
+        return createSeriesDataset(name, SeriesDownsampler.dailyMean(epochDays, values, offset, length), 1.0);
     }
 
     private XYDataset createEquityDataset(BacktestResult backtestResult) {
-        TimeSeries series = new TimeSeries("Equity Curve");
-        Map<LocalDate, Double> equityCurve = backtestResult.getEquityCurve();
-        for (Map.Entry<LocalDate, Double> entry : equityCurve.entrySet()) {
-            Date utilDate = Date.from(entry.getKey().atStartOfDay(ZoneId.systemDefault()).toInstant());
-            series.add(new Day(utilDate), entry.getValue());
-        }
-        return new TimeSeriesCollection(series);
+        return createSeriesDataset("Equity Curve",
+                SeriesDownsampler.of(backtestResult.epochDayArray(), backtestResult.equityArray()), 1.0);
     }
 
     private XYDataset createDrawdownDataset(BacktestResult backtestResult) {
-        TimeSeries series = new TimeSeries("Drawdown");
-        Map<LocalDate, Double> drawdown = backtestResult.getDrawdown();
-        for (Map.Entry<LocalDate, Double> entry : drawdown.entrySet()) {
-            Date utilDate = Date.from(entry.getKey().atStartOfDay(ZoneId.systemDefault()).toInstant());
-            series.add(new Day(utilDate), entry.getValue() * 100); // 转换为百分比
+        // 转换为百分比
+        return createSeriesDataset("Drawdown",
+                SeriesDownsampler.of(backtestResult.epochDayArray(), backtestResult.drawdownArray()), 100.0);
+    }
+
+    /**
+     * 先按图表宽度做LTTB降采样，再构建时间序列，添加数据点时不触发变更事件
+     */
+    private XYDataset createSeriesDataset(String name, SeriesDownsampler.Series series, double scale) {
+        SeriesDownsampler.Series sampled = SeriesDownsampler.lttb(series, width);
+        TimeSeries timeSeries = new TimeSeries(name);
+        for (int i = 0; i < sampled.size(); i++) {
+            LocalDate date = LocalDate.ofEpochDay(sampled.epochDay(i));
+            timeSeries.add(new Day(date.getDayOfMonth(), date.getMonthValue(), date.getYear()),
+                    sampled.value(i) * scale, false);
         }
-        return new TimeSeriesCollection(series);
+        timeSeries.fireSeriesChanged();
+        return new TimeSeriesCollection(timeSeries);
     }
 
     /**
@@ -158,12 +345,9 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
 
         logger.info("Visualizing candlestick chart with {} data points", factorDataList.size());
 
-        ApplicationFrame frame = new ApplicationFrame("Candlestick Chart");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
         // 准备烛台图数据
         int n = factorDataList.size();
-        Date[] dates = new Date[n];
+        int[] dates = new int[n];
         double[] high = new double[n];
         double[] low = new double[n];
         double[] open = new double[n];
@@ -172,8 +356,7 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
 
         for (int i = 0; i < n; i++) {
             FactorData data = factorDataList.get(i);
-            LocalDate date = data.getDate();
-            dates[i] = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            dates[i] = (int) data.getDate().toEpochDay();
             high[i] = data.getHigh();
             low[i] = data.getLow();
             open[i] = data.getOpen();
@@ -181,7 +364,63 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
             volume[i] = data.getVolume();
         }
 
-        DefaultHighLowDataset dataset = new DefaultHighLowDataset("Price", dates, high, low, open, close, volume);
+        showCandlestick(dates, high, low, open, close, volume, 0, n);
+    }
+
+    /**
+     * 基于列式数据帧的烛台图展示，直接读取价格列
+     * @param factorFrame 因子数据帧
+     */
+    public void visualizeCandlestick(FactorFrame factorFrame) {
+        if (factorFrame == null || factorFrame.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        logger.info("Visualizing candlestick chart with {} columnar data points", factorFrame.rowCount());
+
+        showCandlestick(factorFrame.dateArray(),
+                factorFrame.columnArray(FactorFrame.Column.HIGH),
+                factorFrame.columnArray(FactorFrame.Column.LOW),
+                factorFrame.columnArray(FactorFrame.Column.OPEN),
+                factorFrame.columnArray(FactorFrame.Column.CLOSE),
+                factorFrame.columnArray(FactorFrame.Column.VOLUME),
+                factorFrame.rowOffset(), factorFrame.rowCount());
+    }
+
+    /**
+     * 按图表宽度把连续K线聚合为区间K线（首开、最高、最低、末收、成交量之和）后展示
+     */
+    private void showCandlestick(int[] epochDays, double[] high, double[] low, double[] open, double[] close,
+                                 double[] volume, int offset, int length) {
+        int[] bounds = SeriesDownsampler.bucketBounds(length, width);
+        int buckets = bounds.length - 1;
+        Date[] dates = new Date[buckets];
+        double[] bucketHigh = new double[buckets];
+        double[] bucketLow = new double[buckets];
+        double[] bucketOpen = new double[buckets];
+        double[] bucketClose = new double[buckets];
+        double[] bucketVolume = new double[buckets];
+        for (int b = 0; b < buckets; b++) {
+            int from = offset + bounds[b];
+            int to = offset + bounds[b + 1];
+            double h = Double.NEGATIVE_INFINITY;
+            double l = Double.POSITIVE_INFINITY;
+            double v = 0.0;
+            for (int i = from; i < to; i++) {
+                h = Math.max(h, high[i]);
+                l = Math.min(l, low[i]);
+                v += volume[i];
+            }
+            dates[b] = Date.from(LocalDate.ofEpochDay(epochDays[from]).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            bucketHigh[b] = h;
+            bucketLow[b] = l;
+            bucketOpen[b] = open[from];
+            bucketClose[b] = close[to - 1];
+            bucketVolume[b] = v;
+        }
+
+        DefaultHighLowDataset dataset = new DefaultHighLowDataset("Price", dates, bucketHigh, bucketLow,
+                bucketOpen, bucketClose, bucketVolume);
         JFreeChart chart = ChartFactory.createCandlestickChart(
                 "Price Movement", "Date", "Price", dataset, false);
 
@@ -189,12 +428,6 @@ public class AdvancedFactorVisualizer implements FactorVisualizer {
         CandlestickRenderer renderer = (CandlestickRenderer) plot.getRenderer();
         renderer.setAutoWidthMethod(CandlestickRenderer.WIDTHMETHOD_SMALLEST);
 
-        ChartPanel chartPanel = new ChartPanel(chart);
-        frame.setContentPane(chartPanel);
-        frame.pack();
-        RefineryUtilities.centerFrameOnScreen(frame);
-        frame.setVisible(true);
-
-        logger.info("Candlestick visualization completed");
+        output(chart, "candlestick");
     }
 }
\ No newline at end of file
@@ -0,0 +1,628 @@
+package com.quant.altdata;
+
+import com.quant.altdata.backtest.BacktestResult;
+import com.quant.altdata.backtest.IncrementalBacktestEngine;
+import com.quant.altdata.backtest.PortfolioConstructor;
+import com.quant.altdata.backtest.SweepGrid;
+import com.quant.altdata.backtest.SweepRunner;
+import com.quant.altdata.backtest.TradingStrategy;
+import com.quant.altdata.data.adapter.DataAdapterManager;
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.data.storage.FactorStore;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.metrics.MetricsExporter;
+import com.quant.altdata.metrics.MetricsRegistry;
+import com.quant.altdata.pipeline.StageMetrics;
+import com.quant.altdata.pipeline.StreamingPipeline;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.factor.model.FactorModelManager;
+import com.quant.altdata.processing.DataProcessor;
+import com.quant.altdata.processing.DataProcessorFactory;
+import com.quant.altdata.shard.ShardCoordinator;
+import com.quant.altdata.visualization.AdvancedFactorVisualizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 替代数据因子引擎 - 串联数据获取、处理、模型训练、回测和可视化
+ * <p>
+ * 数据适配器、处理器、模型管理器、可视化器和参数扫描器都在首次使用时才构造，只做回测的任务不会初始化
+ * 可视化组件，不用深度学习模型的任务不会加载ND4J。engine.warmup可以列出需要在后台并行预先初始化的子系统
+ * 和模型，各阶段的初始化耗时通过getStartupTimings()报告。
+ */
+public class AltDataFactorEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AltDataFactorEngine.class);
+
+    private final Properties config;
+    private final Map<String, Long> startupNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final LazySubsystem<DataAdapterManager> adapterManager;
+    private final LazySubsystem<DataProcessor> dataProcessor;
+    private final LazySubsystem<FactorModelManager> modelManager;
+    private final LazySubsystem<AdvancedFactorVisualizer> visualizer;
+    private final LazySubsystem<SweepRunner> sweepRunner;
+    private final MetricsRegistry metrics;
+    private final MetricsExporter metricsExporter;
+    private final FactorStore factorStore;
+
+    /**
+     * 构造函数
+     * @param config 配置属性
+     */
+    public AltDataFactorEngine(Properties config) {
+        long start = System.nanoTime();
+        this.config = config;
+        this.adapterManager = new LazySubsystem<>("adapters", () -> new DataAdapterManager(config), startupNanos::put);
+        this.dataProcessor = new LazySubsystem<>("processor", () -> DataProcessorFactory.createProcessor(config),
+                startupNanos::put);
+        this.modelManager = new LazySubsystem<>("models", () -> new FactorModelManager(config), startupNanos::put);
+        this.visualizer = new LazySubsystem<>("visualizer", () -> new AdvancedFactorVisualizer(config),
+                startupNanos::put);
+        this.sweepRunner = new LazySubsystem<>("sweep", () -> new SweepRunner(modelManager.get(),
+                Integer.parseInt(config.getProperty("backtest.sweep.threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())))), startupNanos::put);
+        this.metrics = MetricsRegistry.fromConfig(config);
+        this.metricsExporter = MetricsExporter.fromConfig(metrics, config);
+        this.factorStore = FactorStore.fromConfig(config);
+        if (metricsExporter != null) {
+            metricsExporter.start();
+        }
+        startupNanos.put("engine", System.nanoTime() - start);
+
+        String warmupTargets = config.getProperty("engine.warmup", "").trim();
+        if (!warmupTargets.isEmpty()) {
+            warmup(Arrays.asList(warmupTargets.split("\\s*,\\s*")));
+        }
+    }
+
+    /**
+     * 在后台线程上并行初始化指定的子系统和模型，立即返回。前台首次使用正在预热的子系统时会等待预热完成，
+     * 不会重复构造
+     * @param targets 子系统名称（adapters、processor、models、visualizer、sweep）或"model:模型名称"
+     * @return 全部预热完成时完成的future，预热失败不影响之后在前台按需初始化
+     */
+    public CompletableFuture<Void> warmup(Collection<String> targets) {
+        List<Runnable> tasks = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            tasks.add(warmupTask(target));
+        }
+        if (tasks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), runnable -> {
+            Thread thread = new Thread(runnable, "engine-warmup-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(tasks.get(i), executor);
+        }
+        logger.info("Warming up {} in the background", targets);
+        return CompletableFuture.allOf(futures).whenComplete((ignored, e) -> {
+            executor.shutdown();
+            if (e != null) {
+                logger.warn("Warmup failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private Runnable warmupTask(String target) {
+        if (target.startsWith("model:")) {
+            String modelName = target.substring("model:".length());
+            return () -> {
+                long start = System.nanoTime();
+                modelManager.get().getModel(modelName);
+                startupNanos.put(target, System.nanoTime() - start);
+            };
+        }
+        for (LazySubsystem<?> subsystem : List.of(adapterManager, dataProcessor, modelManager, visualizer, sweepRunner)) {
+            if (subsystem.getName().equals(target)) {
+                return subsystem::get;
+            }
+        }
+        throw new IllegalArgumentException("Unknown warmup target: " + target);
+    }
+
+    /**
+     * 各启动阶段的耗时，按完成顺序排列。engine为构造函数本身，其余为各子系统和预热模型的初始化
+     * @return 阶段名称到耗时（毫秒）的映射
+     */
+    public Map<String, Long> getStartupTimings() {
+        Map<String, Long> millis = new LinkedHashMap<>();
+        synchronized (startupNanos) {
+            startupNanos.forEach((phase, nanos) -> millis.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+        return millis;
+    }
+
+    /**
+     * 获取并处理数据
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 处理后的因子数据
+     */
+    public List<FactorData> fetchData(String source, String query, LocalDateTime startDate, LocalDateTime endDate) {
+        logger.info("Fetching data from {} for query '{}' between {} and {}", source, query, startDate, endDate);
+        try {
+            long start = metrics.start();
+            List<FactorData> rawData = adapterManager.get().fetchData(source, query, startDate, endDate);
+            metrics.stop(MetricsRegistry.Stage.FETCH, start, rawData.size());
+            List<FactorData> processed = process(rawData);
+            logger.info("Fetched {} raw records, {} after processing", rawData.size(), processed.size());
+            return processed;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                    "Failed to fetch data from " + source, e));
+        }
+    }
+
+    /**
+     * 并发获取多个数据源同一时间窗口的数据，合并后统一处理
+     * @param sources 数据源名称列表
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 处理后的因子数据，按sources顺序拼接
+     */
+    public List<FactorData> fetchData(List<String> sources, String query, LocalDateTime startDate, LocalDateTime endDate) {
+        logger.info("Fetching data from {} for query '{}' between {} and {}", sources, query, startDate, endDate);
+        try {
+            long start = metrics.start();
+            List<FactorData> rawData = new ArrayList<>();
+            adapterManager.get().fetchAll(sources, query, startDate, endDate).values().forEach(rawData::addAll);
+            metrics.stop(MetricsRegistry.Stage.FETCH, start, rawData.size());
+            List<FactorData> processed = process(rawData);
+            logger.info("Fetched {} raw records, {} after processing", rawData.size(), processed.size());
+            return processed;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                    "Failed to fetch data from " + sources, e));
+        }
+    }
+
+    private List<FactorData> process(List<FactorData> rawData) {
+        long start = metrics.start();
+        List<FactorData> processed = dataProcessor.get().process(rawData);
+        metrics.stop(MetricsRegistry.Stage.PROCESS, start, rawData.size());
+        return processed;
+    }
+
+    /**
+     * 获取并处理数据，以列式数据帧返回
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 因子数据帧
+     */
+    public FactorFrame fetchFrame(String source, String query, LocalDateTime startDate, LocalDateTime endDate) {
+        return FactorFrame.from(fetchData(source, query, startDate, endDate));
+    }
+
+    /**
+     * 把处理后的数据帧写入列式存储，之后的训练和回测可以直接从存储读取而不必重新获取
+     * @param dataset 数据集名称
+     * @param frame 因子数据帧
+     */
+    public void storeFrame(String dataset, FactorFrame frame) {
+        try {
+            factorStore.write(dataset, frame);
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * 从列式存储读取数据帧，只解码日期区间内的分区和请求的特征列
+     * @param dataset 数据集名称
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @param features 读取的特征下标，null表示全部特征
+     * @return 因子数据帧，可直接用于trainModel和backtestStrategy
+     */
+    public FactorFrame loadFrame(String dataset, LocalDate startDate, LocalDate endDate, int[] features) {
+        try {
+            long start = metrics.start();
+            FactorFrame frame = factorStore.read(dataset, startDate, endDate, features);
+            metrics.stop(MetricsRegistry.Stage.FETCH, start, frame.rowCount());
+            return frame;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * 以流式方式获取、处理并打分，数据按时间分块经有界队列流过各阶段，内存占用不随时间窗口增长。
+     * 各阶段的每个批次计入FETCH、PROCESS和PREDICT指标
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param modelName 模型名称
+     * @param listener 打分结果监听器
+     * @return 各阶段指标
+     */
+    public List<StageMetrics> streamScores(String source, String query, LocalDateTime startDate, LocalDateTime endDate,
+                                           String modelName, StreamingPipeline.ScoreListener listener) {
+        logger.info("Streaming scores of model {} from {} for query '{}' between {} and {}",
+                modelName, source, query, startDate, endDate);
+        try {
+            int queueCapacity = Integer.parseInt(config.getProperty("pipeline.queue.capacity", "8"));
+            int workers = Integer.parseInt(config.getProperty("pipeline.processor.workers",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            int chunkDays = Integer.parseInt(config.getProperty("pipeline.chunk.days", "1"));
+
+            StreamingPipeline pipeline = new StreamingPipeline(adapterManager.get(), source,
+                    dataProcessor.get(), modelManager.get().getModel(modelName), queueCapacity, workers, chunkDays);
+            pipeline.setMetrics(metrics);
+            return pipeline.run(query, startDate, endDate, listener);
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Failed to stream scores from " + source + " with model " + modelName, e));
+        }
+    }
+
+    /**
+     * 训练模型
+     * @param modelName 模型名称
+     * @param trainingData 训练数据
+     * @param epochs 训练轮数
+     */
+    public void trainModel(String modelName, List<FactorData> trainingData, int epochs) {
+        try {
+            long start = metrics.start();
+            modelManager.get().trainModel(modelName, trainingData, epochs);
+            metrics.stop(MetricsRegistry.Stage.TRAIN, start, (long) trainingData.size() * epochs);
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Failed to train model " + modelName, e));
+        }
+    }
+
+    /**
+     * 使用列式数据帧训练模型
+     * @param modelName 模型名称
+     * @param trainingData 训练数据帧
+     * @param epochs 训练轮数
+     */
+    public void trainModel(String modelName, FactorFrame trainingData, int epochs) {
+        try {
+            long start = metrics.start();
+            modelManager.get().trainModel(modelName, trainingData, epochs);
+            metrics.stop(MetricsRegistry.Stage.TRAIN, start, (long) trainingData.rowCount() * epochs);
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Failed to train model " + modelName, e));
+        }
+    }
+
+    /**
+     * 用新数据增量更新模型，开销与新数据量成正比
+     * @param modelName 模型名称
+     * @param newData 新增数据
+     */
+    public void updateModel(String modelName, List<FactorData> newData) {
+        try {
+            long start = metrics.start();
+            modelManager.get().updateModel(modelName, newData);
+            metrics.stop(MetricsRegistry.Stage.TRAIN, start, newData.size());
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Failed to update model " + modelName, e));
+        }
+    }
+
+    /**
+     * 回测策略，模型预测值会写回每条数据的因子值
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称
+     * @param factorData 因子数据
+     * @return 回测结果
+     */
+    public BacktestResult backtestStrategy(String strategyName, String modelName, List<FactorData> factorData) {
+        if (factorData == null || factorData.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        FactorFrame frame = FactorFrame.from(factorData);
+        BacktestResult result = backtestStrategy(strategyName, modelName, frame);
+        for (int i = 0; i < factorData.size(); i++) {
+            factorData.get(i).setFactorValue(frame.factorValue(i));
+        }
+        return result;
+    }
+
+    /**
+     * 基于列式数据帧回测策略，模型预测值写回数据帧的因子值列。
+     * 同一日期的多条数据按等权组合计算当日收益
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称
+     * @param frame 因子数据帧
+     * @return 回测结果
+     */
+    public BacktestResult backtestStrategy(String strategyName, String modelName, FactorFrame frame) {
+        if (frame == null || frame.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        logger.info("Backtesting strategy {} with model {} on {} rows", strategyName, modelName, frame.rowCount());
+        try {
+            FactorModel model = modelManager.get().getModel(modelName);
+            predictInto(model, frame);
+
+            long start = metrics.start();
+            IncrementalBacktestEngine backtest = new IncrementalBacktestEngine(TradingStrategy.forName(strategyName));
+            backtest.process(frame);
+            metrics.stop(MetricsRegistry.Stage.BACKTEST, start, frame.rowCount());
+            logger.info("Backtest of {} completed over {} days. Total return: {}, max drawdown: {}",
+                    strategyName, backtest.getDays(), backtest.getTotalReturn(), backtest.getMaxDrawdown());
+            return backtest.toResult(modelName);
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Failed to backtest strategy " + strategyName, e));
+        }
+    }
+
+    /**
+     * 以横截面组合回测策略：每日按模型信号排名选出分位组或前K名构建多空组合（portfolio.*配置），
+     * 而不是逐行按信号方向持仓。模型预测值写回数据帧的因子值列
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称
+     * @param frame 因子数据帧
+     * @return 回测结果
+     */
+    public BacktestResult backtestPortfolio(String strategyName, String modelName, FactorFrame frame) {
+        if (frame == null || frame.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        logger.info("Portfolio backtest of strategy {} with model {} on {} rows", strategyName, modelName,
+                frame.rowCount());
+        try {
+            predictInto(modelManager.get().getModel(modelName), frame);
+
+            long start = metrics.start();
+            PortfolioConstructor.Portfolio portfolio =
+                    new PortfolioConstructor(TradingStrategy.forName(strategyName), config).construct(frame);
+            BacktestResult result = portfolio.toResult(modelName);
+            metrics.stop(MetricsRegistry.Stage.BACKTEST, start, frame.rowCount());
+            logger.info("Portfolio backtest of {} completed over {} days. Total return: {}, average turnover: {}",
+                    strategyName, portfolio.dayCount(), result.getTotalReturn(), portfolio.getAverageTurnover());
+            return result;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Failed to backtest portfolio of strategy " + strategyName, e));
+        }
+    }
+
+    private void predictInto(FactorModel model, FactorFrame frame) {
+        long start = metrics.start();
+        int rows = frame.rowCount();
+        double[] predictions = new double[rows];
+        model.predictBatch(frame, predictions);
+        for (int i = 0; i < rows; i++) {
+            frame.setFactorValue(i, predictions[i]);
+        }
+        metrics.stop(MetricsRegistry.Stage.PREDICT, start, rows);
+    }
+
+    /**
+     * 对晚于lastEpochDay的行打分并写回因子值列，返回只含这些行的数据帧。按日期排列的数据帧中
+     * 新交易日是一段后缀，直接零拷贝切片；否则把这些行复制为紧凑数据帧，打分后再写回原数据帧
+     */
+    private FactorFrame predictNewDays(FactorModel model, FactorFrame frame, int lastEpochDay) {
+        int rows = frame.rowCount();
+        int[] newRows = new int[rows];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            if (frame.date(i) > lastEpochDay) {
+                newRows[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return frame.slice(rows, rows);
+        }
+        if (newRows[0] == rows - count) {
+            FactorFrame suffix = frame.slice(rows - count, rows);
+            predictInto(model, suffix);
+            return suffix;
+        }
+        FactorFrame copy = frame.copyRows(newRows, count);
+        predictInto(model, copy);
+        for (int i = 0; i < count; i++) {
+            frame.setFactorValue(newRows[i], copy.factorValue(i));
+        }
+        return copy;
+    }
+
+    /**
+     * 增量回测：从快照恢复回测状态，只对快照之后的新交易日打分并推进状态，
+     * 早于等于快照最后一天的行既不重新打分，也不改写其因子值。首次运行时snapshot传null，按完整历史回测
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称
+     * @param snapshot 上次运行保存的状态快照，可以为null
+     * @param frame 因子数据帧，早于等于快照最后一天的数据会被跳过
+     * @return 推进后的回测引擎，可继续生成快照或回测结果
+     */
+    public IncrementalBacktestEngine backtestIncremental(String strategyName, String modelName,
+                                                        IncrementalBacktestEngine.Snapshot snapshot, FactorFrame frame) {
+        if (frame == null) {
+            throw new IllegalArgumentException("Factor data cannot be null");
+        }
+        try {
+            IncrementalBacktestEngine backtest = snapshot == null
+                    ? new IncrementalBacktestEngine(TradingStrategy.forName(strategyName))
+                    : IncrementalBacktestEngine.resume(snapshot);
+            if (backtest.getStrategy() != TradingStrategy.forName(strategyName)) {
+                throw new IllegalArgumentException("Snapshot was taken for strategy " + backtest.getStrategy());
+            }
+
+            FactorFrame newRows = predictNewDays(modelManager.get().getModel(modelName), frame,
+                    backtest.getLastEpochDay());
+            long start = metrics.start();
+            int newDays = backtest.process(newRows);
+            metrics.stop(MetricsRegistry.Stage.BACKTEST, start, newRows.rowCount());
+            logger.info("Incremental backtest of {} scored {} new rows over {} new days, {} days in total",
+                    strategyName, newRows.rowCount(), newDays, backtest.getDays());
+            return backtest;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Failed to backtest strategy " + strategyName, e));
+        }
+    }
+
+    /**
+     * 在本机的多个工作JVM上分片执行获取、处理、打分和回测，按shard.mode以标的散列或日期区间划分，
+     * 分片数由shard.workers指定。模型先保存为检查点，工作进程从检查点恢复，因此需要配置model.checkpoint.dir
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 合并后的回测结果和因子输出
+     */
+    public ShardCoordinator.ShardedRun backtestSharded(String strategyName, String modelName, String source,
+                                                       String query, LocalDateTime startDate, LocalDateTime endDate) {
+        logger.info("Sharded backtest of strategy {} with model {} on {} from {} to {}",
+                strategyName, modelName, source, startDate, endDate);
+        try {
+            modelManager.get().saveCheckpoint(modelName);
+            long start = metrics.start();
+            ShardCoordinator.ShardedRun run = new ShardCoordinator(config)
+                    .run(strategyName, modelName, source, query, startDate, endDate);
+            metrics.stop(MetricsRegistry.Stage.BACKTEST, start, run.getRowCount());
+            return run;
+        } catch (FactorEngineException e) {
+            throw failed(e);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Failed to run sharded backtest of strategy " + strategyName, e));
+        }
+    }
+
+    /**
+     * 并行运行参数扫描和滚动前推回测，所有任务共享同一份只读历史数据
+     * @param grid 参数网格
+     * @param history 历史数据帧
+     * @param listener 进度监听器，可以为null
+     * @return 扫描任务，可查询进度、取消或等待排名结果
+     */
+    public SweepRunner.SweepJob sweep(SweepGrid grid, FactorFrame history, SweepRunner.ProgressListener listener) {
+        logger.info("Starting parameter sweep on {} rows", history == null ? 0 : history.rowCount());
+        return sweepRunner.get().submit(grid, history, listener);
+    }
+
+    /**
+     * 可视化因子表现和回测结果
+     * @param factorData 因子数据
+     * @param backtestResult 回测结果
+     */
+    public void visualizeResults(List<FactorData> factorData, BacktestResult backtestResult) {
+        try {
+            visualizer.get().visualizeFactorPerformance(factorData, backtestResult);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                    "Failed to visualize results", e));
+        }
+    }
+
+    /**
+     * 可视化列式数据帧的因子表现和回测结果
+     * @param frame 因子数据帧
+     * @param backtestResult 回测结果
+     */
+    public void visualizeResults(FactorFrame frame, BacktestResult backtestResult) {
+        try {
+            visualizer.get().visualizeFactorPerformance(frame, backtestResult);
+        } catch (Exception e) {
+            throw failed(new FactorEngineException(FactorEngineException.ErrorCode.VISUALIZATION_ERROR,
+                    "Failed to visualize results", e));
+        }
+    }
+
+    private FactorEngineException failed(FactorEngineException e) {
+        metrics.recordFailure(e.getErrorCode());
+        return e;
+    }
+
+    /**
+     * 获取热点阶段指标
+     * @return 指标注册表
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 关闭已初始化的子系统持有的线程池并停止指标导出，配置了导出文件时写入最后一次指标。
+     * 从未使用过的子系统不会为了关闭而被构造
+     */
+    public void shutdown() {
+        SweepRunner runner = sweepRunner.getIfBuilt();
+        if (runner != null) {
+            runner.shutdown();
+        }
+        FactorModelManager models = modelManager.getIfBuilt();
+        if (models != null) {
+            models.shutdown();
+        }
+        DataAdapterManager adapters = adapterManager.getIfBuilt();
+        if (adapters != null) {
+            adapters.shutdown();
+        }
+        DataProcessor processor = dataProcessor.getIfBuilt();
+        if (processor != null) {
+            DataProcessorFactory.shutdown(processor);
+        }
+        if (metricsExporter != null) {
+            metricsExporter.close();
+        }
+    }
+
+    public FactorModelManager getModelManager() {
+        return modelManager.get();
+    }
+
+    public DataAdapterManager getAdapterManager() {
+        return adapterManager.get();
+    }
+}
\ No newline at end of file
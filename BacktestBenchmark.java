@@ -0,0 +1,80 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.AltDataFactorEngine;
+import com.quant.altdata.backtest.BacktestResult;
+import com.quant.altdata.backtest.IncrementalBacktestEngine;
+import com.quant.altdata.backtest.TradingStrategy;
+import com.quant.altdata.data.model.FactorFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 策略回测基准 - 完整的backtestStrategy（模型打分加回测）以及仅回测部分的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BacktestBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"momentum", "longonly"})
+    private String strategyName;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"500"})
+    private int symbols;
+
+    private AltDataFactorEngine engine;
+    private FactorFrame frame;
+    private double[] signals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties config = new Properties();
+        config.setProperty("data.cache.enabled", "false");
+        config.setProperty("visualization.headless", "true");
+        config.setProperty("model.feature.count", String.valueOf(FEATURE_COUNT));
+        engine = new AltDataFactorEngine(config);
+        engine.trainModel("linear", SyntheticFactorData.generateFrame(5000, FEATURE_COUNT, symbols, 23L), 1);
+
+        frame = SyntheticFactorData.generateFrame(rows, FEATURE_COUNT, symbols, 29L);
+        signals = new double[rows];
+        engine.getModelManager().getModel("linear").predictBatch(frame, signals);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.getModelManager().shutdown();
+        engine.getAdapterManager().shutdown();
+    }
+
+    @Benchmark
+    public BacktestResult backtestStrategy() {
+        return engine.backtestStrategy(strategyName, "linear", frame);
+    }
+
+    @Benchmark
+    public BacktestResult backtestOnly() {
+        IncrementalBacktestEngine backtest = new IncrementalBacktestEngine(TradingStrategy.forName(strategyName));
+        backtest.process(frame, signals);
+        return backtest.toResult("linear");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.quant.altdata.backtest;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 回测结果 - 保存策略回测的净值曲线、回撤和绩效指标
+ * <p>
+ * 净值曲线和回撤以按日期升序排列的并行原始数组保存（epoch day的int[]和double[]），
+ * getEquityCurve()和getDrawdown()返回直接读取数组的只读Map视图，不会为每个点创建包装对象。
+ */
+public class BacktestResult {
+    private final String strategyName;
+    private final String modelName;
+    private final int[] epochDays;
+    private final double[] equityCurve;
+    private final double[] drawdown;
+    private final double sharpeRatio;
+    private final double maxDrawdown;
+    private final double totalReturn;
+    private Map<LocalDate, Double> equityView;
+    private Map<LocalDate, Double> drawdownView;
+
+    /**
+     * 构造函数
+     * @param strategyName 策略名称
+     * @param modelName 模型名称
+     * @param epochDays 按升序排列的交易日（epoch day），数组直接被持有，调用方之后不应再修改
+     * @param equityCurve 各交易日净值
+     * @param drawdown 各交易日回撤（负数表示回撤比例）
+     * @param sharpeRatio 年化夏普比率
+     * @param maxDrawdown 最大回撤
+     * @param totalReturn 总收益率
+     */
+    public BacktestResult(String strategyName, String modelName,
+                          int[] epochDays, double[] equityCurve, double[] drawdown,
+                          double sharpeRatio, double maxDrawdown, double totalReturn) {
+        if (equityCurve.length != epochDays.length || drawdown.length != epochDays.length) {
+            throw new IllegalArgumentException("Equity curve and drawdown must have one value per date");
+        }
+        for (int i = 1; i < epochDays.length; i++) {
+            if (epochDays[i] <= epochDays[i - 1]) {
+                throw new IllegalArgumentException("Dates must be strictly ascending");
+            }
+        }
+        this.strategyName = strategyName;
+        this.modelName = modelName;
+        this.epochDays = epochDays;
+        this.equityCurve = equityCurve;
+        this.drawdown = drawdown;
+        this.sharpeRatio = sharpeRatio;
+        this.maxDrawdown = maxDrawdown;
+        this.totalReturn = totalReturn;
+    }
+
+    /**
+     * 构造函数
+     * @param strategyName 策略名称
+     * @param modelName 模型名称
+     * @param equityCurve 净值曲线，可以是任意顺序的Map，按日期升序保存
+     * @param drawdown 回撤（负数表示回撤比例），需要包含净值曲线的每个日期
+     * @param sharpeRatio 年化夏普比率
+     * @param maxDrawdown 最大回撤
+     * @param totalReturn 总收益率
+     */
+    public BacktestResult(String strategyName, String modelName,
+                          Map<LocalDate, Double> equityCurve, Map<LocalDate, Double> drawdown,
+                          double sharpeRatio, double maxDrawdown, double totalReturn) {
+        this(strategyName, modelName, toEpochDays(sorted(equityCurve)), toValues(sorted(equityCurve)),
+                alignedValues(sorted(equityCurve), drawdown), sharpeRatio, maxDrawdown, totalReturn);
+    }
+
+    /**
+     * 按日期升序的视图，已经是自然顺序的SortedMap时直接返回，否则复制到TreeMap
+     */
+    private static Map<LocalDate, Double> sorted(Map<LocalDate, Double> series) {
+        if (series instanceof SortedMap && ((SortedMap<LocalDate, Double>) series).comparator() == null) {
+            return series;
+        }
+        return new TreeMap<>(series);
+    }
+
+    private static int[] toEpochDays(Map<LocalDate, Double> series) {
+        int[] days = new int[series.size()];
+        int i = 0;
+        for (LocalDate date : series.keySet()) {
+            days[i++] = (int) date.toEpochDay();
+        }
+        return days;
+    }
+
+    private static double[] toValues(Map<LocalDate, Double> series) {
+        double[] values = new double[series.size()];
+        int i = 0;
+        for (double value : series.values()) {
+            values[i++] = value;
+        }
+        return values;
+    }
+
+    private static double[] alignedValues(Map<LocalDate, Double> equityCurve, Map<LocalDate, Double> drawdown) {
+        double[] values = new double[equityCurve.size()];
+        int i = 0;
+        for (LocalDate date : equityCurve.keySet()) {
+            Double value = drawdown.get(date);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing drawdown for " + date);
+            }
+            values[i++] = value;
+        }
+        return values;
+    }
+
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * 按日期排序的净值曲线只读视图
+     * @return 日期到净值的映射
+     */
+    public synchronized Map<LocalDate, Double> getEquityCurve() {
+        if (equityView == null) {
+            equityView = new SeriesView(epochDays, equityCurve);
+        }
+        return equityView;
+    }
+
+    /**
+     * 按日期排序的回撤只读视图
+     * @return 日期到回撤的映射
+     */
+    public synchronized Map<LocalDate, Double> getDrawdown() {
+        if (drawdownView == null) {
+            drawdownView = new SeriesView(epochDays, drawdown);
+        }
+        return drawdownView;
+    }
+
+    /**
+     * 交易日数
+     * @return 数据点数
+     */
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * 交易日数组（epoch day，升序），直接返回内部数组，调用方不得修改
+     * @return 交易日数组
+     */
+    public int[] epochDayArray() {
+        return epochDays;
+    }
+
+    /**
+     * 净值数组，与epochDayArray()一一对应，直接返回内部数组，调用方不得修改
+     * @return 净值数组
+     */
+    public double[] equityArray() {
+        return equityCurve;
+    }
+
+    /**
+     * 回撤数组，与epochDayArray()一一对应，直接返回内部数组，调用方不得修改
+     * @return 回撤数组
+     */
+    public double[] drawdownArray() {
+        return drawdown;
+    }
+
+    public double getSharpeRatio() {
+        return sharpeRatio;
+    }
+
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public double getTotalReturn() {
+        return totalReturn;
+    }
+
+    /**
+     * 基于并行数组的只读Map视图，按日期查找使用二分查找
+     */
+    private static final class SeriesView extends AbstractMap<LocalDate, Double> {
+        private final int[] days;
+        private final double[] values;
+
+        SeriesView(int[] days, double[] values) {
+            this.days = days;
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return days.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Double get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? values[index] : null;
+        }
+
+        private int indexOf(Object key) {
+            if (!(key instanceof LocalDate)) {
+                return -1;
+            }
+            long epochDay = ((LocalDate) key).toEpochDay();
+            if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(days, (int) epochDay);
+            return index >= 0 ? index : -1;
+        }
+
+        @Override
+        public Set<Entry<LocalDate, Double>> entrySet() {
+            return new AbstractSet<Entry<LocalDate, Double>>() {
+                @Override
+                public int size() {
+                    return days.length;
+                }
+
+                @Override
+                public Iterator<Entry<LocalDate, Double>> iterator() {
+                    return new Iterator<Entry<LocalDate, Double>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < days.length;
+                        }
+
+                        @Override
+                        public Entry<LocalDate, Double> next() {
+                            if (next >= days.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(LocalDate.ofEpochDay(days[i]), values[i]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.quant.altdata.backtest;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回测结果测试类
+ */
+public class BacktestResultTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void testMapViewsReadPrimitiveArrays() {
+        int[] days = {(int) START.toEpochDay(), (int) START.plusDays(1).toEpochDay(), (int) START.plusDays(3).toEpochDay()};
+        double[] equity = {1.01, 0.99, 1.02};
+        double[] drawdown = {0.0, -0.0198, 0.0};
+        BacktestResult result = new BacktestResult("momentum", "linear", days, equity, drawdown, 1.5, -0.0198, 0.02);
+
+        Map<LocalDate, Double> curve = result.getEquityCurve();
+        assertEquals(3, curve.size());
+        assertEquals(0.99, curve.get(START.plusDays(1)));
+        assertNull(curve.get(START.plusDays(2)));
+        assertEquals(START.plusDays(3), new ArrayList<>(curve.keySet()).get(2));
+        assertEquals(-0.0198, result.getDrawdown().get(START.plusDays(1)));
+        assertThrows(UnsupportedOperationException.class, () -> curve.put(START, 2.0));
+    }
+
+    @Test
+    void testMapConstructorMatchesArrayConstructor() {
+        Map<LocalDate, Double> equity = new LinkedHashMap<>();
+        Map<LocalDate, Double> drawdown = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            equity.put(START.plusDays(i), 1.0 + i * 0.01);
+            drawdown.put(START.plusDays(i), 0.0);
+        }
+        BacktestResult result = new BacktestResult("longonly", "linear", equity, drawdown, 0.0, 0.0, 0.04);
+
+        assertEquals(equity, result.getEquityCurve());
+        assertEquals(START.plusDays(4).toEpochDay(), result.epochDayArray()[4]);
+        assertEquals(1.04, result.equityArray()[4], 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new BacktestResult("momentum", "linear",
+                new int[]{2, 1}, new double[2], new double[2], 0.0, 0.0, 0.0));
+    }
+
+    @Test
+    void testMapConstructorSortsUnorderedDates() {
+        Map<LocalDate, Double> equity = new HashMap<>();
+        Map<LocalDate, Double> drawdown = new HashMap<>();
+        for (int i = 9; i >= 0; i--) {
+            equity.put(START.plusDays(i), 1.0 + i * 0.01);
+            drawdown.put(START.plusDays(i), -i * 0.001);
+        }
+        BacktestResult result = new BacktestResult("longonly", "linear", equity, drawdown, 0.0, 0.0, 0.09);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(START.plusDays(i).toEpochDay(), result.epochDayArray()[i]);
+            assertEquals(1.0 + i * 0.01, result.equityArray()[i], 1e-12);
+            assertEquals(-i * 0.001, result.getDrawdown().get(START.plusDays(i)), 1e-12);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.quant.altdata.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * 基准测试入口 - 运行本包内的JMH基准并输出机器可读的结果文件，用于在版本之间比较性能回归
+ * <p>
+ * 系统属性：
+ * <ul>
+ *   <li>benchmark.include：基准类名正则，默认运行本包全部基准</li>
+ *   <li>benchmark.result：结果文件路径，默认jmh-result.json</li>
+ *   <li>benchmark.format：结果格式（json、csv），默认json</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkRunner.class);
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName() + ".*");
+        String resultFile = System.getProperty("benchmark.result", "jmh-result.json");
+        ResultFormatType format = ResultFormatType.valueOf(
+                System.getProperty("benchmark.format", "json").toUpperCase(Locale.ROOT));
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .result(resultFile)
+                .resultFormat(format)
+                .shouldFailOnError(true)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        logger.info("Completed {} benchmarks, results written to {}", results.size(), resultFile);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,232 @@
+package com.quant.altdata.data.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 列压缩编解码器 - FactorStore各列使用的两种编码
+ * <p>
+ * 整数列（日期、标的编号）按差分编码：相邻值之差做zigzag变换后写成变长整数，
+ * 按日期排序的日期列绝大多数差为0或1，每行只占1个字节。
+ * 浮点列使用Gorilla的XOR编码：当前值与前一个值的位模式异或，结果为0时写1位；
+ * 有效位落在上一次的前导零和尾随零窗口内时只写窗口内的位，否则写5位前导零数、6位有效位数和有效位。
+ * 位流按大端序的64位字写出，解码时直接从（可以是内存映射的）缓冲区按字读取。
+ */
+public final class ColumnCodec {
+    private static final int MAX_LEADING_ZEROS = 31;
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * 差分编码整数列
+     * @param values 数值
+     * @param rows 行数
+     * @return 编码后的字节
+     */
+    public static byte[] encodeDeltas(int[] values, int rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows + 8);
+        int previous = 0;
+        for (int i = 0; i < rows; i++) {
+            int delta = values[i] - previous;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                out.write((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.write(zigzag);
+            previous = values[i];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码差分编码的整数列
+     * @param block 编码数据，从position开始读取
+     * @param rows 解码的行数
+     * @param dest 输出数组
+     */
+    public static void decodeDeltas(ByteBuffer block, int rows, int[] dest) {
+        int position = block.position();
+        int previous = 0;
+        for (int i = 0; i < rows; i++) {
+            int zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = block.get(position++);
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            dest[i] = previous;
+        }
+    }
+
+    /**
+     * 以Gorilla XOR编码浮点列
+     * @param values 数值
+     * @param offset 起始下标
+     * @param rows 行数
+     * @return 编码后的字节
+     */
+    public static byte[] encodeDoubles(double[] values, int offset, int rows) {
+        BitWriter writer = new BitWriter(rows);
+        if (rows == 0) {
+            return writer.toByteArray();
+        }
+        long previous = Double.doubleToRawLongBits(values[offset]);
+        writer.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < rows; i++) {
+            long bits = Double.doubleToRawLongBits(values[offset + i]);
+            long xor = bits ^ previous;
+            if (xor == 0) {
+                writer.write(0, 1);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    writer.write(0b10, 2);
+                    writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    writer.write(0b11, 2);
+                    writer.write(leading, 5);
+                    writer.write(significant == 64 ? 0 : significant, 6);
+                    writer.write(xor >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = bits;
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 解码Gorilla XOR编码的浮点列。编码是顺序相关的，必须从第0行解码到to行，
+     * 只有[from, to)内的值写入输出
+     * @param block 编码数据，从position开始读取
+     * @param from 输出的起始行
+     * @param to 输出的结束行（不含）
+     * @param dest 输出数组
+     * @param destOffset 第from行在输出数组中的位置
+     */
+    public static void decodeDoubles(ByteBuffer block, int from, int to, double[] dest, int destOffset) {
+        if (to <= 0) {
+            return;
+        }
+        BitReader reader = new BitReader(block);
+        long previous = reader.read(64);
+        if (from == 0) {
+            dest[destOffset] = Double.longBitsToDouble(previous);
+        }
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < to; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(5);
+                    int significant = (int) reader.read(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            if (i >= from) {
+                dest[destOffset + i - from] = Double.longBitsToDouble(previous);
+            }
+        }
+    }
+
+    /**
+     * 位写入器 - 按大端序把位追加到64位字数组
+     */
+    private static final class BitWriter {
+        private long[] words;
+        private long bitPosition;
+
+        BitWriter(int expectedValues) {
+            this.words = new long[Math.max(2, expectedValues / 4 + 2)];
+        }
+
+        void write(long value, int bits) {
+            if (bits == 0) {
+                return;
+            }
+            int word = (int) (bitPosition >>> 6);
+            int used = (int) (bitPosition & 63);
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+            int free = 64 - used;
+            if (bits <= free) {
+                words[word] |= masked << (free - bits);
+            } else {
+                words[word] |= masked >>> (bits - free);
+                words[word + 1] |= masked << (64 - (bits - free));
+            }
+            bitPosition += bits;
+        }
+
+        byte[] toByteArray() {
+            int wordCount = (int) ((bitPosition + 63) >>> 6);
+            ByteBuffer buffer = ByteBuffer.allocate(wordCount * 8).order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < wordCount; i++) {
+                buffer.putLong(words[i]);
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * 位读取器 - 从缓冲区按64位字读取位
+     */
+    private static final class BitReader {
+        private final ByteBuffer block;
+        private final int base;
+        private final int limit;
+        private long bitPosition;
+
+        BitReader(ByteBuffer block) {
+            this.block = block.duplicate().order(ByteOrder.BIG_ENDIAN);
+            this.base = block.position();
+            this.limit = block.limit();
+        }
+
+        long read(int bits) {
+            if (bits == 0) {
+                return 0;
+            }
+            int word = (int) (bitPosition >>> 6);
+            int used = (int) (bitPosition & 63);
+            long current = word(word);
+            int available = 64 - used;
+            long result;
+            if (bits <= available) {
+                result = (current << used) >>> (64 - bits);
+            } else {
+                int rest = bits - available;
+                long high = (current << used) >>> used;
+                result = (high << rest) | (word(word + 1) >>> (64 - rest));
+            }
+            bitPosition += bits;
+            return result;
+        }
+
+        private long word(int index) {
+            int position = base + index * 8;
+            if (position + 8 > limit) {
+                throw new IllegalArgumentException("Corrupt column block: bit stream truncated");
+            }
+            return block.getLong(position);
+        }
+    }
+}
\ No newline at end of file
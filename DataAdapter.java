@@ -0,0 +1,62 @@
+package com.quant.altdata.data.adapter;
+
+import com.quant.altdata.data.model.FactorData;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * 数据源适配器接口 - 将新闻、社交媒体、卫星图像等替代数据源转换为因子数据
+ */
+public interface DataAdapter {
+
+    /**
+     * 获取数据源名称
+     * @return 数据源名称，如news、social、satellite
+     */
+    String getName();
+
+    /**
+     * 初始化适配器
+     * @param config 配置属性
+     */
+    void initialize(Properties config);
+
+    /**
+     * 获取数据
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 因子数据列表
+     */
+    List<FactorData> fetchData(String query, LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * 按时间分块获取数据并逐块发布给下游，内存占用只与分块大小有关。
+     * 下游可在sink中阻塞以施加背压
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param chunkDays 每块覆盖的天数
+     * @param sink 数据块接收者
+     */
+    default void stream(String query, LocalDateTime startDate, LocalDateTime endDate, int chunkDays,
+                        Consumer<List<FactorData>> sink) {
+        if (chunkDays <= 0) {
+            throw new IllegalArgumentException("Chunk days must be positive: " + chunkDays);
+        }
+        LocalDateTime chunkStart = startDate;
+        while (chunkStart.isBefore(endDate)) {
+            LocalDateTime chunkEnd = chunkStart.plusDays(chunkDays);
+            if (chunkEnd.isAfter(endDate)) {
+                chunkEnd = endDate;
+            }
+            List<FactorData> chunk = fetchData(query, chunkStart, chunkEnd);
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+            }
+            chunkStart = chunkEnd;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,402 @@
+package com.quant.altdata.data.adapter;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.storage.DiskFactorCache;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 数据适配器管理器 - 注册和调度各数据源适配器
+ * <p>
+ * 多数据源请求并发下发到各适配器，较长的时间窗口按data.fetch.chunkDays拆分为并行获取的分块。
+ * 相同(数据源, 查询, 时间段)的分块请求在执行期间只会真正获取一次，并发调用方共享同一结果。
+ * 启用磁盘缓存（data.cache.enabled，默认关闭）时，时间窗口按自然日对齐，已缓存的完整日期直接从本地读取，
+ * 只有缺失或过期的连续日期段会向适配器请求；当天及以后的数据不会缓存。没有数据的日期写入空分区，
+ * 空分区按data.cache.emptyTtlHours（默认24小时）过期，以便数据源延迟补齐的数据能被重新获取。
+ */
+public class DataAdapterManager {
+    private static final Logger logger = LoggerFactory.getLogger(DataAdapterManager.class);
+    private final Map<String, DataAdapter> adapters;
+    private final Properties config;
+    private final ExecutorService fetchExecutor;
+    private final ConcurrentMap<FetchKey, CompletableFuture<List<FactorData>>> inFlight;
+    private final int chunkDays;
+    private final LongAdder coalescedRequests;
+    private final DiskFactorCache cache;
+
+    /**
+     * 构造函数
+     * @param config 配置属性
+     */
+    public DataAdapterManager(Properties config) {
+        this.config = config;
+        this.adapters = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.coalescedRequests = new LongAdder();
+        this.chunkDays = Integer.parseInt(config.getProperty("data.fetch.chunkDays", "30"));
+        int threads = Integer.parseInt(config.getProperty("data.fetch.threads", "8"));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "adapter-fetch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = Boolean.parseBoolean(config.getProperty("data.cache.enabled", "false"))
+                ? DiskFactorCache.fromConfig(config) : null;
+        initializeAdapters();
+    }
+
+    /**
+     * 根据配置项data.adapters（逗号分隔的类名）初始化适配器
+     */
+    private void initializeAdapters() {
+        String adapterClasses = config.getProperty("data.adapters", "").trim();
+        if (adapterClasses.isEmpty()) {
+            logger.info("No data adapters configured");
+            return;
+        }
+
+        for (String className : adapterClasses.split(",")) {
+            try {
+                DataAdapter adapter = (DataAdapter) Class.forName(className.trim()).getDeclaredConstructor().newInstance();
+                registerAdapter(adapter);
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.CONFIGURATION_ERROR,
+                        "Failed to create data adapter: " + className, e);
+            }
+        }
+        logger.info("Data adapters initialized: {}", adapters.keySet());
+    }
+
+    /**
+     * 注册数据适配器
+     * @param adapter 数据适配器
+     */
+    public void registerAdapter(DataAdapter adapter) {
+        adapter.initialize(config);
+        if (adapters.containsKey(adapter.getName())) {
+            logger.warn("Overriding existing data adapter: {}", adapter.getName());
+        }
+        adapters.put(adapter.getName(), adapter);
+        logger.info("Data adapter registered: {}", adapter.getName());
+    }
+
+    /**
+     * 获取指定数据源的适配器
+     * @param source 数据源名称
+     * @return 适配器实例
+     */
+    public DataAdapter getAdapter(String source) {
+        if (!adapters.containsKey(source)) {
+            throw new IllegalArgumentException("Data adapter not found: " + source);
+        }
+        return adapters.get(source);
+    }
+
+    /**
+     * 从指定数据源获取数据
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 因子数据列表
+     */
+    public List<FactorData> fetchData(String source, String query, LocalDateTime startDate, LocalDateTime endDate) {
+        return await(fetchDataAsync(source, query, startDate, endDate));
+    }
+
+    /**
+     * 并发地从多个数据源获取同一时间窗口的数据
+     * @param sources 数据源名称列表
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 数据源名称到因子数据列表的映射，顺序与sources一致
+     */
+    public Map<String, List<FactorData>> fetchAll(List<String> sources, String query,
+                                                  LocalDateTime startDate, LocalDateTime endDate) {
+        Map<String, CompletableFuture<List<FactorData>>> futures = new LinkedHashMap<>();
+        for (String source : sources) {
+            futures.put(source, fetchDataAsync(source, query, startDate, endDate));
+        }
+
+        Map<String, List<FactorData>> result = new LinkedHashMap<>();
+        futures.forEach((source, future) -> result.put(source, await(future)));
+        logger.debug("Fetched {} sources for query '{}'", result.size(), query);
+        return result;
+    }
+
+    /**
+     * 按自然日对齐的时间分块依次获取数据并逐块发布给下游，每个分块都经过磁盘缓存和请求合并。
+     * 下游处理当前分块时下一个分块已在后台获取，内存中最多保留两个分块；下游可在sink中阻塞以施加背压
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param chunkDays 每块覆盖的天数
+     * @param sink 数据块接收者，空分块不发布
+     */
+    public void stream(String source, String query, LocalDateTime startDate, LocalDateTime endDate, int chunkDays,
+                       Consumer<List<FactorData>> sink) {
+        if (chunkDays <= 0) {
+            throw new IllegalArgumentException("Chunk days must be positive: " + chunkDays);
+        }
+        getAdapter(source);
+        CompletableFuture<List<FactorData>> pending = null;
+        LocalDateTime chunkStart = startDate;
+        while (chunkStart.isBefore(endDate) || pending != null) {
+            CompletableFuture<List<FactorData>> next = null;
+            if (chunkStart.isBefore(endDate)) {
+                // 分块止于自然日零点，启用磁盘缓存时相邻分块不会重复返回同一天
+                LocalDateTime chunkEnd = chunkStart.toLocalDate().plusDays(chunkDays).atStartOfDay();
+                if (chunkEnd.isAfter(endDate)) {
+                    chunkEnd = endDate;
+                }
+                next = fetchDataAsync(source, query, chunkStart, chunkEnd);
+                chunkStart = chunkEnd;
+            }
+            if (pending != null) {
+                List<FactorData> chunk = await(pending);
+                if (!chunk.isEmpty()) {
+                    sink.accept(chunk);
+                }
+            }
+            pending = next;
+        }
+    }
+
+    /**
+     * 异步获取数据，时间窗口超过分块天数时拆分为并行获取的分块并按时间顺序合并
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 因子数据列表的Future
+     */
+    public CompletableFuture<List<FactorData>> fetchDataAsync(String source, String query,
+                                                              LocalDateTime startDate, LocalDateTime endDate) {
+        DataAdapter adapter = getAdapter(source);
+        if (cache != null) {
+            return fetchThroughCache(adapter, source, query, startDate, endDate);
+        }
+        return fetchRange(adapter, source, query, startDate, endDate);
+    }
+
+    /**
+     * 按自然日查询磁盘缓存，连续的缺失日期合并为一段向适配器请求，获取结果按日期写回缓存
+     */
+    private CompletableFuture<List<FactorData>> fetchThroughCache(DataAdapter adapter, String source, String query,
+                                                                  LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstDay = startDate.toLocalDate();
+        LocalDate endDay = endDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? endDate.toLocalDate() : endDate.toLocalDate().plusDays(1);
+        LocalDate today = LocalDate.now();
+
+        List<CompletableFuture<List<FactorData>>> parts = new ArrayList<>();
+        LocalDate missingFrom = null;
+        int hits = 0;
+        for (LocalDate day = firstDay; day.isBefore(endDay); day = day.plusDays(1)) {
+            List<FactorData> cached = day.isBefore(today) ? cache.get(source, query, day) : null;
+            if (cached == null) {
+                if (missingFrom == null) {
+                    missingFrom = day;
+                }
+                continue;
+            }
+            if (missingFrom != null) {
+                parts.add(fetchAndCache(adapter, source, query, missingFrom, day, today));
+                missingFrom = null;
+            }
+            parts.add(CompletableFuture.completedFuture(cached));
+            hits++;
+        }
+        if (missingFrom != null) {
+            parts.add(fetchAndCache(adapter, source, query, missingFrom, endDay, today));
+        }
+        logger.debug("Disk cache served {} days for {}[{}], {} ranges to fetch", hits, source, query, parts.size() - hits);
+        return merge(parts);
+    }
+
+    /**
+     * 获取[from, to)内的完整日期并将已结束的日期写入缓存，无数据的日期写入会较早过期的空分区
+     */
+    private CompletableFuture<List<FactorData>> fetchAndCache(DataAdapter adapter, String source, String query,
+                                                              LocalDate from, LocalDate to, LocalDate today) {
+        return fetchRange(adapter, source, query, from.atStartOfDay(), to.atStartOfDay()).thenApply(data -> {
+            Map<LocalDate, List<FactorData>> byDay = new HashMap<>();
+            for (FactorData row : data) {
+                byDay.computeIfAbsent(row.getDate(), day -> new ArrayList<>()).add(row);
+            }
+            for (LocalDate day = from; day.isBefore(to) && day.isBefore(today); day = day.plusDays(1)) {
+                cache.put(source, query, day, byDay.getOrDefault(day, Collections.emptyList()));
+            }
+            return data;
+        });
+    }
+
+    /**
+     * 获取时间段内的数据，超过分块天数时拆分为并行获取的分块
+     */
+    private CompletableFuture<List<FactorData>> fetchRange(DataAdapter adapter, String source, String query,
+                                                           LocalDateTime startDate, LocalDateTime endDate) {
+        if (chunkDays <= 0 || !startDate.plusDays(chunkDays).isBefore(endDate)) {
+            return fetchChunk(adapter, new FetchKey(source, query, startDate, endDate));
+        }
+
+        List<CompletableFuture<List<FactorData>>> chunks = new ArrayList<>();
+        LocalDateTime chunkStart = startDate;
+        while (chunkStart.isBefore(endDate)) {
+            LocalDateTime chunkEnd = chunkStart.plusDays(chunkDays);
+            if (chunkEnd.isAfter(endDate)) {
+                chunkEnd = endDate;
+            }
+            chunks.add(fetchChunk(adapter, new FetchKey(source, query, chunkStart, chunkEnd)));
+            chunkStart = chunkEnd;
+        }
+
+        return merge(chunks);
+    }
+
+    /**
+     * 等待所有分块完成后按顺序合并
+     */
+    private static CompletableFuture<List<FactorData>> merge(List<CompletableFuture<List<FactorData>>> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<FactorData> merged = new ArrayList<>();
+            for (CompletableFuture<List<FactorData>> part : parts) {
+                merged.addAll(part.join());
+            }
+            return merged;
+        });
+    }
+
+    /**
+     * 获取单个分块，已有相同请求在执行时直接复用其结果
+     */
+    private CompletableFuture<List<FactorData>> fetchChunk(DataAdapter adapter, FetchKey key) {
+        CompletableFuture<List<FactorData>> created = new CompletableFuture<>();
+        CompletableFuture<List<FactorData>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedRequests.increment();
+            logger.debug("Coalesced in-flight request {}", key);
+            return existing;
+        }
+
+        fetchExecutor.execute(() -> {
+            List<FactorData> data = null;
+            Throwable failure = null;
+            try {
+                data = adapter.fetchData(key.query, key.startDate, key.endDate);
+                logger.debug("Fetched {} records for {}", data.size(), key);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                inFlight.remove(key, created);
+            }
+
+            if (failure == null) {
+                created.complete(data);
+            } else if (failure instanceof FactorEngineException) {
+                created.completeExceptionally(failure);
+            } else {
+                created.completeExceptionally(new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                        "Failed to fetch data from " + key.source, failure));
+            }
+        });
+        return created;
+    }
+
+    /**
+     * 等待获取结果，将异步异常还原为引擎异常
+     */
+    private static List<FactorData> await(CompletableFuture<List<FactorData>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FactorEngineException) {
+                throw (FactorEngineException) e.getCause();
+            }
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                    "Failed to fetch data", e.getCause());
+        }
+    }
+
+    /**
+     * 被合并到已有请求上的分块请求数
+     * @return 合并次数
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.sum();
+    }
+
+    /**
+     * 关闭获取线程池
+     */
+    public void shutdown() {
+        fetchExecutor.shutdown();
+    }
+
+    /**
+     * 分块请求标识
+     */
+    private static final class FetchKey {
+        private final String source;
+        private final String query;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+
+        FetchKey(String source, String query, LocalDateTime startDate, LocalDateTime endDate) {
+            this.source = source;
+            this.query = query;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FetchKey)) {
+                return false;
+            }
+            FetchKey other = (FetchKey) o;
+            return source.equals(other.source) && Objects.equals(query, other.query)
+                    && startDate.equals(other.startDate) && endDate.equals(other.endDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, query, startDate, endDate);
+        }
+
+        @Override
+        public String toString() {
+            return source + "[" + query + ", " + startDate + " - " + endDate + ")";
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.quant.altdata.data.adapter;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.exception.FactorEngineException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据适配器管理器测试类
+ */
+public class DataAdapterManagerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private DataAdapterManager manager;
+
+    @BeforeEach
+    void setUp() {
+        Properties config = new Properties();
+        config.setProperty("data.fetch.chunkDays", "10");
+        config.setProperty("data.fetch.threads", "4");
+        manager = new DataAdapterManager(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void testFetchAllSplitsRangeIntoOrderedChunks() {
+        StubAdapter news = new StubAdapter("news", null);
+        StubAdapter social = new StubAdapter("social", null);
+        manager.registerAdapter(news);
+        manager.registerAdapter(social);
+
+        Map<String, List<FactorData>> result = manager.fetchAll(Arrays.asList("news", "social"), "AAPL",
+                START, START.plusDays(25));
+
+        assertEquals(Arrays.asList("news", "social"), new ArrayList<>(result.keySet()));
+        // 25天按10天分块：每块一条记录，按块起始日期排序
+        List<FactorData> newsData = result.get("news");
+        assertEquals(3, newsData.size());
+        assertEquals(START.toLocalDate(), newsData.get(0).getDate());
+        assertEquals(START.plusDays(10).toLocalDate(), newsData.get(1).getDate());
+        assertEquals(START.plusDays(20).toLocalDate(), newsData.get(2).getDate());
+        assertEquals(3, news.calls.get());
+        assertEquals(3, social.calls.get());
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubAdapter news = new StubAdapter("news", release);
+        manager.registerAdapter(news);
+
+        CompletableFuture<List<FactorData>> first = manager.fetchDataAsync("news", "AAPL", START, START.plusDays(5));
+        CompletableFuture<List<FactorData>> second = manager.fetchDataAsync("news", "AAPL", START, START.plusDays(5));
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+        assertSame(first.get(), second.get());
+        assertEquals(1, news.calls.get());
+        assertEquals(1, manager.getCoalescedRequests());
+
+        // 请求完成后不再合并，再次获取会重新调用适配器
+        manager.fetchData("news", "AAPL", START, START.plusDays(5));
+        assertEquals(2, news.calls.get());
+    }
+
+    @Test
+    void testAdapterFailureIsReportedAsFetchError() {
+        manager.registerAdapter(new StubAdapter("broken", null) {
+            @Override
+            public List<FactorData> fetchData(String query, LocalDateTime startDate, LocalDateTime endDate) {
+                throw new IllegalStateException("connection refused");
+            }
+        });
+
+        FactorEngineException e = assertThrows(FactorEngineException.class,
+                () -> manager.fetchData("broken", "AAPL", START, START.plusDays(1)));
+        assertEquals(FactorEngineException.ErrorCode.DATA_FETCH_ERROR, e.getErrorCode());
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.fetchData("missing", "AAPL", START, START.plusDays(1)));
+    }
+
+    @Test
+    void testDiskCacheFetchesOnlyMissingDays(@TempDir Path cacheDir) throws Exception {
+        Properties config = new Properties();
+        config.setProperty("data.fetch.chunkDays", "0");
+        config.setProperty("data.cache.enabled", "true");
+        config.setProperty("data.cache.dir", cacheDir.toString());
+        DataAdapterManager cached = new DataAdapterManager(config);
+        StubAdapter news = new StubAdapter("news", null);
+        cached.registerAdapter(news);
+
+        LocalDateTime start = LocalDate.now().minusDays(10).atStartOfDay();
+        LocalDateTime end = start.plusDays(5);
+        List<FactorData> cold = cached.fetchData("news", "AAPL", start, end);
+        assertEquals(1, news.calls.get());
+
+        // 热缓存：5个完整日期均已写入分区，不再调用适配器
+        List<FactorData> warm = cached.fetchData("news", "AAPL", start, end);
+        assertEquals(1, news.calls.get());
+        assertEquals(cold.size(), warm.size());
+        assertEquals(cold.get(0).getDate(), warm.get(0).getDate());
+
+        // 删除中间一天的分区后只重新获取这一天
+        Path missing;
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            String name = start.plusDays(2).toLocalDate().toEpochDay() + ".bin";
+            missing = files.filter(path -> path.getFileName().toString().equals(name)).findFirst().orElseThrow();
+        }
+        Files.delete(missing);
+        DataAdapterManager restarted = new DataAdapterManager(config);
+        StubAdapter restartedNews = new StubAdapter("news", null);
+        restarted.registerAdapter(restartedNews);
+        restarted.fetchData("news", "AAPL", start, end);
+        assertEquals(1, restartedNews.calls.get());
+
+        cached.shutdown();
+        restarted.shutdown();
+    }
+
+    @Test
+    void testStreamGoesThroughDiskCache(@TempDir Path cacheDir) {
+        Properties config = new Properties();
+        config.setProperty("data.fetch.chunkDays", "0");
+        config.setProperty("data.cache.enabled", "true");
+        config.setProperty("data.cache.dir", cacheDir.toString());
+        DataAdapterManager cached = new DataAdapterManager(config);
+        StubAdapter news = new StubAdapter("news", null);
+        cached.registerAdapter(news);
+        LocalDateTime start = LocalDate.now().minusDays(10).atStartOfDay();
+
+        List<List<FactorData>> chunks = new ArrayList<>();
+        cached.stream("news", "AAPL", start, start.plusDays(6), 2, chunks::add);
+        assertEquals(3, chunks.size());
+        assertEquals(start.plusDays(4).toLocalDate(), chunks.get(2).get(0).getDate());
+        assertEquals(3, news.calls.get());
+
+        // 再次流式获取时全部分块命中缓存
+        List<List<FactorData>> warm = new ArrayList<>();
+        cached.stream("news", "AAPL", start, start.plusDays(6), 2, warm::add);
+        assertEquals(3, warm.size());
+        assertEquals(3, news.calls.get());
+        cached.shutdown();
+    }
+
+    /**
+     * 本地桩适配器：每次调用返回一条日期为分块起始日的记录，可选地阻塞到latch释放
+     */
+    private static class StubAdapter implements DataAdapter {
+        final AtomicInteger calls = new AtomicInteger();
+        private final String name;
+        private final CountDownLatch release;
+
+        StubAdapter(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void initialize(Properties config) {
+        }
+
+        @Override
+        public List<FactorData> fetchData(String query, LocalDateTime startDate, LocalDateTime endDate) {
+            calls.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<FactorData> data = new ArrayList<>();
+            data.add(new FactorData(startDate.toLocalDate(), new double[]{1.0}, 0.0));
+            return data;
+        }
+    }
+}
\ No newline at end of file
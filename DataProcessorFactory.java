@@ -11,15 +11,44 @@ public class DataProcessorFactory {
     private static final Logger logger = LoggerFactory.getLogger(DataProcessorFactory.class);
 
     /**
-     * 创建数据处理器
+     * 创建数据处理器。processor.features.enabled为true时，在基础处理器之后追加特征工程阶段
      * @param config 配置属性
      * @return 数据处理器实例
      */
     public static DataProcessor createProcessor(Properties config) {
+        DataProcessor processor = createBaseProcessor(config);
+        if (!Boolean.parseBoolean(config.getProperty("processor.features.enabled", "false"))) {
+            return processor;
+        }
+        int window = Integer.parseInt(config.getProperty("processor.features.window", "20"));
+        int threads = Integer.parseInt(config.getProperty("processor.features.threads",
+                config.getProperty("processor.threads", "" + Runtime.getRuntime().availableProcessors() + "")));
+        logger.info("Adding feature engineering stage with a {}-day window on {} threads", window, threads);
+        return new FeatureEngineeringProcessor(window, threads, processor);
+    }
+
+    /**
+     * 关闭工厂创建的处理器及其委托处理器持有的线程池
+     * @param processor 数据处理器
+     */
+    public static void shutdown(DataProcessor processor) {
+        if (processor instanceof FeatureEngineeringProcessor) {
+            FeatureEngineeringProcessor features = (FeatureEngineeringProcessor) processor;
+            features.shutdown();
+            shutdown(features.getDelegate());
+        } else if (processor instanceof ForkJoinDataProcessor) {
+            ((ForkJoinDataProcessor) processor).shutdown();
+        } else if (processor instanceof VirtualThreadDataProcessor) {
+            ((VirtualThreadDataProcessor) processor).shutdown();
+        }
+    }
+
+    private static DataProcessor createBaseProcessor(Properties config) {
         String processorType = config.getProperty("processor.type", "parallel");
         int numThreads = Integer.parseInt(config.getProperty("processor.threads", "" + Runtime.getRuntime().availableProcessors() + ""));
         int batchSize = Integer.parseInt(config.getProperty("processor.batchSize", "1000"));
         int threshold = Integer.parseInt(config.getProperty("processor.threshold", "500"));
+        long targetLeafMicros = Long.parseLong(config.getProperty("processor.forkjoin.targetLeafMicros", "1000"));
 
         logger.info("Creating {} data processor with {} threads", processorType, numThreads);
 
@@ -30,6 +59,15 @@ public class DataProcessorFactory {
                 return new ParallelDataProcessor(numThreads, batchSize, singleThreadProcessor);
             case "optimized":
                 return new OptimizedParallelProcessor(numThreads, threshold, singleThreadProcessor);
+            case "forkjoin":
+                return new ForkJoinDataProcessor(numThreads, threshold, targetLeafMicros, singleThreadProcessor);
+            case "virtual":
+                int virtualBatchSize = Integer.parseInt(config.getProperty("processor.virtual.batchSize", "16"));
+                String resource = config.getProperty("processor.virtual.resource", "processor");
+                int fallbackThreads = Integer.parseInt(config.getProperty("processor.virtual.fallbackThreads",
+                        String.valueOf(numThreads)));
+                return new VirtualThreadDataProcessor(virtualBatchSize, fallbackThreads, singleThreadProcessor,
+                        ResourceLimiter.fromConfig(config), resource);
             case "single":
                 return singleThreadProcessor;
             default:
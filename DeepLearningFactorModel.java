@@ -1,6 +1,10 @@
 package com.quant.altdata.factor.model;
 
 import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorDataSource;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -10,25 +14,64 @@ import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
+import org.nd4j.evaluation.regression.RegressionEvaluation;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.SplitTestAndTrain;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 深度学习因子模型 - 使用LSTM和全连接层构建的神经网络模型
+ * <p>
+ * 模型保留最近若干行训练数据作为回放窗口。update()把新数据追加进窗口，
+ * 再从当前权重出发在窗口上微调，开销受窗口大小约束，与历史长度无关。
+ * <p>
+ * 内存训练默认每轮整批拟合一次训练集；设置trainBatchSize后按该大小切成小批量依次拟合。
+ * 训练线程数大于1时使用数据并行：训练集按行切成固定的分片，每个工作线程在自己的网络副本上依次拟合分片内的小批量
+ * （未设置小批量时整个分片为一批），每averagingFrequency个小批量按工作线程顺序平均一次参数和优化器状态。
+ * 设置了小批量时，单线程训练即只有一个分片、无需平均的同一算法，不同线程数的训练耗时可以直接比较。
+ * 分片和平均顺序都是确定的，因此相同种子和相同线程数下训练结果可复现。
  */
 public class DeepLearningFactorModel implements FactorModel {
     private static final Logger logger = LoggerFactory.getLogger(DeepLearningFactorModel.class);
+    private static final String PREDICT_WORKSPACE_ID = "DL_FACTOR_PREDICT_BATCH";
+    private static final WorkspaceConfiguration PREDICT_WORKSPACE = WorkspaceConfiguration.builder()
+            .policyAllocation(AllocationPolicy.OVERALLOCATE)
+            .policyLearning(LearningPolicy.FIRST_LOOP)
+            .build();
     private MultiLayerNetwork model;
     private int inputSize;
     private boolean isTrained = false;
+    private int prefetchBatches = 4;
+    private int replayWindow = 10_000;
+    private int fineTuneEpochs = 1;
+    private int trainingWorkers = 1;
+    private int averagingFrequency = 5;
+    private int trainBatchSize = 0;
+    private double validationFraction = 0.2;
+    private double[] replayFeatures = new double[0];
+    private double[] replayLabels = new double[0];
+    private int replayStart;
+    private int replaySize;
+    private final ThreadLocal<double[]> inputBuffer = ThreadLocal.withInitial(() -> new double[0]);
 
     /**
      * 构造函数
@@ -39,6 +82,17 @@ public class DeepLearningFactorModel implements FactorModel {
         initializeModel();
     }
 
+    /**
+     * 基于已有网络构造副本
+     */
+    private DeepLearningFactorModel(int inputSize, MultiLayerNetwork model, boolean isTrained, int prefetchBatches) {
+        this.inputSize = inputSize;
+        this.model = model;
+        this.isTrained = isTrained;
+        this.prefetchBatches = prefetchBatches;
+        this.model.setListeners(new ScoreIterationListener(100));
+    }
+
     /**
      * 初始化模型架构
      */
@@ -86,36 +140,410 @@ public class DeepLearningFactorModel implements FactorModel {
 
         logger.info("Training DeepLearningFactorModel with {} samples for {} epochs", trainingData.size(), epochs);
 
-        // 准备训练数据
-        INDArray features = Nd4j.create(trainingData.size(), inputSize);
-        INDArray labels = Nd4j.create(trainingData.size(), 1);
+        // 准备训练数据：整体打包后一次性交给ND4J
+        INDArray features = FactorDataPacker.packFeatures(trainingData, inputSize);
+        INDArray labels = FactorDataPacker.packLabels(trainingData);
+
+        fit(features, labels, epochs);
+        clearReplay();
+        remember(trainingData);
+    }
+
+    @Override
+    public void train(FactorFrame trainingData, int epochs) {
+        if (trainingData == null || trainingData.isEmpty()) {
+            throw new IllegalArgumentException("Training data cannot be null or empty");
+        }
+        if (trainingData.featureCount() != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + trainingData.featureCount());
+        }
 
-        for (int i = 0; i < trainingData.size(); i++) {
-            FactorData data = trainingData.get(i);
-            double[] featureArray = data.getFeatures();
-            if (featureArray.length != inputSize) {
-                throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + featureArray.length);
+        logger.info("Training DeepLearningFactorModel with {} columnar samples for {} epochs", trainingData.rowCount(), epochs);
+        fit(FactorDataPacker.packFeatures(trainingData), FactorDataPacker.packLabels(trainingData), epochs);
+        clearReplay();
+        double[] row = new double[inputSize];
+        for (int i = Math.max(0, trainingData.rowCount() - replayWindow); i < trainingData.rowCount(); i++) {
+            trainingData.copyFeatures(i, row);
+            remember(row, trainingData.target(i));
+        }
+    }
+
+    /**
+     * 流式小批量训练：前80%的行作为训练集，其余作为测试集，与全量训练的划分方式一致。
+     * 批次由后台线程异步预取，数据源无需全部驻留内存
+     * @param source 因子数据源
+     * @param epochs 训练轮数
+     * @param batchSize 批大小
+     */
+    @Override
+    public void train(FactorDataSource source, int epochs, int batchSize) {
+        if (source == null || source.size() == 0) {
+            throw new IllegalArgumentException("Training data cannot be null or empty");
+        }
+
+        long trainRows = (long) (source.size() * (1.0 - validationFraction));
+        logger.info("Streaming training of DeepLearningFactorModel with {} samples ({} train) for {} epochs, batch size {}",
+                source.size(), trainRows, epochs, batchSize);
+
+        DataSetIterator trainIterator = new AsyncDataSetIterator(
+                new FactorDataSetIterator(source, inputSize, batchSize, 0, trainRows), prefetchBatches);
+        try {
+            for (int i = 0; i < epochs; i++) {
+                trainIterator.reset();
+                model.fit(trainIterator);
+                logger.debug("Epoch {} completed, score: {}", i, model.score());
             }
-            for (int j = 0; j < inputSize; j++) {
-                features.putScalar(i, j, featureArray[j]);
+        } finally {
+            ((AsyncDataSetIterator) trainIterator).shutdown();
+        }
+
+        if (trainRows < source.size()) {
+            RegressionEvaluation evaluation = model.evaluateRegression(
+                    new FactorDataSetIterator(source, inputSize, batchSize, trainRows, source.size()));
+            logger.info("Model training completed. Test MSE: {}", evaluation.meanSquaredError(0));
+        }
+
+        isTrained = true;
+        clearReplay();
+        Iterator<FactorData> tail = source.iterator(Math.max(0, source.size() - replayWindow), source.size());
+        while (tail.hasNext()) {
+            FactorData data = tail.next();
+            remember(data.getFeatures(), data.getTarget());
+        }
+    }
+
+    /**
+     * 增量更新：新数据追加进回放窗口，从当前权重出发在整个窗口上微调fineTuneEpochs轮，
+     * 混入较早的数据可以避免只拟合最新几天
+     * @param newData 新增数据
+     */
+    @Override
+    public void update(List<FactorData> newData) {
+        if (newData == null || newData.isEmpty()) {
+            throw new IllegalArgumentException("Update data cannot be null or empty");
+        }
+
+        remember(newData);
+        double[] features = new double[replaySize * inputSize];
+        double[] labels = new double[replaySize];
+        copyReplay(features, labels);
+        DataSet window = new DataSet(Nd4j.create(features, new long[]{replaySize, inputSize}, 'c'),
+                Nd4j.create(labels, new long[]{replaySize, 1}, 'c'));
+        for (int i = 0; i < fineTuneEpochs; i++) {
+            model.fit(window);
+        }
+        isTrained = true;
+        logger.info("DeepLearningFactorModel fine-tuned on {} new samples with a replay window of {}, score: {}",
+                newData.size(), replaySize, model.score());
+    }
+
+    /**
+     * 数据并行训练：每个工作线程持有一个网络副本并拟合固定分片，定期同步平均参数
+     */
+    private void fitParallel(DataSet trainData, int epochs) {
+        int rows = trainData.numExamples();
+        int workers = trainingWorkers;
+        List<List<DataSet>> shardBatches = new ArrayList<>(workers);
+        int maxBatches = 0;
+        for (int w = 0; w < workers; w++) {
+            int from = (int) ((long) w * rows / workers);
+            int to = (int) ((long) (w + 1) * rows / workers);
+            List<DataSet> batches = trainData.getRange(from, to).batchBy(trainBatchSize > 0 ? trainBatchSize : to - from);
+            shardBatches.add(batches);
+            maxBatches = Math.max(maxBatches, batches.size());
+        }
+        logger.info("Data-parallel training on {} workers, {} rows per shard, averaging every {} batches",
+                workers, rows / workers, averagingFrequency);
+
+        MultiLayerNetwork[] replicas = new MultiLayerNetwork[workers];
+        for (int w = 0; w < workers; w++) {
+            replicas[w] = model.clone();
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dl-train-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                for (int round = 0; round < maxBatches; round += averagingFrequency) {
+                    int first = round;
+                    int last = Math.min(round + averagingFrequency, maxBatches);
+                    List<Future<?>> futures = new ArrayList<>(workers);
+                    for (int w = 0; w < workers; w++) {
+                        MultiLayerNetwork replica = replicas[w];
+                        List<DataSet> batches = shardBatches.get(w);
+                        futures.add(pool.submit(() -> {
+                            for (int b = first; b < last && b < batches.size(); b++) {
+                                replica.fit(batches.get(b));
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                    averageInto(replicas);
+                }
+                logger.debug("Epoch {} completed, score: {}", epoch, replicas[0].score());
             }
-            labels.putScalar(i, 0, data.getTarget());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Interrupted during data-parallel training", e);
+        } catch (ExecutionException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Training worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
 
-        DataSet dataSet = new DataSet(features, labels);
-        SplitTestAndTrain split = dataSet.splitTestAndTrain(0.8);
-        DataSet trainData = split.getTrain();
-        DataSet testData = split.getTest();
+        model.setParams(replicas[0].params());
+        INDArray state = replicas[0].getUpdater().getStateViewArray();
+        if (state != null) {
+            model.getUpdater().getStateViewArray().assign(state);
+        }
+    }
+
+    /**
+     * 按工作线程顺序求参数和优化器状态的平均值，并写回所有副本
+     */
+    private static void averageInto(MultiLayerNetwork[] replicas) {
+        INDArray params = replicas[0].params().dup();
+        for (int w = 1; w < replicas.length; w++) {
+            params.addi(replicas[w].params());
+        }
+        params.divi(replicas.length);
+
+        INDArray state = replicas[0].getUpdater().getStateViewArray();
+        if (state != null) {
+            state = state.dup();
+            for (int w = 1; w < replicas.length; w++) {
+                state.addi(replicas[w].getUpdater().getStateViewArray());
+            }
+            state.divi(replicas.length);
+        }
+
+        for (MultiLayerNetwork replica : replicas) {
+            replica.setParams(params);
+            if (state != null) {
+                replica.getUpdater().getStateViewArray().assign(state);
+            }
+        }
+    }
+
+    /**
+     * 设置训练使用的工作线程数，大于1时启用数据并行训练
+     * @param trainingWorkers 工作线程数
+     */
+    public void setTrainingWorkers(int trainingWorkers) {
+        if (trainingWorkers <= 0) {
+            throw new IllegalArgumentException("Training workers must be positive: " + trainingWorkers);
+        }
+        this.trainingWorkers = trainingWorkers;
+    }
+
+    /**
+     * 设置数据并行训练时两次参数平均之间每个工作线程拟合的小批量数
+     * @param averagingFrequency 小批量数
+     */
+    public void setAveragingFrequency(int averagingFrequency) {
+        if (averagingFrequency <= 0) {
+            throw new IllegalArgumentException("Averaging frequency must be positive: " + averagingFrequency);
+        }
+        this.averagingFrequency = averagingFrequency;
+    }
+
+    /**
+     * 设置内存训练的小批量大小，单线程和数据并行训练使用相同的小批量
+     * @param trainBatchSize 小批量大小，0表示整批训练（默认）
+     */
+    public void setTrainBatchSize(int trainBatchSize) {
+        if (trainBatchSize < 0) {
+            throw new IllegalArgumentException("Train batch size must not be negative: " + trainBatchSize);
+        }
+        this.trainBatchSize = trainBatchSize;
+    }
+
+    /**
+     * 设置训练结束后用于评估的验证集比例，验证集取数据末尾的行；为0时全部数据用于训练，不做评估
+     * @param validationFraction 验证集比例，0到1之间（不含1）
+     */
+    public void setValidationFraction(double validationFraction) {
+        if (validationFraction < 0 || validationFraction >= 1) {
+            throw new IllegalArgumentException("Validation fraction must be in [0, 1): " + validationFraction);
+        }
+        this.validationFraction = validationFraction;
+    }
+
+    /**
+     * 设置增量更新使用的回放窗口行数，已有窗口中最旧的数据可能被丢弃
+     * @param replayWindow 回放窗口行数
+     */
+    public void setReplayWindow(int replayWindow) {
+        if (replayWindow <= 0) {
+            throw new IllegalArgumentException("Replay window must be positive: " + replayWindow);
+        }
+        this.replayWindow = replayWindow;
+        resizeReplay();
+    }
+
+    /**
+     * 设置每次增量更新的微调轮数
+     * @param fineTuneEpochs 微调轮数
+     */
+    public void setFineTuneEpochs(int fineTuneEpochs) {
+        if (fineTuneEpochs <= 0) {
+            throw new IllegalArgumentException("Fine-tune epochs must be positive: " + fineTuneEpochs);
+        }
+        this.fineTuneEpochs = fineTuneEpochs;
+    }
+
+    /**
+     * 回放窗口的最大行数
+     * @return 行数
+     */
+    public int getReplayWindow() {
+        return replayWindow;
+    }
+
+    /**
+     * 每次增量更新的微调轮数
+     * @return 微调轮数
+     */
+    public int getFineTuneEpochs() {
+        return fineTuneEpochs;
+    }
+
+    /**
+     * 回放窗口当前行数
+     * @return 行数
+     */
+    public int getReplaySize() {
+        return replaySize;
+    }
+
+    private void clearReplay() {
+        replayStart = 0;
+        replaySize = 0;
+    }
+
+    private void remember(List<FactorData> data) {
+        for (int i = Math.max(0, data.size() - replayWindow); i < data.size(); i++) {
+            FactorData item = data.get(i);
+            remember(item.getFeatures(), item.getTarget());
+        }
+    }
+
+    /**
+     * 追加一行到环形回放窗口，窗口满时覆盖最旧的一行
+     */
+    private void remember(double[] features, double label) {
+        if (features.length != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + features.length);
+        }
+        if (replayLabels.length != replayWindow) {
+            resizeReplay();
+        }
+        int slot;
+        if (replaySize < replayWindow) {
+            slot = (replayStart + replaySize) % replayWindow;
+            replaySize++;
+        } else {
+            slot = replayStart;
+            replayStart = (replayStart + 1) % replayWindow;
+        }
+        System.arraycopy(features, 0, replayFeatures, slot * inputSize, inputSize);
+        replayLabels[slot] = label;
+    }
+
+    /**
+     * 按当前窗口大小重新分配环形缓冲区，保留最新的数据
+     */
+    private void resizeReplay() {
+        double[] oldFeatures = new double[replaySize * inputSize];
+        double[] oldLabels = new double[replaySize];
+        copyReplay(oldFeatures, oldLabels);
+        int keep = Math.min(replaySize, replayWindow);
+        replayFeatures = new double[replayWindow * inputSize];
+        replayLabels = new double[replayWindow];
+        System.arraycopy(oldFeatures, (replaySize - keep) * inputSize, replayFeatures, 0, keep * inputSize);
+        System.arraycopy(oldLabels, replaySize - keep, replayLabels, 0, keep);
+        replayStart = 0;
+        replaySize = keep;
+    }
+
+    /**
+     * 由检查点恢复回放窗口
+     * @param features 按时间顺序排列的行主序特征
+     * @param labels 标签
+     */
+    void restoreReplay(double[] features, double[] labels) {
+        clearReplay();
+        double[] row = new double[inputSize];
+        for (int i = Math.max(0, labels.length - replayWindow); i < labels.length; i++) {
+            System.arraycopy(features, i * inputSize, row, 0, inputSize);
+            remember(row, labels[i]);
+        }
+    }
+
+    /**
+     * 按时间顺序复制回放窗口
+     * @param features 行主序特征输出，长度不小于replaySize * inputSize
+     * @param labels 标签输出，长度不小于replaySize
+     */
+    void copyReplay(double[] features, double[] labels) {
+        int capacity = replayLabels.length;
+        for (int i = 0; i < replaySize; i++) {
+            int slot = (replayStart + i) % capacity;
+            System.arraycopy(replayFeatures, slot * inputSize, features, i * inputSize, inputSize);
+            labels[i] = replayLabels[slot];
+        }
+    }
+
+    /**
+     * 设置流式训练时异步预取的批次数
+     * @param prefetchBatches 预取批次数
+     */
+    public void setPrefetchBatches(int prefetchBatches) {
+        if (prefetchBatches <= 0) {
+            throw new IllegalArgumentException("Prefetch batches must be positive: " + prefetchBatches);
+        }
+        this.prefetchBatches = prefetchBatches;
+    }
+
+    private void fit(INDArray features, INDArray labels, int epochs) {
+        DataSet trainData = new DataSet(features, labels);
+        DataSet testData = null;
+        if (validationFraction > 0) {
+            SplitTestAndTrain split = trainData.splitTestAndTrain(1.0 - validationFraction);
+            trainData = split.getTrain();
+            testData = split.getTest();
+        }
 
         // 训练模型
-        for (int i = 0; i < epochs; i++) {
-            model.fit(trainData);
-            logger.debug("Epoch {} completed, score: {}", i, model.score());
+        if (trainingWorkers > 1 && trainData.numExamples() >= trainingWorkers) {
+            fitParallel(trainData, epochs);
+        } else if (trainBatchSize == 0) {
+            for (int i = 0; i < epochs; i++) {
+                model.fit(trainData);
+                logger.debug("Epoch {} completed, score: {}", i, model.score());
+            }
+        } else {
+            List<DataSet> batches = trainData.batchBy(trainBatchSize);
+            for (int i = 0; i < epochs; i++) {
+                for (DataSet batch : batches) {
+                    model.fit(batch);
+                }
+                logger.debug("Epoch {} completed, score: {}", i, model.score());
+            }
         }
 
         // 评估模型
-        double testScore = model.evaluate(testData).stats().get("MSE").getDouble(0);
-        logger.info("Model training completed. Test MSE: {}", testScore);
+        if (testData != null && testData.numExamples() > 0) {
+            double testScore = model.evaluate(testData).stats().get("MSE").getDouble(0);
+            logger.info("Model training completed. Test MSE: {}", testScore);
+        }
 
         isTrained = true;
     }
@@ -135,6 +563,75 @@ public class DeepLearningFactorModel implements FactorModel {
         return output.getDouble(0);
     }
 
+    /**
+     * 批量预测：整批一次前向计算。输入和输出都分配在线程内复用的ND4J工作区中，
+     * 首次调用后不再申请新的off-heap内存
+     */
+    @Override
+    public void predictBatch(double[] features, int rows, double[] output) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+        FactorModel.checkBatch(features, rows, inputSize, output);
+        if (rows == 0) {
+            return;
+        }
+
+        double[] packed = features;
+        if (features.length != rows * inputSize) {
+            packed = inputBuffer(rows);
+            System.arraycopy(features, 0, packed, 0, rows * inputSize);
+        }
+        forward(packed, rows, 'c', output);
+    }
+
+    @Override
+    public void predictBatch(FactorFrame batch, double[] output) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+        if (batch.featureCount() != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + batch.featureCount());
+        }
+        int rows = batch.rowCount();
+        FactorModel.checkOutput(rows, output);
+        if (rows == 0) {
+            return;
+        }
+
+        double[] packed;
+        if (batch.isCompact()) {
+            packed = batch.featureArray();
+        } else {
+            packed = inputBuffer(rows);
+            batch.copyFeaturesColumnMajor(packed);
+        }
+        forward(packed, rows, 'f', output);
+    }
+
+    private void forward(double[] packed, int rows, char order, double[] output) {
+        try (MemoryWorkspace workspace = Nd4j.getWorkspaceManager()
+                .getAndActivateWorkspace(PREDICT_WORKSPACE, PREDICT_WORKSPACE_ID)) {
+            INDArray input = Nd4j.create(packed, new long[]{rows, inputSize}, order);
+            INDArray result = model.output(input, false, null, null, workspace);
+            for (int i = 0; i < rows; i++) {
+                output[i] = result.getDouble(i);
+            }
+        }
+    }
+
+    /**
+     * 获取当前线程复用的输入缓冲区，长度恰好为rows * inputSize
+     */
+    private double[] inputBuffer(int rows) {
+        double[] buffer = inputBuffer.get();
+        if (buffer.length != rows * inputSize) {
+            buffer = new double[rows * inputSize];
+            inputBuffer.set(buffer);
+        }
+        return buffer;
+    }
+
     @Override
     public double evaluate(List<FactorData> testData) {
         if (!isTrained) {
@@ -145,20 +642,77 @@ public class DeepLearningFactorModel implements FactorModel {
             throw new IllegalArgumentException("Test data cannot be null or empty");
         }
 
-        INDArray features = Nd4j.create(testData.size(), inputSize);
-        INDArray labels = Nd4j.create(testData.size(), 1);
+        INDArray features = FactorDataPacker.packFeatures(testData, inputSize);
+        INDArray labels = FactorDataPacker.packLabels(testData);
 
-        for (int i = 0; i < testData.size(); i++) {
-            FactorData data = testData.get(i);
-            for (int j = 0; j < inputSize; j++) {
-                features.putScalar(i, j, data.getFeatures()[j]);
-            }
-            labels.putScalar(i, 0, data.getTarget());
+        return evaluate(features, labels);
+    }
+
+    @Override
+    public double evaluate(FactorFrame testData) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
         }
 
+        if (testData == null || testData.isEmpty()) {
+            throw new IllegalArgumentException("Test data cannot be null or empty");
+        }
+        if (testData.featureCount() != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + testData.featureCount());
+        }
+
+        return evaluate(FactorDataPacker.packFeatures(testData), FactorDataPacker.packLabels(testData));
+    }
+
+    private double evaluate(INDArray features, INDArray labels) {
         DataSet testDataSet = new DataSet(features, labels);
         double mse = model.evaluate(testDataSet).stats().get("MSE").getDouble(0);
         logger.info("Model evaluation completed. Test MSE: {}", mse);
         return mse;
     }
+
+    /**
+     * 复制网络参数和优化器状态，副本可在不影响当前实例的情况下继续训练
+     */
+    @Override
+    public FactorModel copy() {
+        DeepLearningFactorModel copy = new DeepLearningFactorModel(inputSize, model.clone(), isTrained, prefetchBatches);
+        copy.replayWindow = replayWindow;
+        copy.fineTuneEpochs = fineTuneEpochs;
+        copy.trainingWorkers = trainingWorkers;
+        copy.averagingFrequency = averagingFrequency;
+        copy.trainBatchSize = trainBatchSize;
+        copy.validationFraction = validationFraction;
+        copy.replayFeatures = replayFeatures.clone();
+        copy.replayLabels = replayLabels.clone();
+        copy.replayStart = replayStart;
+        copy.replaySize = replaySize;
+        return copy;
+    }
+
+    /**
+     * 由检查点恢复模型，网络参数和优化器状态均来自检查点
+     * @param inputSize 输入特征数量
+     * @param network 恢复的网络
+     * @param isTrained 是否已训练
+     * @return 模型实例
+     */
+    static DeepLearningFactorModel restore(int inputSize, MultiLayerNetwork network, boolean isTrained) {
+        logger.info("DeepLearningFactorModel restored with input size: {}", inputSize);
+        return new DeepLearningFactorModel(inputSize, network, isTrained, 4);
+    }
+
+    MultiLayerNetwork getNetwork() {
+        return model;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return isTrained;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
 }
\ No newline at end of file
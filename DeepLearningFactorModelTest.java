@@ -1,6 +1,7 @@
 package com.quant.altdata.factor.model;
 
 import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
@@ -53,6 +54,33 @@ public class DeepLearningFactorModelTest {
         assertTrue(mse < 0.1, "MSE should be less than 0.1");
     }
 
+    @Test
+    void testStreamingTrain() {
+        // 以小批量流式训练模型
+        model.train(FactorDataSource.of(testData), 30, 16);
+
+        assertTrue(model.isTrained());
+        double prediction = model.predict(testData.get(0).getFeatures());
+        assertFalse(Double.isNaN(prediction));
+    }
+
+    @Test
+    void testDataParallelTrainingIsDeterministic() {
+        // 相同数据、相同线程数下两次数据并行训练的结果一致
+        double[] predictions = new double[2];
+        for (int run = 0; run < 2; run++) {
+            DeepLearningFactorModel parallel = new DeepLearningFactorModel(5);
+            parallel.setTrainingWorkers(2);
+            parallel.setTrainBatchSize(16);
+            parallel.setAveragingFrequency(2);
+            parallel.train(testData, 5);
+            assertTrue(parallel.isTrained());
+            predictions[run] = parallel.predict(testData.get(0).getFeatures());
+        }
+        assertFalse(Double.isNaN(predictions[0]));
+        assertEquals(predictions[0], predictions[1], 1e-9);
+    }
+
     @Test
     void testPredictBeforeTraining() {
         // 测试未训练模型的预测
@@ -0,0 +1,68 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.factor.model.FactorDataPacker;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深度学习模型数据导入基准 - 比较逐元素putScalar与整体打包在不同行数下的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeepLearningIngestionBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private List<FactorData> factorData;
+    private FactorFrame factorFrame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        factorData = SyntheticFactorData.generate(rows, FEATURE_COUNT, 500, 42L);
+        factorFrame = FactorFrame.from(factorData);
+    }
+
+    @Benchmark
+    public INDArray putScalarLoop() {
+        INDArray features = Nd4j.create(rows, FEATURE_COUNT);
+        for (int i = 0; i < rows; i++) {
+            double[] featureArray = factorData.get(i).getFeatures();
+            for (int j = 0; j < FEATURE_COUNT; j++) {
+                features.putScalar(i, j, featureArray[j]);
+            }
+        }
+        return features;
+    }
+
+    @Benchmark
+    public INDArray bulkFromList() {
+        return FactorDataPacker.packFeatures(factorData, FEATURE_COUNT);
+    }
+
+    @Benchmark
+    public INDArray bulkFromFrame() {
+        return FactorDataPacker.packFeatures(factorFrame);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.factor.model.DeepLearningFactorModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深度学习模型基准 - 单轮训练（含数据导入）耗时和单行预测延迟分布
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeepLearningModelBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private FactorFrame trainingFrame;
+    private DeepLearningFactorModel trainedModel;
+    private double[] row;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trainingFrame = SyntheticFactorData.generateFrame(rows, FEATURE_COUNT, 500, 13L);
+        trainedModel = new DeepLearningFactorModel(FEATURE_COUNT);
+        trainedModel.train(trainingFrame, 1);
+        row = new double[FEATURE_COUNT];
+        trainingFrame.copyFeatures(0, row);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DeepLearningFactorModel trainOneEpoch() {
+        DeepLearningFactorModel model = new DeepLearningFactorModel(FEATURE_COUNT);
+        model.train(trainingFrame, 1);
+        return model;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double predictLatency() {
+        return trainedModel.predict(row);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.quant.altdata.data.storage;
+
+import com.quant.altdata.data.model.FactorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * 本地磁盘因子数据缓存 - 按(数据源, 查询, 日期)分区保存适配器的获取结果
+ * <p>
+ * 每个分区是一个FactorDataCodec格式的文件，路径为&lt;目录&gt;/&lt;数据源&gt;/&lt;查询摘要&gt;/&lt;epochDay&gt;.bin，
+ * 读取时通过内存映射解码。总大小超过上限时按最近访问时间淘汰，访问时间记录在文件修改时间上，
+ * 重启后LRU顺序得以保留。配置了有效期时，写入时间早于有效期的分区视为过期。
+ * 空分区可能只是数据源尚未补齐当天的数据，单独使用较短的有效期，过期后重新向适配器确认。
+ */
+public class DiskFactorCache {
+    private static final Logger logger = LoggerFactory.getLogger(DiskFactorCache.class);
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Duration emptyTtl;
+    private final LinkedHashMap<Path, Long> index;
+    private long totalBytes;
+
+    /**
+     * 构造函数，扫描目录中已有的分区建立LRU索引
+     * @param directory 缓存目录
+     * @param maxBytes 缓存总大小上限（字节）
+     * @param ttl 分区有效期，Duration.ZERO表示永不过期
+     */
+    public DiskFactorCache(Path directory, long maxBytes, Duration ttl) {
+        this(directory, maxBytes, ttl, ttl);
+    }
+
+    /**
+     * 构造函数，空分区使用单独的有效期
+     * @param directory 缓存目录
+     * @param maxBytes 缓存总大小上限（字节）
+     * @param ttl 分区有效期，Duration.ZERO表示永不过期
+     * @param emptyTtl 空分区有效期，Duration.ZERO表示与非空分区相同
+     */
+    public DiskFactorCache(Path directory, long maxBytes, Duration ttl, Duration emptyTtl) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size limit must be positive: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.emptyTtl = emptyTtl;
+        this.index = new LinkedHashMap<>(256, 0.75f, true);
+        loadIndex();
+    }
+
+    /**
+     * 根据配置项data.cache.dir、data.cache.maxBytes、data.cache.ttlHours、data.cache.emptyTtlHours创建缓存
+     * @param config 配置属性
+     * @return 磁盘缓存
+     */
+    public static DiskFactorCache fromConfig(Properties config) {
+        Path directory = Paths.get(config.getProperty("data.cache.dir", "cache/factor-data"));
+        long maxBytes = Long.parseLong(config.getProperty("data.cache.maxBytes", String.valueOf(512L << 20)));
+        Duration ttl = Duration.ofHours(Long.parseLong(config.getProperty("data.cache.ttlHours", "0")));
+        Duration emptyTtl = Duration.ofHours(Long.parseLong(config.getProperty("data.cache.emptyTtlHours", "24")));
+        return new DiskFactorCache(directory, maxBytes, ttl, emptyTtl);
+    }
+
+    private void loadIndex() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(path -> path.toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(DiskFactorCache::lastModified))
+                    .forEach(path -> {
+                        long size = path.toFile().length();
+                        index.put(path, size);
+                        totalBytes += size;
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to scan cache directory {}: {}", directory, e.getMessage());
+        }
+        logger.info("Disk cache at {} holds {} partitions, {} bytes", directory, index.size(), totalBytes);
+        evictIfNeeded();
+    }
+
+    /**
+     * 读取分区
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param day 日期
+     * @return 分区数据，不存在、已过期或已损坏时返回null
+     */
+    public List<FactorData> get(String source, String query, LocalDate day) {
+        Path path = partitionPath(source, query, day);
+        synchronized (this) {
+            if (index.get(path) == null) {
+                return null;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long writtenAt = FactorDataCodec.readWrittenAt(mapped);
+            List<FactorData> data = FactorDataCodec.decode(mapped);
+            Duration limit = data.isEmpty() && !emptyTtl.isZero() ? emptyTtl : ttl;
+            if (!limit.isZero() && writtenAt < System.currentTimeMillis() - limit.toMillis()) {
+                logger.debug("Cache partition {} is stale", path);
+                return null;
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Dropping unreadable cache partition {}: {}", path, e.getMessage());
+            remove(path);
+            return null;
+        }
+    }
+
+    /**
+     * 写入分区，先写临时文件再原子替换，写入后按大小上限淘汰
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param day 日期
+     * @param data 当日数据，可以为空列表表示当日无数据
+     */
+    public void put(String source, String query, LocalDate day, List<FactorData> data) {
+        Path path = partitionPath(source, query, day);
+        ByteBuffer encoded = FactorDataCodec.encode(data, System.currentTimeMillis());
+        long size = encoded.remaining();
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), day.toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (encoded.hasRemaining()) {
+                    channel.write(encoded);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write cache partition {}: {}", path, e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            Long previous = index.put(path, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * 当前缓存总大小
+     * @return 字节数
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 当前缓存分区数
+     * @return 分区数
+     */
+    public synchronized int getPartitionCount() {
+        return index.size();
+    }
+
+    private synchronized void evictIfNeeded() {
+        Iterator<Map.Entry<Path, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(entry.getKey());
+                logger.debug("Evicted cache partition {}", entry.getKey());
+            } catch (IOException e) {
+                logger.warn("Failed to evict cache partition {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void remove(Path path) {
+        synchronized (this) {
+            Long size = index.remove(path);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete cache partition {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path partitionPath(String source, String query, LocalDate day) {
+        return directory.resolve(source).resolve(digest(query)).resolve(day.toEpochDay() + SUFFIX);
+    }
+
+    private static String digest(String query) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(query).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.quant.altdata.data.storage;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 磁盘因子数据缓存测试类
+ */
+public class DiskFactorCacheTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testRoundTripPreservesAllFields() {
+        DiskFactorCache cache = new DiskFactorCache(cacheDir, 1 << 20, Duration.ZERO);
+        FactorData data = new FactorData(DAY, new double[]{0.5, -1.25, 3.0}, 0.02);
+        data.setOpen(10);
+        data.setHigh(12);
+        data.setLow(9);
+        data.setClose(11);
+        data.setVolume(1000);
+        data.setReturn(0.1);
+        data.setFactorValue(0.7);
+        List<FactorData> partition = new ArrayList<>();
+        partition.add(data);
+
+        cache.put("news", "AAPL", DAY, partition);
+        List<FactorData> loaded = new DiskFactorCache(cacheDir, 1 << 20, Duration.ZERO).get("news", "AAPL", DAY);
+
+        assertNotNull(loaded);
+        assertEquals(1, loaded.size());
+        FactorData row = loaded.get(0);
+        assertEquals(DAY, row.getDate());
+        assertArrayEquals(data.getFeatures(), row.getFeatures());
+        assertEquals(0.02, row.getTarget());
+        assertEquals(12, row.getHigh());
+        assertEquals(0.1, row.getReturn());
+        assertEquals(0.7, row.getFactorValue());
+        assertNull(cache.get("news", "MSFT", DAY));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedPartition() {
+        List<FactorData> partition = new ArrayList<>();
+        partition.add(new FactorData(DAY, new double[16], 0.0));
+        DiskFactorCache probe = new DiskFactorCache(cacheDir.resolve("probe"), 1 << 20, Duration.ZERO);
+        probe.put("news", "AAPL", DAY, partition);
+        long partitionBytes = probe.getTotalBytes();
+
+        // 上限只够保存两个分区
+        DiskFactorCache cache = new DiskFactorCache(cacheDir.resolve("lru"), 2 * partitionBytes, Duration.ZERO);
+        cache.put("news", "AAPL", DAY, partition);
+        cache.put("news", "AAPL", DAY.plusDays(1), partition);
+        assertNotNull(cache.get("news", "AAPL", DAY));
+        cache.put("news", "AAPL", DAY.plusDays(2), partition);
+
+        assertEquals(2, cache.getPartitionCount());
+        assertNotNull(cache.get("news", "AAPL", DAY));
+        assertNull(cache.get("news", "AAPL", DAY.plusDays(1)));
+        assertNotNull(cache.get("news", "AAPL", DAY.plusDays(2)));
+    }
+
+    @Test
+    void testEmptyPartitionExpiresEarlier() throws InterruptedException {
+        List<FactorData> partition = new ArrayList<>();
+        partition.add(new FactorData(DAY, new double[]{1.0}, 0.0));
+        DiskFactorCache cache = new DiskFactorCache(cacheDir, 1 << 20, Duration.ZERO, Duration.ofMillis(50));
+        cache.put("news", "AAPL", DAY, partition);
+        cache.put("news", "AAPL", DAY.plusDays(1), Collections.emptyList());
+        assertNotNull(cache.get("news", "AAPL", DAY.plusDays(1)));
+
+        Thread.sleep(100);
+
+        // 空分区过期后需要重新获取，非空分区不受影响
+        assertNull(cache.get("news", "AAPL", DAY.plusDays(1)));
+        assertNotNull(cache.get("news", "AAPL", DAY));
+    }
+}
\ No newline at end of file
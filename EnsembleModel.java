@@ -0,0 +1,400 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 集成模型 - 按权重组合多个因子模型的预测结果
+ * <p>
+ * 配置了执行器时，批量预测会在有界执行器上并发运行各成员模型（调用线程负责其中一个），
+ * 各成员写入各自预分配的缓冲区，最后单次遍历完成加权合并。权重为0的成员直接跳过。
+ * <p>
+ * update()先用新数据对各成员做样本外打分，更新每个成员的指数加权均方误差，
+ * 再按误差倒数重新分配权重（总权重不变），最后增量更新各成员。
+ */
+public class EnsembleModel implements FactorModel {
+    private static final Logger logger = LoggerFactory.getLogger(EnsembleModel.class);
+    private final List<FactorModel> models;
+    private final List<Double> weights;
+    private final List<LatencyHistogram> memberLatencies;
+    private final List<Double> memberErrors;
+    private double errorDecay = 0.9;
+    private final ExecutorService executor;
+    private final ThreadLocal<double[][]> memberOutputs = ThreadLocal.withInitial(() -> new double[0][]);
+
+    /**
+     * 构造函数，成员模型依次串行执行
+     */
+    public EnsembleModel() {
+        this(null);
+    }
+
+    /**
+     * 构造函数
+     * @param executor 并发执行成员模型的有界执行器，为null时串行执行。执行器由调用方负责关闭
+     */
+    public EnsembleModel(ExecutorService executor) {
+        this.models = new ArrayList<>();
+        this.weights = new ArrayList<>();
+        this.memberLatencies = new ArrayList<>();
+        this.memberErrors = new ArrayList<>();
+        this.executor = executor;
+    }
+
+    /**
+     * 添加成员模型
+     * @param model 模型实例
+     * @param weight 权重
+     */
+    public void addModel(FactorModel model, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Model weight must be non-negative: " + weight);
+        }
+        if (!models.isEmpty() && model.getInputSize() != getInputSize()) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + getInputSize() + ", got " + model.getInputSize());
+        }
+        models.add(model);
+        weights.add(weight);
+        memberLatencies.add(new LatencyHistogram());
+        memberErrors.add(Double.NaN);
+    }
+
+    /**
+     * 获取成员模型批量预测的延迟直方图
+     * @param index 成员下标（按添加顺序）
+     * @return 延迟直方图
+     */
+    public LatencyHistogram getMemberLatency(int index) {
+        return memberLatencies.get(index);
+    }
+
+    public int getMemberCount() {
+        return models.size();
+    }
+
+    FactorModel getMember(int index) {
+        return models.get(index);
+    }
+
+    double getWeight(int index) {
+        return weights.get(index);
+    }
+
+    /**
+     * 创建替换了一个成员的新集成模型，其余成员共享同一实例，权重和误差保持不变，被替换成员的误差重新累积
+     * @param index 成员下标
+     * @param model 新的成员模型
+     * @return 新的集成模型
+     */
+    EnsembleModel withMember(int index, FactorModel model) {
+        EnsembleModel replaced = new EnsembleModel(executor);
+        replaced.errorDecay = errorDecay;
+        for (int m = 0; m < models.size(); m++) {
+            replaced.addModel(m == index ? model : models.get(m), weights.get(m));
+            replaced.memberErrors.set(m, m == index ? Double.NaN : memberErrors.get(m));
+        }
+        return replaced;
+    }
+
+    /**
+     * 获取成员模型的指数加权均方误差
+     * @param index 成员下标（按添加顺序）
+     * @return 均方误差，尚未更新过时为NaN
+     */
+    public double getMemberError(int index) {
+        return memberErrors.get(index);
+    }
+
+    void setMemberError(int index, double error) {
+        memberErrors.set(index, error);
+    }
+
+    /**
+     * 设置在线权重调整时误差的衰减系数，越接近1对历史误差记忆越久
+     * @param errorDecay 衰减系数，取值[0, 1)
+     */
+    public void setErrorDecay(double errorDecay) {
+        if (errorDecay < 0 || errorDecay >= 1) {
+            throw new IllegalArgumentException("Error decay must be within [0, 1): " + errorDecay);
+        }
+        this.errorDecay = errorDecay;
+    }
+
+    /**
+     * 在线调整权重并增量更新所有成员
+     * @param newData 新增数据
+     */
+    @Override
+    public void update(List<FactorData> newData) {
+        if (newData == null || newData.isEmpty()) {
+            throw new IllegalArgumentException("Update data cannot be null or empty");
+        }
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Ensemble has no member models");
+        }
+
+        int rows = newData.size();
+        int featureCount = getInputSize();
+        double[] features = new double[rows * featureCount];
+        for (int i = 0; i < rows; i++) {
+            double[] row = newData.get(i).getFeatures();
+            if (row.length != featureCount) {
+                throw new IllegalArgumentException("Feature size mismatch: expected " + featureCount + ", got " + row.length);
+            }
+            System.arraycopy(row, 0, features, i * featureCount, featureCount);
+        }
+        double[] predictions = new double[rows];
+        for (int m = 0; m < models.size(); m++) {
+            FactorModel model = models.get(m);
+            if (weights.get(m) <= 0 || !model.isTrained()) {
+                continue;
+            }
+            model.predictBatch(features, rows, predictions);
+            double sumSquaredError = 0;
+            for (int i = 0; i < rows; i++) {
+                double error = predictions[i] - newData.get(i).getTarget();
+                sumSquaredError += error * error;
+            }
+            double mse = sumSquaredError / rows;
+            double previous = memberErrors.get(m);
+            memberErrors.set(m, Double.isNaN(previous) ? mse : errorDecay * previous + (1 - errorDecay) * mse);
+        }
+        reweight();
+
+        for (FactorModel model : models) {
+            model.update(newData);
+        }
+        logger.info("EnsembleModel updated with {} samples, weights: {}", rows, weights);
+    }
+
+    /**
+     * 在已有误差估计的活跃成员之间按误差倒数重新分配它们原有的总权重
+     */
+    private void reweight() {
+        double share = 0;
+        double inverseSum = 0;
+        for (int m = 0; m < models.size(); m++) {
+            double error = memberErrors.get(m);
+            if (weights.get(m) > 0 && !Double.isNaN(error)) {
+                share += weights.get(m);
+                inverseSum += 1.0 / Math.max(error, 1e-12);
+            }
+        }
+        if (inverseSum == 0) {
+            return;
+        }
+        for (int m = 0; m < models.size(); m++) {
+            double error = memberErrors.get(m);
+            if (weights.get(m) > 0 && !Double.isNaN(error)) {
+                weights.set(m, share * (1.0 / Math.max(error, 1e-12)) / inverseSum);
+            }
+        }
+    }
+
+    @Override
+    public void train(List<FactorData> trainingData, int epochs) {
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Ensemble has no member models");
+        }
+
+        logger.info("Training EnsembleModel with {} member models", models.size());
+        for (FactorModel model : models) {
+            model.train(trainingData, epochs);
+        }
+    }
+
+    @Override
+    public void train(FactorFrame trainingData, int epochs) {
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Ensemble has no member models");
+        }
+
+        logger.info("Training EnsembleModel with {} member models", models.size());
+        for (FactorModel model : models) {
+            model.train(trainingData, epochs);
+        }
+    }
+
+    @Override
+    public double predict(double[] features) {
+        double totalWeight = totalWeight();
+        double result = 0;
+        for (int m = 0; m < models.size(); m++) {
+            double weight = weights.get(m);
+            if (weight > 0) {
+                result += weight * models.get(m).predict(features);
+            }
+        }
+        return result / totalWeight;
+    }
+
+    @Override
+    public void predictBatch(double[] features, int rows, double[] output) {
+        FactorModel.checkBatch(features, rows, getInputSize(), output);
+        scoreMembers(rows, output, (model, buffer) -> model.predictBatch(features, rows, buffer));
+    }
+
+    @Override
+    public void predictBatch(FactorFrame batch, double[] output) {
+        FactorModel.checkOutput(batch.rowCount(), output);
+        scoreMembers(batch.rowCount(), output, (model, buffer) -> model.predictBatch(batch, buffer));
+    }
+
+    /**
+     * 成员模型的批量打分操作
+     */
+    private interface MemberScorer {
+        void score(FactorModel model, double[] buffer);
+    }
+
+    /**
+     * 运行所有权重非零的成员模型并加权合并到输出数组
+     */
+    private void scoreMembers(int rows, double[] output, MemberScorer scorer) {
+        double totalWeight = totalWeight();
+        int[] active = new int[models.size()];
+        int activeCount = 0;
+        for (int m = 0; m < models.size(); m++) {
+            if (weights.get(m) > 0) {
+                active[activeCount++] = m;
+            }
+        }
+
+        double[][] buffers = memberBuffers(rows);
+        if (executor == null || activeCount == 1) {
+            for (int k = 0; k < activeCount; k++) {
+                scoreMember(active[k], buffers[active[k]], scorer);
+            }
+        } else {
+            List<Future<?>> futures = new ArrayList<>(activeCount - 1);
+            for (int k = 1; k < activeCount; k++) {
+                int member = active[k];
+                futures.add(executor.submit(() -> scoreMember(member, buffers[member], scorer)));
+            }
+            scoreMember(active[0], buffers[active[0]], scorer);
+            awaitAll(futures);
+        }
+
+        // 融合合并：每行一次遍历累加所有成员
+        double[] normalizedWeights = new double[activeCount];
+        for (int k = 0; k < activeCount; k++) {
+            normalizedWeights[k] = weights.get(active[k]) / totalWeight;
+        }
+        for (int i = 0; i < rows; i++) {
+            double sum = 0;
+            for (int k = 0; k < activeCount; k++) {
+                sum += normalizedWeights[k] * buffers[active[k]][i];
+            }
+            output[i] = sum;
+        }
+    }
+
+    private void scoreMember(int member, double[] buffer, MemberScorer scorer) {
+        long start = System.nanoTime();
+        scorer.score(models.get(member), buffer);
+        memberLatencies.get(member).record(System.nanoTime() - start);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_PREDICTION_ERROR,
+                    "Interrupted while waiting for ensemble members", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_PREDICTION_ERROR,
+                    "Ensemble member prediction failed", e.getCause());
+        }
+    }
+
+    /**
+     * 获取当前调用线程复用的成员输出缓冲区，每个成员一个
+     */
+    private double[][] memberBuffers(int rows) {
+        double[][] buffers = memberOutputs.get();
+        if (buffers.length < models.size() || (buffers.length > 0 && buffers[0].length < rows)) {
+            buffers = new double[models.size()][Math.max(rows, buffers.length > 0 ? buffers[0].length : 0)];
+            memberOutputs.set(buffers);
+        }
+        return buffers;
+    }
+
+    private double totalWeight() {
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Ensemble has no member models");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalStateException("Ensemble weights sum to zero");
+        }
+        return total;
+    }
+
+    @Override
+    public double evaluate(List<FactorData> testData) {
+        if (testData == null || testData.isEmpty()) {
+            throw new IllegalArgumentException("Test data cannot be null or empty");
+        }
+
+        double sumSquaredError = 0;
+        for (FactorData data : testData) {
+            double error = predict(data.getFeatures()) - data.getTarget();
+            sumSquaredError += error * error;
+        }
+        double mse = sumSquaredError / testData.size();
+        logger.info("Ensemble evaluation completed. Test MSE: {}", mse);
+        return mse;
+    }
+
+    /**
+     * 复制所有成员模型并保留权重，副本共享同一个执行器
+     */
+    @Override
+    public FactorModel copy() {
+        EnsembleModel copy = new EnsembleModel(executor);
+        copy.errorDecay = errorDecay;
+        for (int m = 0; m < models.size(); m++) {
+            copy.addModel(models.get(m).copy(), weights.get(m));
+            copy.memberErrors.set(m, memberErrors.get(m));
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean isTrained() {
+        if (models.isEmpty()) {
+            return false;
+        }
+        for (FactorModel model : models) {
+            if (!model.isTrained()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getInputSize() {
+        if (models.isEmpty()) {
+            throw new IllegalStateException("Ensemble has no member models");
+        }
+        return models.get(0).getInputSize();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集成模型测试类
+ */
+public class EnsembleModelTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        EnsembleModel sequential = new EnsembleModel();
+        EnsembleModel parallel = new EnsembleModel(executor);
+        for (EnsembleModel ensemble : new EnsembleModel[]{sequential, parallel}) {
+            ensemble.addModel(new ScaledSumModel(1.0), 0.3);
+            ensemble.addModel(new ScaledSumModel(2.0), 0.7);
+        }
+
+        double[] features = new double[3 * 100];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = i * 0.01;
+        }
+        double[] expected = new double[100];
+        double[] actual = new double[100];
+        sequential.predictBatch(features, 100, expected);
+        parallel.predictBatch(features, 100, actual);
+
+        assertArrayEquals(expected, actual, 1e-12);
+        // 第0行特征和为0.03，加权结果为0.3*0.03 + 0.7*0.06
+        assertEquals(0.3 * 0.03 + 0.7 * 0.06, actual[0], 1e-12);
+        assertEquals(1, parallel.getMemberLatency(0).getCount());
+        assertEquals(1, parallel.getMemberLatency(1).getCount());
+    }
+
+    @Test
+    void testZeroWeightMemberSkipped() {
+        EnsembleModel ensemble = new EnsembleModel(executor);
+        ensemble.addModel(new ScaledSumModel(1.0), 1.0);
+        ensemble.addModel(new FailingModel(), 0.0);
+
+        double[] output = new double[2];
+        ensemble.predictBatch(new double[]{1, 2, 3, 4, 5, 6}, 2, output);
+
+        assertEquals(6.0, output[0], 1e-12);
+        assertEquals(15.0, output[1], 1e-12);
+        assertEquals(0, ensemble.getMemberLatency(1).getCount());
+    }
+
+    @Test
+    void testOutputBufferTooSmall() {
+        EnsembleModel ensemble = new EnsembleModel(executor);
+        ensemble.addModel(new ScaledSumModel(1.0), 1.0);
+        assertThrows(IllegalArgumentException.class, () -> ensemble.predictBatch(new double[6], 2, new double[1]));
+    }
+
+    @Test
+    void testUpdateReweightsByOutOfSampleError() {
+        ScaledSumModel exact = new ScaledSumModel(1.0);
+        ScaledSumModel biased = new ScaledSumModel(2.0);
+        EnsembleModel ensemble = new EnsembleModel(executor);
+        ensemble.addModel(exact, 0.5);
+        ensemble.addModel(biased, 0.5);
+        List<FactorData> newData = List.of(
+                new FactorData(LocalDate.of(2024, 1, 2), new double[]{1, 1, 1}, 3.0),
+                new FactorData(LocalDate.of(2024, 1, 3), new double[]{1, 2, 3}, 6.0));
+
+        ensemble.update(newData);
+
+        assertEquals(0.0, ensemble.getMemberError(0), 1e-12);
+        assertEquals((9.0 + 36.0) / 2, ensemble.getMemberError(1), 1e-12);
+        assertEquals(6.0, ensemble.predict(new double[]{1, 2, 3}), 1e-6);
+        assertEquals(1, exact.updates);
+        assertEquals(1, biased.updates);
+    }
+
+    /**
+     * 测试用模型：预测值为特征和乘以系数
+     */
+    private static class ScaledSumModel implements FactorModel {
+        private final double scale;
+        private int updates;
+
+        ScaledSumModel(double scale) {
+            this.scale = scale;
+        }
+
+        @Override
+        public void train(List<FactorData> trainingData, int epochs) {
+        }
+
+        @Override
+        public void update(List<FactorData> newData) {
+            updates++;
+        }
+
+        @Override
+        public double predict(double[] features) {
+            double sum = 0;
+            for (double feature : features) {
+                sum += feature;
+            }
+            return scale * sum;
+        }
+
+        @Override
+        public double evaluate(List<FactorData> testData) {
+            return 0;
+        }
+
+        @Override
+        public boolean isTrained() {
+            return true;
+        }
+
+        @Override
+        public int getInputSize() {
+            return 3;
+        }
+    }
+
+    /**
+     * 测试用模型：任何预测调用都会失败
+     */
+    private static class FailingModel extends ScaledSumModel {
+        FailingModel() {
+            super(0.0);
+        }
+
+        @Override
+        public double predict(double[] features) {
+            throw new AssertionError("Zero-weight member should not be scored");
+        }
+    }
+}
\ No newline at end of file
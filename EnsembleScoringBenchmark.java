@@ -0,0 +1,84 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.factor.model.DeepLearningFactorModel;
+import com.quant.altdata.factor.model.EnsembleModel;
+import com.quant.altdata.factor.model.LinearRegressionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集成模型打分基准 - 比较成员模型串行与并发执行时整个截面的打分耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EnsembleScoringBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"sequential", "parallel"})
+    private String execution;
+
+    @Param({"2", "4"})
+    private int members;
+
+    @Param({"5000"})
+    private int crossSection;
+
+    private ExecutorService executor;
+    private EnsembleModel ensemble;
+    private FactorFrame batch;
+    private double[] output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<FactorData> trainingData = SyntheticFactorData.generate(2000, FEATURE_COUNT, 100, 17L);
+        executor = "parallel".equals(execution) ? Executors.newFixedThreadPool(members) : null;
+        ensemble = new EnsembleModel(executor);
+        for (int i = 0; i < members; i++) {
+            if (i % 2 == 0) {
+                LinearRegressionModel linear = new LinearRegressionModel(FEATURE_COUNT);
+                linear.train(trainingData, 1);
+                ensemble.addModel(linear, 1.0);
+            } else {
+                DeepLearningFactorModel deepLearning = new DeepLearningFactorModel(FEATURE_COUNT);
+                deepLearning.train(trainingData, 1);
+                ensemble.addModel(deepLearning, 1.0);
+            }
+        }
+        batch = SyntheticFactorData.generateFrame(crossSection, FEATURE_COUNT, crossSection, 19L);
+        output = new double[crossSection];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public double[] scoreCrossSection() {
+        ensemble.predictBatch(batch, output);
+        return output;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.quant.altdata.data.storage;
+
+import com.quant.altdata.data.model.FactorData;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 因子数据二进制编解码器 - 定长头部加逐行记录的紧凑格式，可直接从内存映射缓冲区解码
+ * <p>
+ * 头部：魔数(int)、版本(int)、写入时间毫秒(long)、行数(int)。
+ * 每行：epochDay(int)、target/open/high/low/close/volume/return/factorValue(8个double)、
+ * 特征数(int)、特征值(double数组)。统一使用小端字节序。
+ */
+public final class FactorDataCodec {
+    private static final int MAGIC = 0x31434446; // "FDC1"
+    private static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int FIXED_ROW_BYTES = 4 + 8 * 8 + 4;
+
+    private FactorDataCodec() {
+    }
+
+    /**
+     * 编码因子数据
+     * @param data 因子数据列表
+     * @param writtenAtMillis 写入时间
+     * @return 已翻转、可直接写出的缓冲区
+     */
+    public static ByteBuffer encode(List<FactorData> data, long writtenAtMillis) {
+        int size = HEADER_BYTES;
+        for (FactorData row : data) {
+            size += FIXED_ROW_BYTES + 8 * row.getFeatures().length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(writtenAtMillis).putInt(data.size());
+        for (FactorData row : data) {
+            buffer.putInt((int) row.getDate().toEpochDay());
+            buffer.putDouble(row.getTarget());
+            buffer.putDouble(row.getOpen());
+            buffer.putDouble(row.getHigh());
+            buffer.putDouble(row.getLow());
+            buffer.putDouble(row.getClose());
+            buffer.putDouble(row.getVolume());
+            buffer.putDouble(row.getReturn());
+            buffer.putDouble(row.getFactorValue());
+            double[] features = row.getFeatures();
+            buffer.putInt(features.length);
+            for (double feature : features) {
+                buffer.putDouble(feature);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 读取头部中的写入时间
+     * @param buffer 编码数据
+     * @return 写入时间毫秒
+     */
+    public static long readWrittenAt(ByteBuffer buffer) {
+        ByteBuffer view = checkHeader(buffer);
+        return view.getLong(8);
+    }
+
+    /**
+     * 解码因子数据
+     * @param buffer 编码数据，可以是内存映射缓冲区
+     * @return 因子数据列表
+     */
+    public static List<FactorData> decode(ByteBuffer buffer) {
+        ByteBuffer view = checkHeader(buffer);
+        view.position(16);
+        int rows = view.getInt();
+        if (rows < 0) {
+            throw new IllegalArgumentException("Corrupt factor data: negative row count");
+        }
+
+        List<FactorData> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LocalDate date = LocalDate.ofEpochDay(view.getInt());
+            double target = view.getDouble();
+            double open = view.getDouble();
+            double high = view.getDouble();
+            double low = view.getDouble();
+            double close = view.getDouble();
+            double volume = view.getDouble();
+            double ret = view.getDouble();
+            double factorValue = view.getDouble();
+            double[] features = new double[view.getInt()];
+            view.asDoubleBuffer().get(features);
+            view.position(view.position() + 8 * features.length);
+
+            FactorData row = new FactorData(date, features, target);
+            row.setOpen(open);
+            row.setHigh(high);
+            row.setLow(low);
+            row.setClose(close);
+            row.setVolume(volume);
+            row.setReturn(ret);
+            row.setFactorValue(factorValue);
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static ByteBuffer checkHeader(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (view.remaining() < HEADER_BYTES || view.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a factor data partition");
+        }
+        if (view.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported factor data version: " + view.getInt(4));
+        }
+        return view;
+    }
+}
\ No newline at end of file
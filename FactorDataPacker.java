@@ -0,0 +1,79 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 因子数据打包器 - 将因子数据一次性打包为扁平缓冲区并整体交给ND4J，
+ * 避免逐元素putScalar带来的大量JNI调用
+ */
+public final class FactorDataPacker {
+
+    private FactorDataPacker() {
+    }
+
+    /**
+     * 将FactorData列表的特征按行主序打包为[rows, inputSize]矩阵
+     * @param data 因子数据列表
+     * @param inputSize 特征数量
+     * @return 特征矩阵
+     */
+    public static INDArray packFeatures(List<FactorData> data, int inputSize) {
+        int rows = data.size();
+        double[] buffer = new double[rows * inputSize];
+        for (int i = 0; i < rows; i++) {
+            double[] featureArray = data.get(i).getFeatures();
+            if (featureArray.length != inputSize) {
+                throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + featureArray.length);
+            }
+            System.arraycopy(featureArray, 0, buffer, i * inputSize, inputSize);
+        }
+        return Nd4j.create(buffer, new long[]{rows, inputSize}, 'c');
+    }
+
+    /**
+     * 将FactorData列表的目标值打包为[rows, 1]矩阵
+     * @param data 因子数据列表
+     * @return 标签矩阵
+     */
+    public static INDArray packLabels(List<FactorData> data) {
+        int rows = data.size();
+        double[] buffer = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            buffer[i] = data.get(i).getTarget();
+        }
+        return Nd4j.create(buffer, new long[]{rows, 1}, 'c');
+    }
+
+    /**
+     * 将数据帧的特征列作为列主序矩阵交给ND4J。紧凑数据帧直接使用底层数组，
+     * 切片则按列整段复制
+     * @param frame 数据帧
+     * @return [rows, featureCount]特征矩阵
+     */
+    public static INDArray packFeatures(FactorFrame frame) {
+        double[] buffer;
+        if (frame.isCompact()) {
+            buffer = frame.featureArray();
+        } else {
+            buffer = new double[frame.rowCount() * frame.featureCount()];
+            frame.copyFeaturesColumnMajor(buffer);
+        }
+        return Nd4j.create(buffer, new long[]{frame.rowCount(), frame.featureCount()}, 'f');
+    }
+
+    /**
+     * 将数据帧的目标值列打包为[rows, 1]矩阵
+     * @param frame 数据帧
+     * @return 标签矩阵
+     */
+    public static INDArray packLabels(FactorFrame frame) {
+        int from = frame.rowOffset();
+        double[] targets = Arrays.copyOfRange(frame.columnArray(FactorFrame.Column.TARGET), from, from + frame.rowCount());
+        return Nd4j.create(targets, new long[]{frame.rowCount(), 1}, 'c');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorDataSource;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 因子数据集迭代器 - 从FactorDataSource的指定行区间按小批量读取数据，
+ * 每个批次打包为扁平缓冲区后整体交给ND4J
+ */
+public class FactorDataSetIterator implements DataSetIterator {
+    private final FactorDataSource source;
+    private final int inputSize;
+    private final int batchSize;
+    private final long fromRow;
+    private final long toRow;
+    private final double[] featureBuffer;
+    private final double[] labelBuffer;
+    private Iterator<FactorData> cursor;
+    private DataSetPreProcessor preProcessor;
+
+    /**
+     * 构造函数
+     * @param source 因子数据源
+     * @param inputSize 特征数量
+     * @param batchSize 批大小
+     * @param fromRow 起始行（包含）
+     * @param toRow 结束行（不包含）
+     */
+    public FactorDataSetIterator(FactorDataSource source, int inputSize, int batchSize, long fromRow, long toRow) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (fromRow < 0 || toRow > source.size() || fromRow > toRow) {
+            throw new IllegalArgumentException("Invalid row range [" + fromRow + ", " + toRow + ") of " + source.size() + " rows");
+        }
+        this.source = source;
+        this.inputSize = inputSize;
+        this.batchSize = batchSize;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.featureBuffer = new double[batchSize * inputSize];
+        this.labelBuffer = new double[batchSize];
+        reset();
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        int limit = Math.min(num, batchSize);
+        int rows = 0;
+        while (rows < limit && cursor.hasNext()) {
+            FactorData data = cursor.next();
+            double[] featureArray = data.getFeatures();
+            if (featureArray.length != inputSize) {
+                throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + featureArray.length);
+            }
+            System.arraycopy(featureArray, 0, featureBuffer, rows * inputSize, inputSize);
+            labelBuffer[rows] = data.getTarget();
+            rows++;
+        }
+
+        // Nd4j.create会把缓冲区内容复制到off-heap，因此缓冲区可以在下个批次复用；最后一个不满的批次按实际行数截取
+        double[] features = rows == batchSize ? featureBuffer : Arrays.copyOf(featureBuffer, rows * inputSize);
+        double[] labels = rows == batchSize ? labelBuffer : Arrays.copyOf(labelBuffer, rows);
+        DataSet dataSet = new DataSet(
+                Nd4j.create(features, new long[]{rows, inputSize}, 'c'),
+                Nd4j.create(labels, new long[]{rows, 1}, 'c'));
+        if (preProcessor != null) {
+            preProcessor.preProcess(dataSet);
+        }
+        return dataSet;
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    public int inputColumns() {
+        return inputSize;
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return 1;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        cursor = source.iterator(fromRow, toRow);
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return Collections.emptyList();
+    }
+}
\ No newline at end of file
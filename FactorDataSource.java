@@ -0,0 +1,79 @@
+package com.quant.altdata.data.model;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 因子数据源 - 按行区间顺序读取因子数据，数据无需全部驻留内存
+ */
+public interface FactorDataSource {
+
+    /**
+     * 数据源总行数
+     * @return 行数
+     */
+    long size();
+
+    /**
+     * 顺序读取[fromRow, toRow)区间的数据，每次调用返回新的迭代器
+     * @param fromRow 起始行（包含）
+     * @param toRow 结束行（不包含）
+     * @return 因子数据迭代器
+     */
+    Iterator<FactorData> iterator(long fromRow, long toRow);
+
+    /**
+     * 基于内存列表的数据源
+     * @param data 因子数据列表
+     * @return 数据源
+     */
+    static FactorDataSource of(List<FactorData> data) {
+        return new FactorDataSource() {
+            @Override
+            public long size() {
+                return data.size();
+            }
+
+            @Override
+            public Iterator<FactorData> iterator(long fromRow, long toRow) {
+                return data.subList((int) fromRow, (int) toRow).iterator();
+            }
+        };
+    }
+
+    /**
+     * 基于列式数据帧的数据源，按需物化每一行
+     * @param frame 数据帧
+     * @return 数据源
+     */
+    static FactorDataSource of(FactorFrame frame) {
+        return new FactorDataSource() {
+            @Override
+            public long size() {
+                return frame.rowCount();
+            }
+
+            @Override
+            public Iterator<FactorData> iterator(long fromRow, long toRow) {
+                FactorFrame.Row row = frame.cursor();
+                return new Iterator<FactorData>() {
+                    private int next = (int) fromRow;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < toRow;
+                    }
+
+                    @Override
+                    public FactorData next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return row.moveTo(next++).toFactorData();
+                    }
+                };
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,603 @@
+package com.quant.altdata.data.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式因子数据帧 - 以原始类型数组按列存储因子数据，替代热路径上的List<FactorData>
+ * <p>
+ * 所有特征按列主序存放在同一个连续的double[]中：第j个特征占据
+ * [j * stride + offset, j * stride + offset + rows)。日期以epoch-day的int存储，
+ * OHLCV、收益率、目标值和因子值各占一个double[]列。行视图和切片都直接引用底层数组，不做复制。
+ */
+public final class FactorFrame {
+
+    /**
+     * 数值列枚举
+     */
+    public enum Column {
+        OPEN, HIGH, LOW, CLOSE, VOLUME, RETURN, TARGET, FACTOR_VALUE
+    }
+
+    private static final int COLUMN_COUNT = Column.values().length;
+
+    private final int rows;
+    private final int offset;
+    private final int stride;
+    private final int featureCount;
+    private final int[] dates;
+    private final int[] symbolIds;
+    private final double[] features;
+    private final double[][] columns;
+
+    private FactorFrame(int rows, int offset, int stride, int featureCount,
+                        int[] dates, int[] symbolIds, double[] features, double[][] columns) {
+        this.rows = rows;
+        this.offset = offset;
+        this.stride = stride;
+        this.featureCount = featureCount;
+        this.dates = dates;
+        this.symbolIds = symbolIds;
+        this.features = features;
+        this.columns = columns;
+    }
+
+    /**
+     * 直接包装已有的列数组（不复制）
+     * @param rows 行数
+     * @param featureCount 特征数量
+     * @param dates epoch-day日期列
+     * @param symbolIds 标的编号列
+     * @param features 列主序的特征数组，长度至少为rows * featureCount
+     * @param columns 按Column顺序排列的数值列
+     * @return 数据帧
+     */
+    public static FactorFrame wrap(int rows, int featureCount, int[] dates, int[] symbolIds,
+                                   double[] features, double[][] columns) {
+        if (rows < 0 || featureCount < 0) {
+            throw new IllegalArgumentException("Rows and feature count must be non-negative");
+        }
+        if (dates.length < rows || symbolIds.length < rows || features.length < rows * featureCount) {
+            throw new IllegalArgumentException("Column arrays are shorter than row count " + rows);
+        }
+        if (columns.length != COLUMN_COUNT) {
+            throw new IllegalArgumentException("Expected " + COLUMN_COUNT + " value columns, got " + columns.length);
+        }
+        for (double[] column : columns) {
+            if (column.length < rows) {
+                throw new IllegalArgumentException("Column arrays are shorter than row count " + rows);
+            }
+        }
+        return new FactorFrame(rows, 0, rows, featureCount, dates, symbolIds, features, columns);
+    }
+
+    /**
+     * 从FactorData列表构建数据帧。同一日期内的标的编号按出现顺序分配
+     * @param factorDataList 因子数据列表
+     * @return 数据帧
+     */
+    public static FactorFrame from(List<FactorData> factorDataList) {
+        if (factorDataList == null || factorDataList.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        int featureCount = factorDataList.get(0).getFeatures().length;
+        Builder builder = builder(featureCount, factorDataList.size());
+        Map<LocalDate, Integer> ordinals = new HashMap<>();
+        for (FactorData data : factorDataList) {
+            int symbolId = ordinals.merge(data.getDate(), 1, Integer::sum) - 1;
+            builder.add(data, symbolId);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 从FactorData列表和对应的标的代码构建数据帧。同一标的代码在所有日期使用同一个编号，
+     * 编号按代码首次出现的顺序分配，标的集合可以逐日变化
+     * @param factorDataList 因子数据列表
+     * @param symbols 与数据逐条对应的标的代码
+     * @return 数据帧
+     */
+    public static FactorFrame from(List<FactorData> factorDataList, List<String> symbols) {
+        if (factorDataList == null || factorDataList.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+        if (symbols == null || symbols.size() != factorDataList.size()) {
+            throw new IllegalArgumentException("Expected one symbol per row: " + factorDataList.size() + " rows, "
+                    + (symbols == null ? 0 : symbols.size()) + " symbols");
+        }
+
+        int featureCount = factorDataList.get(0).getFeatures().length;
+        Builder builder = builder(featureCount, factorDataList.size());
+        Map<String, Integer> symbolIds = new HashMap<>();
+        for (int i = 0; i < factorDataList.size(); i++) {
+            String symbol = symbols.get(i);
+            if (symbol == null) {
+                throw new IllegalArgumentException("Symbol cannot be null at row " + i);
+            }
+            builder.add(factorDataList.get(i), symbolIds.computeIfAbsent(symbol, ignored -> symbolIds.size()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 创建构建器
+     * @param featureCount 特征数量
+     * @param expectedRows 预计行数
+     * @return 构建器
+     */
+    public static Builder builder(int featureCount, int expectedRows) {
+        return new Builder(featureCount, expectedRows);
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public int featureCount() {
+        return featureCount;
+    }
+
+    public boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * 获取日期（epoch-day）
+     * @param row 行号
+     * @return epoch-day
+     */
+    public int date(int row) {
+        return dates[offset + checkRow(row)];
+    }
+
+    public LocalDate localDate(int row) {
+        return LocalDate.ofEpochDay(date(row));
+    }
+
+    public int symbolId(int row) {
+        return symbolIds[offset + checkRow(row)];
+    }
+
+    /**
+     * 获取特征值
+     * @param row 行号
+     * @param feature 特征下标
+     * @return 特征值
+     */
+    public double feature(int row, int feature) {
+        if (feature < 0 || feature >= featureCount) {
+            throw new IndexOutOfBoundsException("Feature index " + feature + " out of range [0, " + featureCount + ")");
+        }
+        return features[feature * stride + offset + checkRow(row)];
+    }
+
+    public double value(Column column, int row) {
+        return columns[column.ordinal()][offset + checkRow(row)];
+    }
+
+    public double open(int row) {
+        return value(Column.OPEN, row);
+    }
+
+    public double high(int row) {
+        return value(Column.HIGH, row);
+    }
+
+    public double low(int row) {
+        return value(Column.LOW, row);
+    }
+
+    public double close(int row) {
+        return value(Column.CLOSE, row);
+    }
+
+    public double volume(int row) {
+        return value(Column.VOLUME, row);
+    }
+
+    public double returnAt(int row) {
+        return value(Column.RETURN, row);
+    }
+
+    public double target(int row) {
+        return value(Column.TARGET, row);
+    }
+
+    public double factorValue(int row) {
+        return value(Column.FACTOR_VALUE, row);
+    }
+
+    /**
+     * 写入因子值（模型打分结果直接写回列中）
+     * @param row 行号
+     * @param value 因子值
+     */
+    public void setFactorValue(int row, double value) {
+        columns[Column.FACTOR_VALUE.ordinal()][offset + checkRow(row)] = value;
+    }
+
+    /**
+     * 底层特征数组，配合featureOffset在热循环中直接访问
+     * @return 列主序的特征数组（共享，不可修改）
+     */
+    public double[] featureArray() {
+        return features;
+    }
+
+    /**
+     * 第feature个特征在featureArray中的起始下标，该列的行连续存放
+     * @param feature 特征下标
+     * @return 起始下标
+     */
+    public int featureOffset(int feature) {
+        return feature * stride + offset;
+    }
+
+    /**
+     * 底层数值列数组，配合rowOffset在热循环中直接访问
+     * @param column 列
+     * @return 数值列（共享，不可修改）
+     */
+    public double[] columnArray(Column column) {
+        return columns[column.ordinal()];
+    }
+
+    public int[] dateArray() {
+        return dates;
+    }
+
+    public int[] symbolIdArray() {
+        return symbolIds;
+    }
+
+    /**
+     * 本帧第0行在各底层列数组中的下标
+     * @return 行偏移
+     */
+    public int rowOffset() {
+        return offset;
+    }
+
+    /**
+     * 特征数组是否恰好为rows * featureCount的紧凑列主序矩阵。wrap允许传入更长的特征数组，
+     * 此时数组末尾有多余元素，不能直接作为[rows, featureCount]矩阵使用
+     * @return 是否紧凑
+     */
+    public boolean isCompact() {
+        return offset == 0 && stride == rows && features.length == rows * featureCount;
+    }
+
+    /**
+     * 将特征按列主序复制到目标数组
+     * @param dest 目标数组，长度至少为rows * featureCount
+     */
+    public void copyFeaturesColumnMajor(double[] dest) {
+        for (int j = 0; j < featureCount; j++) {
+            System.arraycopy(features, featureOffset(j), dest, j * rows, rows);
+        }
+    }
+
+    /**
+     * 将指定行的特征复制到目标数组
+     * @param row 行号
+     * @param dest 目标数组
+     */
+    public void copyFeatures(int row, double[] dest) {
+        int base = offset + checkRow(row);
+        for (int j = 0; j < featureCount; j++) {
+            dest[j] = features[j * stride + base];
+        }
+    }
+
+    /**
+     * 零拷贝切片
+     * @param fromRow 起始行（包含）
+     * @param toRow 结束行（不包含）
+     * @return 共享底层数组的子帧
+     */
+    public FactorFrame slice(int fromRow, int toRow) {
+        if (fromRow < 0 || toRow > rows || fromRow > toRow) {
+            throw new IndexOutOfBoundsException("Invalid slice [" + fromRow + ", " + toRow + ") of " + rows + " rows");
+        }
+        return new FactorFrame(toRow - fromRow, offset + fromRow, stride, featureCount,
+                dates, symbolIds, features, columns);
+    }
+
+    /**
+     * 按行号把指定行复制为紧凑的新数据帧，日期、标的编号、特征和各数值列随行复制
+     * @param rowIndexes 行号
+     * @param count 复制的行数
+     * @return 新数据帧
+     */
+    public FactorFrame copyRows(int[] rowIndexes, int count) {
+        int[] newDates = new int[count];
+        int[] newSymbolIds = new int[count];
+        double[] newFeatures = new double[count * featureCount];
+        double[][] newColumns = new double[COLUMN_COUNT][count];
+        for (int i = 0; i < count; i++) {
+            int source = offset + checkRow(rowIndexes[i]);
+            newDates[i] = dates[source];
+            newSymbolIds[i] = symbolIds[source];
+            for (int j = 0; j < featureCount; j++) {
+                newFeatures[j * count + i] = features[j * stride + source];
+            }
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                newColumns[c][i] = columns[c][source];
+            }
+        }
+        return new FactorFrame(count, 0, count, featureCount, newDates, newSymbolIds, newFeatures, newColumns);
+    }
+
+    /**
+     * 获取行视图
+     * @param row 行号
+     * @return 指向该行的视图
+     */
+    public Row row(int row) {
+        Row view = new Row();
+        view.moveTo(row);
+        return view;
+    }
+
+    /**
+     * 获取可复用的行游标，初始位于第0行之前
+     * @return 行游标
+     */
+    public Row cursor() {
+        return new Row();
+    }
+
+    /**
+     * 转换为FactorData列表（每行创建一个对象，仅用于兼容旧接口）
+     * @return 因子数据列表
+     */
+    public List<FactorData> toFactorDataList() {
+        List<FactorData> result = new ArrayList<>(rows);
+        Row view = cursor();
+        for (int i = 0; i < rows; i++) {
+            view.moveTo(i);
+            result.add(view.toFactorData());
+        }
+        return result;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + rows + ")");
+        }
+        return row;
+    }
+
+    /**
+     * 行视图 - 不持有数据，只记录当前行号
+     */
+    public final class Row {
+        private int row = -1;
+
+        private Row() {
+        }
+
+        /**
+         * 移动到指定行
+         * @param row 行号
+         * @return 当前视图
+         */
+        public Row moveTo(int row) {
+            this.row = checkRow(row);
+            return this;
+        }
+
+        /**
+         * 移动到下一行
+         * @return 是否还有数据
+         */
+        public boolean next() {
+            if (row + 1 >= rows) {
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        public int index() {
+            return row;
+        }
+
+        public int getEpochDay() {
+            return dates[offset + row];
+        }
+
+        public LocalDate getDate() {
+            return LocalDate.ofEpochDay(getEpochDay());
+        }
+
+        public int getSymbolId() {
+            return symbolIds[offset + row];
+        }
+
+        public double getFeature(int feature) {
+            return FactorFrame.this.feature(row, feature);
+        }
+
+        /**
+         * 将当前行特征复制到目标数组
+         * @param dest 目标数组
+         */
+        public void getFeatures(double[] dest) {
+            copyFeatures(row, dest);
+        }
+
+        public double getOpen() {
+            return columns[Column.OPEN.ordinal()][offset + row];
+        }
+
+        public double getHigh() {
+            return columns[Column.HIGH.ordinal()][offset + row];
+        }
+
+        public double getLow() {
+            return columns[Column.LOW.ordinal()][offset + row];
+        }
+
+        public double getClose() {
+            return columns[Column.CLOSE.ordinal()][offset + row];
+        }
+
+        public double getVolume() {
+            return columns[Column.VOLUME.ordinal()][offset + row];
+        }
+
+        public double getReturn() {
+            return columns[Column.RETURN.ordinal()][offset + row];
+        }
+
+        public double getTarget() {
+            return columns[Column.TARGET.ordinal()][offset + row];
+        }
+
+        public double getFactorValue() {
+            return columns[Column.FACTOR_VALUE.ordinal()][offset + row];
+        }
+
+        /**
+         * 物化为FactorData对象
+         * @return 因子数据
+         */
+        public FactorData toFactorData() {
+            double[] rowFeatures = new double[featureCount];
+            getFeatures(rowFeatures);
+            FactorData data = new FactorData(getDate(), rowFeatures, getTarget());
+            data.setOpen(getOpen());
+            data.setHigh(getHigh());
+            data.setLow(getLow());
+            data.setClose(getClose());
+            data.setVolume(getVolume());
+            data.setReturn(getReturn());
+            data.setFactorValue(getFactorValue());
+            return data;
+        }
+    }
+
+    /**
+     * 数据帧构建器 - 按行追加，内部按列存储，容量不足时成倍扩容
+     */
+    public static final class Builder {
+        private final int featureCount;
+        private int capacity;
+        private int size;
+        private int[] dates;
+        private int[] symbolIds;
+        private double[][] featureColumns;
+        private double[][] columns;
+
+        private Builder(int featureCount, int expectedRows) {
+            if (featureCount < 0) {
+                throw new IllegalArgumentException("Feature count must be non-negative");
+            }
+            this.featureCount = featureCount;
+            this.capacity = Math.max(16, expectedRows);
+            this.dates = new int[capacity];
+            this.symbolIds = new int[capacity];
+            this.featureColumns = new double[featureCount][capacity];
+            this.columns = new double[COLUMN_COUNT][capacity];
+        }
+
+        /**
+         * 追加一行
+         * @param epochDay 日期（epoch-day）
+         * @param symbolId 标的编号
+         * @param rowFeatures 特征
+         * @param target 目标值
+         * @return 构建器
+         */
+        public Builder add(int epochDay, int symbolId, double[] rowFeatures, double target) {
+            if (rowFeatures.length != featureCount) {
+                throw new IllegalArgumentException("Feature size mismatch: expected " + featureCount + ", got " + rowFeatures.length);
+            }
+            ensureCapacity(size + 1);
+            dates[size] = epochDay;
+            symbolIds[size] = symbolId;
+            for (int j = 0; j < featureCount; j++) {
+                featureColumns[j][size] = rowFeatures[j];
+            }
+            columns[Column.TARGET.ordinal()][size] = target;
+            size++;
+            return this;
+        }
+
+        /**
+         * 追加一个FactorData对象
+         * @param data 因子数据
+         * @param symbolId 标的编号
+         * @return 构建器
+         */
+        public Builder add(FactorData data, int symbolId) {
+            add((int) data.getDate().toEpochDay(), symbolId, data.getFeatures(), data.getTarget());
+            int last = size - 1;
+            columns[Column.OPEN.ordinal()][last] = data.getOpen();
+            columns[Column.HIGH.ordinal()][last] = data.getHigh();
+            columns[Column.LOW.ordinal()][last] = data.getLow();
+            columns[Column.CLOSE.ordinal()][last] = data.getClose();
+            columns[Column.VOLUME.ordinal()][last] = data.getVolume();
+            columns[Column.RETURN.ordinal()][last] = data.getReturn();
+            columns[Column.FACTOR_VALUE.ordinal()][last] = data.getFactorValue();
+            return this;
+        }
+
+        /**
+         * 设置最后追加行的数值列
+         * @param column 列
+         * @param value 数值
+         * @return 构建器
+         */
+        public Builder set(Column column, double value) {
+            if (size == 0) {
+                throw new IllegalStateException("No row has been added yet");
+            }
+            columns[column.ordinal()][size - 1] = value;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 构建数据帧，特征列合并为一个紧凑的列主序数组
+         * @return 数据帧
+         */
+        public FactorFrame build() {
+            double[] packed = new double[size * featureCount];
+            for (int j = 0; j < featureCount; j++) {
+                System.arraycopy(featureColumns[j], 0, packed, j * size, size);
+            }
+            double[][] trimmed = new double[COLUMN_COUNT][];
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                trimmed[c] = Arrays.copyOf(columns[c], size);
+            }
+            return new FactorFrame(size, 0, size, featureCount,
+                    Arrays.copyOf(dates, size), Arrays.copyOf(symbolIds, size), packed, trimmed);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= capacity) {
+                return;
+            }
+            int newCapacity = Math.max(required, capacity * 2);
+            dates = Arrays.copyOf(dates, newCapacity);
+            symbolIds = Arrays.copyOf(symbolIds, newCapacity);
+            for (int j = 0; j < featureCount; j++) {
+                featureColumns[j] = Arrays.copyOf(featureColumns[j], newCapacity);
+            }
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                columns[c] = Arrays.copyOf(columns[c], newCapacity);
+            }
+            capacity = newCapacity;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.quant.altdata.data.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式因子数据帧测试类
+ */
+public class FactorFrameTest {
+    private List<FactorData> testData;
+    private FactorFrame frame;
+
+    @BeforeEach
+    void setUp() {
+        // 准备测试数据：10个交易日，每日3个标的
+        testData = new ArrayList<>();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int day = 0; day < 10; day++) {
+            for (int symbol = 0; symbol < 3; symbol++) {
+                double[] features = {day, symbol, day * symbol};
+                FactorData data = new FactorData(start.plusDays(day), features, day + symbol * 0.1);
+                data.setClose(100 + day);
+                data.setReturn(0.01 * symbol);
+                testData.add(data);
+            }
+        }
+        frame = FactorFrame.from(testData);
+    }
+
+    @Test
+    void testFromFactorDataList() {
+        assertEquals(30, frame.rowCount());
+        assertEquals(3, frame.featureCount());
+        assertTrue(frame.isCompact());
+
+        for (int i = 0; i < testData.size(); i++) {
+            FactorData data = testData.get(i);
+            assertEquals(data.getDate(), frame.localDate(i));
+            assertEquals(data.getTarget(), frame.target(i));
+            assertEquals(data.getClose(), frame.close(i));
+            assertEquals(data.getReturn(), frame.returnAt(i));
+            for (int j = 0; j < 3; j++) {
+                assertEquals(data.getFeatures()[j], frame.feature(i, j));
+            }
+        }
+
+        // 同一日期内按出现顺序分配标的编号
+        assertEquals(0, frame.symbolId(3));
+        assertEquals(2, frame.symbolId(5));
+    }
+
+    @Test
+    void testSliceSharesColumns() {
+        FactorFrame slice = frame.slice(6, 12);
+        assertEquals(6, slice.rowCount());
+        assertFalse(slice.isCompact());
+        assertSame(frame.featureArray(), slice.featureArray());
+        assertEquals(frame.feature(6, 2), slice.feature(0, 2));
+
+        // 写入切片的因子值对原数据帧可见
+        slice.setFactorValue(1, 42.0);
+        assertEquals(42.0, frame.factorValue(7));
+
+        double[] packed = new double[slice.rowCount() * slice.featureCount()];
+        slice.copyFeaturesColumnMajor(packed);
+        assertEquals(frame.feature(11, 1), packed[slice.rowCount() + 5]);
+    }
+
+    @Test
+    void testWrappedLongerArrayIsNotCompact() {
+        double[][] columns = new double[FactorFrame.Column.values().length][4];
+        FactorFrame exact = FactorFrame.wrap(4, 2, new int[4], new int[4], new double[8], columns);
+        FactorFrame padded = FactorFrame.wrap(4, 2, new int[4], new int[4], new double[10], columns);
+
+        assertTrue(exact.isCompact());
+        // 特征数组比rows * featureCount长，打包时必须复制
+        assertFalse(padded.isCompact());
+        double[] packed = new double[8];
+        padded.copyFeaturesColumnMajor(packed);
+        assertEquals(padded.feature(3, 1), packed[7]);
+    }
+
+    @Test
+    void testRowCursor() {
+        FactorFrame.Row row = frame.cursor();
+        int count = 0;
+        double[] features = new double[3];
+        while (row.next()) {
+            row.getFeatures(features);
+            assertEquals(frame.feature(row.index(), 0), features[0]);
+            count++;
+        }
+        assertEquals(30, count);
+
+        FactorData roundTrip = frame.row(4).toFactorData();
+        assertEquals(testData.get(4).getDate(), roundTrip.getDate());
+        assertArrayEquals(testData.get(4).getFeatures(), roundTrip.getFeatures());
+    }
+
+    @Test
+    void testInvalidAccess() {
+        assertThrows(IndexOutOfBoundsException.class, () -> frame.target(30));
+        assertThrows(IndexOutOfBoundsException.class, () -> frame.feature(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> frame.slice(5, 31));
+        assertThrows(IllegalArgumentException.class, () -> FactorFrame.from(new ArrayList<>()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorDataSource;
+import com.quant.altdata.data.model.FactorFrame;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 因子模型接口
+ */
+public interface FactorModel {
+
+    /**
+     * 训练模型
+     * @param trainingData 训练数据
+     * @param epochs 训练轮数
+     */
+    void train(List<FactorData> trainingData, int epochs);
+
+    /**
+     * 预测
+     * @param features 特征
+     * @return 预测值
+     */
+    double predict(double[] features);
+
+    /**
+     * 评估模型
+     * @param testData 测试数据
+     * @return 均方误差
+     */
+    double evaluate(List<FactorData> testData);
+
+    /**
+     * 模型是否已训练
+     * @return 是否已训练
+     */
+    boolean isTrained();
+
+    /**
+     * 获取输入特征数量
+     * @return 特征数量
+     */
+    int getInputSize();
+
+    /**
+     * 创建包含当前参数和训练状态的深拷贝，用于在影子副本上重新训练。
+     * 默认不支持复制
+     * @return 模型副本
+     */
+    default FactorModel copy() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support copy");
+    }
+
+    /**
+     * 用新数据增量更新已训练的模型，开销与新数据量成正比，而不是与全部历史成正比。默认不支持
+     * @param newData 新增数据
+     */
+    default void update(List<FactorData> newData) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support incremental update");
+    }
+
+    /**
+     * 用列式数据帧增量更新模型。默认实现转换为FactorData列表后调用update(List)
+     * @param newData 新增数据帧
+     */
+    default void update(FactorFrame newData) {
+        update(newData.toFactorDataList());
+    }
+
+    /**
+     * 批量预测行主序特征矩阵，结果写入调用方提供的数组。
+     * 默认实现逐行调用predict，支持批量前向计算的模型应覆盖此方法
+     * @param features 行主序特征矩阵，长度至少为rows * 特征数量
+     * @param rows 行数
+     * @param output 输出数组，长度至少为rows
+     */
+    default void predictBatch(double[] features, int rows, double[] output) {
+        int featureCount = getInputSize();
+        checkBatch(features, rows, featureCount, output);
+        double[] row = new double[featureCount];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(features, i * featureCount, row, 0, featureCount);
+            output[i] = predict(row);
+        }
+    }
+
+    /**
+     * 批量预测列式数据帧，结果写入调用方提供的数组
+     * @param batch 数据帧
+     * @param output 输出数组，长度至少为batch.rowCount()
+     */
+    default void predictBatch(FactorFrame batch, double[] output) {
+        if (batch.featureCount() != getInputSize()) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + getInputSize() + ", got " + batch.featureCount());
+        }
+        checkOutput(batch.rowCount(), output);
+        double[] row = new double[batch.featureCount()];
+        for (int i = 0; i < batch.rowCount(); i++) {
+            batch.copyFeatures(i, row);
+            output[i] = predict(row);
+        }
+    }
+
+    /**
+     * 校验行主序批量预测的输入输出尺寸
+     * @param features 行主序特征矩阵
+     * @param rows 行数
+     * @param featureCount 特征数量
+     * @param output 输出数组
+     */
+    static void checkBatch(double[] features, int rows, int featureCount, double[] output) {
+        if (rows < 0 || features == null || features.length < (long) rows * featureCount) {
+            throw new IllegalArgumentException("Feature matrix too small: expected " + rows + " x " + featureCount
+                    + " values, got " + (features == null ? 0 : features.length));
+        }
+        checkOutput(rows, output);
+    }
+
+    /**
+     * 校验批量预测的输出数组
+     * @param rows 行数
+     * @param output 输出数组
+     */
+    static void checkOutput(int rows, double[] output) {
+        if (output == null || output.length < rows) {
+            throw new IllegalArgumentException("Output buffer too small: expected " + rows + ", got " + (output == null ? 0 : output.length));
+        }
+    }
+
+    /**
+     * 使用列式数据帧训练模型，默认实现转换为FactorData列表
+     * @param trainingData 训练数据帧
+     * @param epochs 训练轮数
+     */
+    default void train(FactorFrame trainingData, int epochs) {
+        train(trainingData.toFactorDataList(), epochs);
+    }
+
+    /**
+     * 以小批量流式方式训练模型。默认实现将数据源全部读入内存后调用train(List, int)，
+     * 支持流式训练的模型应覆盖此方法
+     * @param source 因子数据源
+     * @param epochs 训练轮数
+     * @param batchSize 批大小
+     */
+    default void train(FactorDataSource source, int epochs, int batchSize) {
+        List<FactorData> trainingData = new ArrayList<>((int) Math.min(source.size(), Integer.MAX_VALUE));
+        Iterator<FactorData> iterator = source.iterator(0, source.size());
+        while (iterator.hasNext()) {
+            trainingData.add(iterator.next());
+        }
+        train(trainingData, epochs);
+    }
+
+    /**
+     * 使用列式数据帧评估模型，默认实现逐行预测并计算均方误差
+     * @param testData 测试数据帧
+     * @return 均方误差
+     */
+    default double evaluate(FactorFrame testData) {
+        if (testData == null || testData.isEmpty()) {
+            throw new IllegalArgumentException("Test data cannot be null or empty");
+        }
+        double[] row = new double[testData.featureCount()];
+        double sumSquaredError = 0;
+        for (int i = 0; i < testData.rowCount(); i++) {
+            testData.copyFeatures(i, row);
+            double error = predict(row) - testData.target(i);
+            sumSquaredError += error * error;
+        }
+        return sumSquaredError / testData.rowCount();
+    }
+}
\ No newline at end of file
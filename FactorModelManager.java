@@ -1,20 +1,63 @@
 package com.quant.altdata.factor.model;
 
 import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorDataSource;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * 因子模型管理器 - 管理和维护各种因子模型
+ * <p>
+ * 模型以带版本的方式保存在并发注册表中。重新训练在当前版本的影子副本上进行，
+ * 训练完成后原子替换发布；打分路径上的读取只是一次volatile读，从不阻塞。
+ * 每个模型保留最近若干个历史版本（model.registry.history，默认3）用于即时回滚。
+ * <p>
+ * 配置model.checkpoint.dir后，训练发布的新版本会保存为检查点；启动时目录中的检查点在后台并行加载，
+ * 某个模型首次被读取时只等待它自己的检查点加载完成，无需重新训练即可开始打分。
+ * <p>
+ * 默认模型（linear、deeplearning、ensemble）在首次被读取时才创建，只做回测或只用线性模型的任务
+ * 不会触发ND4J后端加载和神经网络初始化。
+ * <p>
+ * 默认集成模型按名称引用linear和deeplearning：任一成员发布新版本（训练、增量更新、注册或回滚）时，
+ * 集成模型随之发布一个替换了该成员的新版本，因此训练成员模型后集成模型立即使用新成员打分；
+ * 直接训练集成模型则在它自己的成员副本上进行，直到对应成员下一次发布新版本。
  */
 public class FactorModelManager {
     private static final Logger logger = LoggerFactory.getLogger(FactorModelManager.class);
-    private final Map<String, FactorModel> models;
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+    private static final List<String> DEFAULT_MODELS = List.of("linear", "deeplearning", "ensemble");
+    private static final List<String> DEFAULT_ENSEMBLE_MEMBERS = List.of("linear", "deeplearning");
+    private final ConcurrentMap<String, ModelHistory> models;
+    private final ConcurrentMap<String, ReentrantLock> trainingLocks;
     private final Properties config;
+    private final int historySize;
+    private final Path checkpointDir;
+    private final ConcurrentMap<String, CompletableFuture<Void>> pendingLoads;
+    private final ConcurrentMap<String, List<String>> ensembleMembers;
+    private ExecutorService ensembleExecutor;
+    private ExecutorService checkpointLoader;
 
     /**
      * 构造函数
@@ -22,28 +65,164 @@ public class FactorModelManager {
      */
     public FactorModelManager(Properties config) {
         this.config = config;
-        this.models = new HashMap<>();
-        initializeDefaultModels();
+        this.models = new ConcurrentHashMap<>();
+        this.trainingLocks = new ConcurrentHashMap<>();
+        this.historySize = Integer.parseInt(config.getProperty("model.registry.history", "3"));
+        String checkpointPath = config.getProperty("model.checkpoint.dir");
+        this.checkpointDir = checkpointPath == null ? null : Paths.get(checkpointPath);
+        this.pendingLoads = new ConcurrentHashMap<>();
+        this.ensembleMembers = new ConcurrentHashMap<>();
+
+        // 集成模型的成员在有界线程池上并发打分，线程在首次提交任务时才创建
+        int ensembleThreads = Integer.parseInt(config.getProperty("model.ensemble.threads",
+                "" + Math.min(4, Runtime.getRuntime().availableProcessors()) + ""));
+        if (ensembleThreads > 0) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            ensembleExecutor = Executors.newFixedThreadPool(ensembleThreads, runnable -> {
+                Thread thread = new Thread(runnable, "ensemble-scorer-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        loadCheckpoints();
     }
 
     /**
-     * 初始化默认模型
+     * 创建默认模型并发布为版本1。同一时刻只有一个线程创建默认模型，
+     * 集成模型在锁内递归创建它的成员模型
+     * @param modelName 模型名称
+     * @return 创建的版本记录，不是默认模型名称时返回null
      */
-    private void initializeDefaultModels() {
-        // 从配置中读取特征数量
+    private synchronized ModelHistory createDefaultModel(String modelName) {
+        ModelHistory existing = models.get(modelName);
+        if (existing != null) {
+            return existing;
+        }
+        long start = System.nanoTime();
         int featureCount = Integer.parseInt(config.getProperty("model.feature.count", "10"));
+        FactorModel model;
+        switch (modelName) {
+            case "linear":
+                model = new LinearRegressionModel(featureCount);
+                break;
+            case "deeplearning":
+                DeepLearningFactorModel deepLearningModel = new DeepLearningFactorModel(featureCount);
+                deepLearningModel.setPrefetchBatches(Integer.parseInt(config.getProperty("model.train.prefetch", "4")));
+                deepLearningModel.setTrainingWorkers(Integer.parseInt(config.getProperty("model.train.workers", "1")));
+                deepLearningModel.setAveragingFrequency(Integer.parseInt(config.getProperty("model.train.averagingFrequency", "5")));
+                deepLearningModel.setTrainBatchSize(Integer.parseInt(config.getProperty("model.train.batchSize", "0")));
+                model = deepLearningModel;
+                break;
+            case "ensemble":
+                EnsembleModel ensembleModel = new EnsembleModel(ensembleExecutor);
+                ensembleModel.addModel(getModel("linear"), 0.3);
+                ensembleModel.addModel(getModel("deeplearning"), 0.7);
+                ensembleMembers.put(modelName, DEFAULT_ENSEMBLE_MEMBERS);
+                model = ensembleModel;
+                break;
+            default:
+                return null;
+        }
+        publish(modelName, model);
+        logger.info("Default model {} created in {} ms", modelName, (System.nanoTime() - start) / 1_000_000);
+        return models.get(modelName);
+    }
 
-        // 创建默认模型
-        models.put("linear", new LinearRegressionModel(featureCount));
-        models.put("deeplearning", new DeepLearningFactorModel(featureCount));
+    /**
+     * 在后台线程上并行加载检查点目录中的所有检查点，加载完成的模型替换对应的默认模型
+     */
+    private void loadCheckpoints() {
+        if (checkpointDir == null || !Files.isDirectory(checkpointDir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(checkpointDir, "*" + CHECKPOINT_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Failed to list model checkpoints in {}: {}", checkpointDir, e.getMessage());
+            return;
+        }
+        if (files.isEmpty()) {
+            return;
+        }
 
-        // 初始化集成模型
-        EnsembleModel ensembleModel = new EnsembleModel();
-        ensembleModel.addModel(models.get("linear"), 0.3);
-        ensembleModel.addModel(models.get("deeplearning"), 0.7);
-        models.put("ensemble", ensembleModel);
+        int threads = Integer.parseInt(config.getProperty("model.checkpoint.loadThreads",
+                "" + Math.min(files.size(), Runtime.getRuntime().availableProcessors()) + ""));
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService loader = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-loader-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CompletableFuture<Void>> loads = new ArrayList<>(files.size());
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            name = name.substring(0, name.length() - CHECKPOINT_SUFFIX.length());
+            String modelName = name;
+            CompletableFuture<Void> load = new CompletableFuture<>();
+            pendingLoads.put(modelName, load);
+            loads.add(load);
+            loader.execute(() -> {
+                try {
+                    restore(modelName, file);
+                } catch (Exception e) {
+                    logger.warn("Failed to load checkpoint of model {}, keeping the untrained default: {}",
+                            modelName, e.getMessage());
+                } finally {
+                    pendingLoads.remove(modelName, load);
+                    load.complete(null);
+                }
+            });
+        }
+        checkpointLoader = loader;
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).whenComplete((ignored, e) -> loader.shutdown());
+        logger.info("Loading {} model checkpoints from {} on {} threads", files.size(), checkpointDir, threads);
+    }
 
-        logger.info("Default models initialized: {}", models.keySet());
+    private void restore(String modelName, Path file) {
+        long start = System.nanoTime();
+        ModelVersion loaded = ModelCheckpoint.load(file, ensembleExecutor);
+        if (!modelName.equals(loaded.getName())) {
+            throw new IllegalStateException("Checkpoint " + file + " holds model " + loaded.getName());
+        }
+        if (loaded.getModel() instanceof DeepLearningFactorModel) {
+            DeepLearningFactorModel deepLearning = (DeepLearningFactorModel) loaded.getModel();
+            deepLearning.setPrefetchBatches(Integer.parseInt(config.getProperty("model.train.prefetch", "4")));
+            deepLearning.setTrainingWorkers(Integer.parseInt(config.getProperty("model.train.workers", "1")));
+            deepLearning.setAveragingFrequency(Integer.parseInt(config.getProperty("model.train.averagingFrequency", "5")));
+            deepLearning.setTrainBatchSize(Integer.parseInt(config.getProperty("model.train.batchSize", "0")));
+        }
+        if ("ensemble".equals(modelName) && loaded.getModel() instanceof EnsembleModel
+                && ((EnsembleModel) loaded.getModel()).getMemberCount() == DEFAULT_ENSEMBLE_MEMBERS.size()) {
+            ensembleMembers.put(modelName, DEFAULT_ENSEMBLE_MEMBERS);
+        }
+        models.put(modelName, new ModelHistory(loaded, Collections.emptyList()));
+        logger.info("Restored model {} from checkpoint in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 等待所有启动时的检查点加载完成
+     */
+    public void awaitCheckpoints() {
+        for (CompletableFuture<Void> load : pendingLoads.values()) {
+            load.join();
+        }
+    }
+
+    /**
+     * 把指定模型的当前版本保存为检查点
+     * @param modelName 模型名称
+     * @return 检查点文件
+     */
+    public Path saveCheckpoint(String modelName) {
+        if (checkpointDir == null) {
+            throw new IllegalStateException("model.checkpoint.dir is not configured");
+        }
+        ModelVersion version = getModelVersion(modelName);
+        Path file = checkpointDir.resolve(modelName + CHECKPOINT_SUFFIX);
+        ModelCheckpoint.save(version, file);
+        logger.info("Saved checkpoint of model {} to {}", version, file);
+        return file;
     }
 
     /**
@@ -53,34 +232,184 @@ public class FactorModelManager {
      * @param epochs 训练轮数
      */
     public void trainModel(String modelName, List<FactorData> trainingData, int epochs) {
-        if (!models.containsKey(modelName)) {
-            throw new IllegalArgumentException("Model not found: " + modelName);
+        retrain(modelName, model -> model.train(trainingData, epochs));
+        logger.info("Model {} trained successfully", modelName);
+    }
+
+    /**
+     * 使用列式数据帧训练指定模型
+     * @param modelName 模型名称
+     * @param trainingData 训练数据帧
+     * @param epochs 训练轮数
+     */
+    public void trainModel(String modelName, FactorFrame trainingData, int epochs) {
+        retrain(modelName, model -> model.train(trainingData, epochs));
+        logger.info("Model {} trained successfully on {} rows", modelName, trainingData.rowCount());
+    }
+
+    /**
+     * 以小批量流式方式训练指定模型，批大小由model.train.batchSize配置
+     * @param modelName 模型名称
+     * @param source 因子数据源
+     * @param epochs 训练轮数
+     */
+    public void trainModel(String modelName, FactorDataSource source, int epochs) {
+        int batchSize = Integer.parseInt(config.getProperty("model.train.batchSize", "256"));
+        retrain(modelName, model -> model.train(source, epochs, batchSize));
+        logger.info("Model {} trained successfully on {} streamed rows", modelName, source.size());
+    }
+
+    /**
+     * 用新数据增量更新指定模型，在影子副本上更新后发布为新版本
+     * @param modelName 模型名称
+     * @param newData 新增数据
+     */
+    public void updateModel(String modelName, List<FactorData> newData) {
+        retrain(modelName, model -> model.update(newData));
+        logger.info("Model {} updated incrementally with {} rows", modelName, newData.size());
+    }
+
+    /**
+     * 用列式数据帧增量更新指定模型
+     * @param modelName 模型名称
+     * @param newData 新增数据帧
+     */
+    public void updateModel(String modelName, FactorFrame newData) {
+        retrain(modelName, model -> model.update(newData));
+        logger.info("Model {} updated incrementally with {} rows", modelName, newData.rowCount());
+    }
+
+    /**
+     * 在当前版本的影子副本上执行训练，成功后原子发布为新版本。
+     * 同一模型的训练串行执行，读取方始终看到完整的已发布版本；不支持copy()的模型无法重新训练，
+     * 以免在正在打分的实例上原地训练。新版本发布后再保存检查点，保存失败单独报告，此时新版本已经生效
+     * @param modelName 模型名称
+     * @param trainer 训练操作
+     */
+    private void retrain(String modelName, Consumer<FactorModel> trainer) {
+        getModelVersion(modelName);
+        ReentrantLock lock = trainingLocks.computeIfAbsent(modelName, name -> new ReentrantLock());
+        lock.lock();
+        try {
+            try {
+                FactorModel shadow = copyForTraining(modelName, getModel(modelName));
+                trainer.accept(shadow);
+                publish(modelName, shadow);
+            } catch (Exception e) {
+                logger.error("Failed to train model {}: {}", modelName, e.getMessage(), e);
+                throw new RuntimeException("Model training failed", e);
+            }
+            autosaveCheckpoint(modelName);
+        } finally {
+            lock.unlock();
         }
+    }
 
+    private static FactorModel copyForTraining(String modelName, FactorModel current) {
+        try {
+            return current.copy();
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("Model " + modelName + " does not support copy() and cannot be retrained "
+                    + "without mutating the live version", e);
+        }
+    }
+
+    /**
+     * 配置了自动保存时保存当前版本的检查点。新版本此时已经发布，保存失败以检查点错误报告，而不是训练失败
+     */
+    private void autosaveCheckpoint(String modelName) {
+        if (checkpointDir == null || !Boolean.parseBoolean(config.getProperty("model.checkpoint.autosave", "true"))) {
+            return;
+        }
         try {
-            FactorModel model = models.get(modelName);
-            model.train(trainingData, epochs);
-            logger.info("Model {} trained successfully", modelName);
-        } catch (Exception e) {
-            logger.error("Failed to train model {}: {}", modelName, e.getMessage(), e);
-            throw new RuntimeException("Model training failed", e);
+            saveCheckpoint(modelName);
+        } catch (RuntimeException e) {
+            ModelVersion live = getModelVersion(modelName);
+            logger.error("Model {} is live but its checkpoint could not be saved: {}", live, e.getMessage(), e);
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Model " + modelName + " version " + live.getVersion()
+                            + " was published but its checkpoint could not be saved", e);
         }
     }
 
     /**
-     * 获取指定模型
+     * 获取指定模型的当前版本
      * @param modelName 模型名称
      * @return 模型实例
      */
     public FactorModel getModel(String modelName) {
-        if (!models.containsKey(modelName)) {
+        return getModelVersion(modelName).getModel();
+    }
+
+    /**
+     * 获取指定模型的当前版本记录
+     * @param modelName 模型名称
+     * @return 版本记录
+     */
+    public ModelVersion getModelVersion(String modelName) {
+        if (!pendingLoads.isEmpty()) {
+            CompletableFuture<Void> load = pendingLoads.get(modelName);
+            if (load != null) {
+                load.join();
+            }
+        }
+        ModelHistory history = models.get(modelName);
+        if (history == null) {
+            history = createDefaultModel(modelName);
+        }
+        if (history == null) {
             throw new IllegalArgumentException("Model not found: " + modelName);
         }
-        return models.get(modelName);
+        return history.current;
+    }
+
+    /**
+     * 获取指定模型保留的历史版本，最近的在前
+     * @param modelName 模型名称
+     * @return 历史版本列表
+     */
+    public List<ModelVersion> getPreviousVersions(String modelName) {
+        getModelVersion(modelName);
+        ModelHistory history = models.get(modelName);
+        if (history == null) {
+            throw new IllegalArgumentException("Model not found: " + modelName);
+        }
+        return history.previous;
+    }
+
+    /**
+     * 已注册的模型名称，包括尚未创建的默认模型
+     * @return 模型名称集合
+     */
+    public Set<String> getModelNames() {
+        Set<String> names = new LinkedHashSet<>(DEFAULT_MODELS);
+        names.addAll(models.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 回滚到上一个版本，被替换的当前版本被丢弃。回滚集成模型的成员时，集成模型同样换回该成员的上一个版本
+     * @param modelName 模型名称
+     * @return 回滚后的当前版本
+     */
+    public ModelVersion rollback(String modelName) {
+        getModelVersion(modelName);
+        ModelHistory rolledBack = models.computeIfPresent(modelName, (name, history) -> {
+            if (history.previous.isEmpty()) {
+                throw new IllegalStateException("No previous version to roll back to for model: " + name);
+            }
+            return new ModelHistory(history.previous.get(0), history.previous.subList(1, history.previous.size()));
+        });
+        if (rolledBack == null) {
+            throw new IllegalArgumentException("Model not found: " + modelName);
+        }
+        logger.info("Model {} rolled back to version {}", modelName, rolledBack.current.getVersion());
+        refreshEnsembles(modelName, rolledBack.current.getModel());
+        return rolledBack.current;
     }
 
     /**
-     * 注册新模型
+     * 注册新模型，已存在的同名模型成为历史版本。需要通过本管理器重新训练的模型必须实现copy()
      * @param name 模型名称
      * @param model 模型实例
      */
@@ -88,7 +417,89 @@ public class FactorModelManager {
         if (models.containsKey(name)) {
             logger.warn("Overriding existing model: {}", name);
         }
-        models.put(name, model);
+        publish(name, model);
         logger.info("Model registered: {}", name);
     }
+
+    /**
+     * 原子发布新版本，发布的是集成模型成员时同时发布替换了该成员的集成模型
+     */
+    private ModelVersion publish(String name, FactorModel model) {
+        ModelHistory published = models.merge(name,
+                new ModelHistory(new ModelVersion(name, 1, model, Instant.now()), Collections.emptyList()),
+                (history, ignored) -> history.push(model, historySize));
+        logger.debug("Published model {}", published.current);
+        refreshEnsembles(name, model);
+        return published.current;
+    }
+
+    /**
+     * 为以memberName为成员的每个集成模型发布新版本，持有集成模型的训练锁，避免与集成模型自身的训练交错
+     */
+    private void refreshEnsembles(String memberName, FactorModel member) {
+        ensembleMembers.forEach((ensembleName, members) -> {
+            int index = members.indexOf(memberName);
+            if (index < 0) {
+                return;
+            }
+            ReentrantLock lock = trainingLocks.computeIfAbsent(ensembleName, name -> new ReentrantLock());
+            lock.lock();
+            try {
+                ModelHistory history = models.get(ensembleName);
+                if (history == null || !(history.current.getModel() instanceof EnsembleModel)) {
+                    return;
+                }
+                EnsembleModel ensemble = (EnsembleModel) history.current.getModel();
+                if (ensemble.getMember(index) != member) {
+                    publish(ensembleName, ensemble.withMember(index, member));
+                    logger.info("Ensemble {} now uses the current version of member {}", ensembleName, memberName);
+                    try {
+                        autosaveCheckpoint(ensembleName);
+                    } catch (FactorEngineException e) {
+                        // 成员的发布不因集成模型检查点失败而回退，错误已记录
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 关闭集成模型和检查点加载使用的线程池，已提交的检查点加载仍会完成
+     */
+    public void shutdown() {
+        if (ensembleExecutor != null) {
+            ensembleExecutor.shutdown();
+        }
+        if (checkpointLoader != null) {
+            checkpointLoader.shutdown();
+        }
+    }
+
+    /**
+     * 不可变的模型版本历史，整体替换以保证读取方看到一致的快照
+     */
+    private static final class ModelHistory {
+        private final ModelVersion current;
+        private final List<ModelVersion> previous;
+
+        private ModelHistory(ModelVersion current, List<ModelVersion> previous) {
+            this.current = current;
+            this.previous = Collections.unmodifiableList(new ArrayList<>(previous));
+        }
+
+        private ModelHistory push(FactorModel model, int historySize) {
+            List<ModelVersion> retained = new ArrayList<>(historySize);
+            retained.add(current);
+            for (int i = 0; i < previous.size() && retained.size() < historySize; i++) {
+                retained.add(previous.get(i));
+            }
+            if (historySize == 0) {
+                retained.clear();
+            }
+            ModelVersion next = new ModelVersion(current.getName(), current.getVersion() + 1, model, Instant.now());
+            return new ModelHistory(next, retained);
+        }
+    }
 }
\ No newline at end of file
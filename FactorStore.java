@@ -0,0 +1,422 @@
+package com.quant.altdata.data.storage;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 列式因子数据存储 - 按数据集和自然月分区持久化因子数据，读取结果直接是FactorFrame
+ * <p>
+ * 每个分区是一个文件，路径为&lt;目录&gt;/&lt;数据集&gt;/&lt;yyyy-MM&gt;.fcol，行按日期排序（同一日期内保持写入顺序）。
+ * 文件由头部、列目录和各列数据块组成：头部为魔数、版本、行数、特征数、最小和最大日期（小端序int）；
+ * 列目录记录每列的偏移和长度，列依次为日期、标的编号、FactorFrame的各数值列和各特征列。
+ * 日期和标的编号列使用差分变长编码，数值列和特征列使用Gorilla XOR编码，编码见ColumnCodec。
+ * <p>
+ * 读取时通过内存映射访问分区文件，并把查询条件下推到存储层：日期区间之外的分区不打开，
+ * 分区内由日期列二分定位行区间，只解码请求的特征列，解码结果直接写入目标FactorFrame的列数组，不创建逐行对象。
+ * 写入按日期整体替换：新数据覆盖的交易日在分区内被替换，其余交易日保留。
+ */
+public class FactorStore {
+    private static final Logger logger = LoggerFactory.getLogger(FactorStore.class);
+    private static final String SUFFIX = ".fcol";
+    private static final int MAGIC = 0x4C4F4346; // "FCOL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * 4;
+    private static final int FIXED_COLUMNS = 2 + FactorFrame.Column.values().length;
+
+    private final Path directory;
+
+    /**
+     * 构造函数
+     * @param directory 存储目录
+     */
+    public FactorStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 根据配置项data.store.dir创建存储
+     * @param config 配置属性
+     * @return 因子数据存储
+     */
+    public static FactorStore fromConfig(Properties config) {
+        return new FactorStore(Paths.get(config.getProperty("data.store.dir", "store/factor-data")));
+    }
+
+    /**
+     * 写入因子数据，同一日期内的标的编号按出现顺序分配
+     * @param dataset 数据集名称
+     * @param data 因子数据列表
+     */
+    public void write(String dataset, List<FactorData> data) {
+        write(dataset, FactorFrame.from(data));
+    }
+
+    /**
+     * 写入数据帧，按自然月拆分到分区，替换分区内被新数据覆盖的交易日
+     * @param dataset 数据集名称
+     * @param frame 数据帧
+     */
+    public void write(String dataset, FactorFrame frame) {
+        if (frame == null || frame.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+        int rows = frame.rowCount();
+        long[] order = sortedRows(frame, rows);
+
+        int start = 0;
+        while (start < rows) {
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay((int) (order[start] >> 32)));
+            int lastDay = (int) month.atEndOfMonth().toEpochDay();
+            int end = start;
+            while (end < rows && (int) (order[end] >> 32) <= lastDay) {
+                end++;
+            }
+            writePartition(dataset, month, frame, order, start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * 读取日期区间内的全部特征
+     * @param dataset 数据集名称
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @return 数据帧，没有数据时为空数据帧
+     */
+    public FactorFrame read(String dataset, LocalDate from, LocalDate to) {
+        return read(dataset, from, to, null);
+    }
+
+    /**
+     * 读取日期区间内的指定特征
+     * @param dataset 数据集名称
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @param features 读取的特征下标，按给定顺序成为结果的第0、1、2...个特征；null表示全部特征
+     * @return 数据帧，没有数据时为空数据帧
+     */
+    public FactorFrame read(String dataset, LocalDate from, LocalDate to, int[] features) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " - " + to);
+        }
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+
+        // 第一遍：映射分区文件，由日期列定位各分区的行区间
+        List<Partition> partitions = new ArrayList<>();
+        int totalRows = 0;
+        int featureCount = -1;
+        for (Path path : partitionPaths(dataset, YearMonth.from(from), YearMonth.from(to))) {
+            Partition partition = Partition.open(path);
+            if (featureCount < 0) {
+                featureCount = partition.featureCount;
+            } else if (partition.featureCount != featureCount) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                        "Partition " + path + " has " + partition.featureCount + " features, expected " + featureCount);
+            }
+            if (partition.maxDay < fromDay || partition.minDay > toDay) {
+                continue;
+            }
+            partition.locate(fromDay, toDay);
+            if (partition.to > partition.from) {
+                partitions.add(partition);
+                totalRows += partition.to - partition.from;
+            }
+        }
+
+        int[] selected = features != null ? features.clone() : identity(Math.max(featureCount, 0));
+        for (int feature : selected) {
+            if (feature < 0 || (featureCount >= 0 && feature >= featureCount)) {
+                throw new IllegalArgumentException("Feature index " + feature + " out of range " + featureCount);
+            }
+        }
+
+        // 第二遍：把各分区的区间解码到结果列数组的对应位置
+        int[] dates = new int[totalRows];
+        int[] symbolIds = new int[totalRows];
+        double[] packed = new double[totalRows * selected.length];
+        double[][] columns = new double[FactorFrame.Column.values().length][totalRows];
+        int offset = 0;
+        for (Partition partition : partitions) {
+            partition.decode(selected, dates, symbolIds, packed, columns, offset, totalRows);
+            offset += partition.to - partition.from;
+        }
+        logger.debug("Read {} rows with {} features from {} partitions of {}", totalRows, selected.length,
+                partitions.size(), dataset);
+        return FactorFrame.wrap(totalRows, selected.length, dates, symbolIds, packed, columns);
+    }
+
+    /**
+     * 列出数据集在月份区间内已有的分区文件，按月份排序
+     */
+    private List<Path> partitionPaths(String dataset, YearMonth first, YearMonth last) {
+        Path datasetDir = directory.resolve(dataset);
+        List<Path> paths = new ArrayList<>();
+        if (!Files.isDirectory(datasetDir)) {
+            return paths;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(datasetDir, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                YearMonth month = YearMonth.parse(name.substring(0, name.length() - SUFFIX.length()));
+                if (!month.isBefore(first) && !month.isAfter(last)) {
+                    paths.add(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                    "Failed to list partitions of dataset " + dataset, e);
+        }
+        paths.sort(null);
+        return paths;
+    }
+
+    private void writePartition(String dataset, YearMonth month, FactorFrame frame, long[] order, int start, int end) {
+        Path path = directory.resolve(dataset).resolve(month + SUFFIX);
+        int featureCount = frame.featureCount();
+        FactorFrame existing = null;
+        if (Files.exists(path)) {
+            existing = read(dataset, month.atDay(1), month.atEndOfMonth());
+            if (existing.featureCount() != featureCount) {
+                throw new IllegalArgumentException("Dataset " + dataset + " stores " + existing.featureCount()
+                        + " features, got " + featureCount);
+            }
+        }
+
+        Set<Integer> replacedDays = new HashSet<>();
+        for (int k = start; k < end; k++) {
+            replacedDays.add((int) (order[k] >> 32));
+        }
+        FactorFrame.Builder builder = FactorFrame.builder(featureCount, end - start + (existing == null ? 0 : existing.rowCount()));
+        double[] rowFeatures = new double[featureCount];
+        if (existing != null) {
+            for (int row = 0; row < existing.rowCount(); row++) {
+                if (!replacedDays.contains(existing.date(row))) {
+                    copyRow(existing, row, rowFeatures, builder);
+                }
+            }
+        }
+        for (int k = start; k < end; k++) {
+            copyRow(frame, (int) order[k], rowFeatures, builder);
+        }
+        FactorFrame merged = builder.build();
+
+        ByteBuffer encoded = encode(merged);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), month.toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    while (encoded.hasRemaining()) {
+                        channel.write(encoded);
+                    }
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Failed to write partition " + path, e);
+        }
+        logger.debug("Wrote partition {} with {} rows ({} bytes)", path, merged.rowCount(), encoded.limit());
+    }
+
+    private static void copyRow(FactorFrame frame, int row, double[] rowFeatures, FactorFrame.Builder builder) {
+        frame.copyFeatures(row, rowFeatures);
+        builder.add(frame.date(row), frame.symbolId(row), rowFeatures, frame.target(row));
+        for (FactorFrame.Column column : FactorFrame.Column.values()) {
+            builder.set(column, frame.value(column, row));
+        }
+    }
+
+    /**
+     * 编码一个分区：行按日期排序，同一日期内保持原有顺序
+     */
+    private static ByteBuffer encode(FactorFrame frame) {
+        int rows = frame.rowCount();
+        int featureCount = frame.featureCount();
+        long[] order = sortedRows(frame, rows);
+
+        int[] dates = new int[rows];
+        int[] symbolIds = new int[rows];
+        for (int k = 0; k < rows; k++) {
+            dates[k] = frame.date((int) order[k]);
+            symbolIds[k] = frame.symbolId((int) order[k]);
+        }
+        int columnCount = FIXED_COLUMNS + featureCount;
+        byte[][] blocks = new byte[columnCount][];
+        blocks[0] = ColumnCodec.encodeDeltas(dates, rows);
+        blocks[1] = ColumnCodec.encodeDeltas(symbolIds, rows);
+        double[] values = new double[rows];
+        FactorFrame.Column[] valueColumns = FactorFrame.Column.values();
+        for (int c = 0; c < valueColumns.length; c++) {
+            for (int k = 0; k < rows; k++) {
+                values[k] = frame.value(valueColumns[c], (int) order[k]);
+            }
+            blocks[2 + c] = ColumnCodec.encodeDoubles(values, 0, rows);
+        }
+        for (int j = 0; j < featureCount; j++) {
+            for (int k = 0; k < rows; k++) {
+                values[k] = frame.feature((int) order[k], j);
+            }
+            blocks[FIXED_COLUMNS + j] = ColumnCodec.encodeDoubles(values, 0, rows);
+        }
+
+        int size = HEADER_BYTES + columnCount * 8;
+        for (byte[] block : blocks) {
+            size += block.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(rows);
+        buffer.putInt(featureCount);
+        buffer.putInt(rows == 0 ? 0 : dates[0]);
+        buffer.putInt(rows == 0 ? -1 : dates[rows - 1]);
+        int blockOffset = HEADER_BYTES + columnCount * 8;
+        for (byte[] block : blocks) {
+            buffer.putInt(blockOffset);
+            buffer.putInt(block.length);
+            blockOffset += block.length;
+        }
+        for (byte[] block : blocks) {
+            buffer.put(block);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 按日期排序的行下标：高32位为日期，低32位为行号
+     */
+    private static long[] sortedRows(FactorFrame frame, int rows) {
+        long[] order = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = ((long) frame.date(i) << 32) | i;
+        }
+        Arrays.sort(order);
+        return order;
+    }
+
+    private static int[] identity(int n) {
+        int[] indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * 已映射的分区文件及其在本次读取中命中的行区间
+     */
+    private static final class Partition {
+        private final Path path;
+        private final ByteBuffer mapped;
+        private final int rows;
+        private final int featureCount;
+        private final int minDay;
+        private final int maxDay;
+        private int[] dates;
+        private int from;
+        private int to;
+
+        private Partition(Path path, ByteBuffer mapped) {
+            this.path = path;
+            this.mapped = mapped;
+            if (mapped.remaining() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a factor store partition: " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw new IllegalArgumentException("Unsupported factor store version " + mapped.getInt(4) + ": " + path);
+            }
+            this.rows = mapped.getInt(8);
+            this.featureCount = mapped.getInt(12);
+            this.minDay = mapped.getInt(16);
+            this.maxDay = mapped.getInt(20);
+        }
+
+        static Partition open(Path path) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                return new Partition(path, mapped);
+            } catch (IOException e) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_FETCH_ERROR,
+                        "Failed to map partition " + path, e);
+            }
+        }
+
+        /**
+         * 解码日期列，二分查找日期区间对应的行区间
+         */
+        void locate(int fromDay, int toDay) {
+            dates = new int[rows];
+            ColumnCodec.decodeDeltas(block(0), rows, dates);
+            from = lowerBound(dates, fromDay);
+            to = lowerBound(dates, toDay + 1);
+        }
+
+        void decode(int[] selected, int[] outDates, int[] outSymbols, double[] outFeatures, double[][] outColumns,
+                    int offset, int stride) {
+            int count = to - from;
+            System.arraycopy(dates, from, outDates, offset, count);
+            int[] symbols = new int[to];
+            ColumnCodec.decodeDeltas(block(1), to, symbols);
+            System.arraycopy(symbols, from, outSymbols, offset, count);
+            for (int c = 0; c < outColumns.length; c++) {
+                ColumnCodec.decodeDoubles(block(2 + c), from, to, outColumns[c], offset);
+            }
+            for (int j = 0; j < selected.length; j++) {
+                ColumnCodec.decodeDoubles(block(FIXED_COLUMNS + selected[j]), from, to, outFeatures, j * stride + offset);
+            }
+        }
+
+        private ByteBuffer block(int column) {
+            int entry = HEADER_BYTES + column * 8;
+            int position = mapped.getInt(entry);
+            int length = mapped.getInt(entry + 4);
+            if (position < 0 || length < 0 || position + length > mapped.capacity()) {
+                throw new IllegalArgumentException("Corrupt column directory in " + path);
+            }
+            ByteBuffer block = mapped.duplicate();
+            block.limit(position + length).position(position);
+            return block;
+        }
+
+        private static int lowerBound(int[] sorted, int value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.quant.altdata.data.storage;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式因子数据存储测试类
+ */
+public class FactorStoreTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 20);
+
+    @TempDir
+    Path storeDir;
+
+    private static List<FactorData> data(int days, int symbols, long seed) {
+        Random random = new Random(seed);
+        List<FactorData> data = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                double[] features = {day, symbol * 0.5, random.nextGaussian()};
+                FactorData row = new FactorData(START.plusDays(day), features, random.nextGaussian());
+                row.setClose(100.0 + symbol + day * 0.25);
+                row.setVolume(1000.0 * (symbol + 1));
+                row.setReturn(random.nextGaussian() * 0.01);
+                row.setFactorValue(Double.NaN);
+                data.add(row);
+            }
+        }
+        return data;
+    }
+
+    @Test
+    void testDateRangeAndFeatureSubsetPushdown() throws Exception {
+        List<FactorData> data = data(45, 4, 3);
+        FactorStore store = new FactorStore(storeDir);
+        store.write("news", data);
+
+        // 1月20日到3月4日跨三个月分区
+        assertTrue(Files.exists(storeDir.resolve("news/2024-01.fcol")));
+        assertTrue(Files.exists(storeDir.resolve("news/2024-03.fcol")));
+
+        LocalDate from = START.plusDays(10);
+        LocalDate to = START.plusDays(30);
+        FactorFrame frame = store.read("news", from, to, new int[]{2, 0});
+
+        assertEquals(21 * 4, frame.rowCount());
+        assertEquals(2, frame.featureCount());
+        for (int row = 0; row < frame.rowCount(); row++) {
+            FactorData expected = data.get(40 + row);
+            assertEquals(expected.getDate(), frame.localDate(row));
+            assertEquals(row % 4, frame.symbolId(row));
+            assertEquals(expected.getFeatures()[2], frame.feature(row, 0));
+            assertEquals(expected.getFeatures()[0], frame.feature(row, 1));
+            assertEquals(expected.getTarget(), frame.target(row));
+            assertEquals(expected.getClose(), frame.close(row));
+            assertEquals(expected.getReturn(), frame.returnAt(row));
+            assertTrue(Double.isNaN(frame.factorValue(row)));
+        }
+
+        assertEquals(0, store.read("news", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)).rowCount());
+        assertEquals(0, store.read("other", from, to).rowCount());
+    }
+
+    @Test
+    void testRewriteReplacesOnlyCoveredDays() {
+        FactorStore store = new FactorStore(storeDir);
+        store.write("news", data(5, 3, 1));
+        List<FactorData> replacement = data(1, 2, 2);
+        store.write("news", replacement);
+
+        FactorFrame frame = store.read("news", START, START.plusDays(4));
+
+        assertEquals(2 + 4 * 3, frame.rowCount());
+        assertEquals(replacement.get(1).getTarget(), frame.target(1));
+        assertEquals(START.plusDays(1), frame.localDate(2));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.write("news", List.of(new FactorData(START, new double[]{1.0}, 0.0))));
+    }
+
+    @Test
+    void testGorillaRoundTripKeepsExactBits() {
+        double[] values = {1.5, 1.5, 1.75, -0.0, 0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE,
+                123456.789, 123456.789, -1e300, 42.0};
+        byte[] encoded = ColumnCodec.encodeDoubles(values, 0, values.length);
+        double[] decoded = new double[values.length - 3];
+        ColumnCodec.decodeDoubles(ByteBuffer.wrap(encoded), 3, values.length, decoded, 0);
+
+        for (int i = 3; i < values.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoded[i - 3]));
+        }
+        int[] dates = {19700, 19700, 19701, 19650, 20000};
+        int[] restored = new int[dates.length];
+        ColumnCodec.decodeDeltas(ByteBuffer.wrap(ColumnCodec.encodeDeltas(dates, dates.length)), dates.length, restored);
+        assertArrayEquals(dates, restored);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,369 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * 特征工程处理器 - 在委托处理器之后为每条数据追加滚动窗口特征和截面特征
+ * <p>
+ * 标的按FactorFrame的约定识别：同一日期内按出现顺序编号，因此要求每个日期的标的集合和顺序都相同，
+ * 各日期行数不一致时（停牌、新上市等）编号会错位，此时直接拒绝输入，调用方需先补齐缺失的标的。
+ * 滚动窗口只覆盖一次process调用内的数据，不跨调用保留状态，分块或流式输入时每块都会从头累积窗口。
+ * 数据先按日期排序并展开为原始类型列，
+ * 滚动特征按标的并行计算，每个标的沿时间方向用环形缓冲区做O(1)的滑动更新；
+ * 截面特征按日期并行计算，同一日期的数据在列数组中连续，内层循环都是原始数组上的计数循环。
+ * <p>
+ * 缺失值（NaN或无穷）不参与滚动窗口和截面统计，统计量按窗口或截面内的有效值个数计算，没有有效值时特征为NaN。
+ * 滑动和在环形缓冲区每绕一圈时按缓冲区重新求和，长序列上增减累积的舍入误差不会超过一个窗口。
+ * <p>
+ * 追加的特征依次为：收益率滚动均值、收益率滚动波动率、收盘价相对滚动均值的偏离、
+ * 成交量相对滚动均值的比率、收益率截面z分数、收益率截面分位排名、成交量截面z分数、收盘价偏离的截面分位排名。
+ */
+public class FeatureEngineeringProcessor implements DataProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(FeatureEngineeringProcessor.class);
+    /** 追加的特征数量 */
+    public static final int FEATURE_COUNT = 8;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final int window;
+    private final int numThreads;
+    private final DataProcessor delegate;
+    private final ExecutorService executor;
+
+    /**
+     * 构造函数
+     * @param window 滚动窗口长度（交易日）
+     * @param numThreads 并行线程数
+     * @param delegate 先执行的处理器，可以为null
+     */
+    public FeatureEngineeringProcessor(int window, int numThreads, DataProcessor delegate) {
+        if (window < 2 || numThreads <= 0) {
+            throw new IllegalArgumentException("Window must be at least 2 and threads must be positive");
+        }
+        this.window = window;
+        this.numThreads = numThreads;
+        this.delegate = delegate;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "feature-engineering-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<FactorData> process(List<FactorData> data) {
+        List<FactorData> input = delegate == null ? data : delegate.process(data);
+        if (input == null || input.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int rows = input.size();
+        // 按日期排序的行下标：高32位为日期，低32位为输入行号，同一日期内保持输入顺序
+        long[] order = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = (input.get(i).getDate().toEpochDay() << 32) | i;
+        }
+        Arrays.sort(order);
+
+        double[] close = new double[rows];
+        double[] volume = new double[rows];
+        double[] returns = new double[rows];
+        int[] symbol = new int[rows];
+        int[] dateStarts = new int[rows + 1];
+        int dates = 0;
+        int symbols = 0;
+        int ordinal = 0;
+        for (int k = 0; k < rows; k++) {
+            FactorData item = input.get((int) order[k]);
+            if (k == 0 || (order[k] >> 32) != (order[k - 1] >> 32)) {
+                dateStarts[dates++] = k;
+                ordinal = 0;
+            }
+            close[k] = item.getClose();
+            volume[k] = item.getVolume();
+            returns[k] = item.getReturn();
+            symbol[k] = ordinal++;
+            symbols = Math.max(symbols, ordinal);
+        }
+        dateStarts[dates] = rows;
+        for (int d = 0; d < dates; d++) {
+            if (dateStarts[d + 1] - dateStarts[d] != symbols) {
+                throw new IllegalArgumentException("Feature engineering needs the same symbols on every date, but "
+                        + input.get((int) order[dateStarts[d]]).getDate() + " has " + (dateStarts[d + 1] - dateStarts[d])
+                        + " rows instead of " + symbols);
+            }
+        }
+
+        // 输出按特征分列存放，out[f * rows + k]为排序后第k行的第f个特征
+        double[] out = new double[FEATURE_COUNT * rows];
+        computeRolling(close, volume, returns, symbol, symbols, out);
+        int dateCount = dates;
+        parallelFor(dateCount, d -> computeCrossSection(dateStarts[d], dateStarts[d + 1], returns, volume, out, rows));
+
+        List<FactorData> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(null);
+        }
+        for (int k = 0; k < rows; k++) {
+            int row = (int) order[k];
+            FactorData item = input.get(row);
+            double[] features = item.getFeatures();
+            double[] extended = Arrays.copyOf(features, features.length + FEATURE_COUNT);
+            for (int f = 0; f < FEATURE_COUNT; f++) {
+                extended[features.length + f] = out[f * rows + k];
+            }
+            result.set(row, withFeatures(item, extended));
+        }
+
+        logger.debug("Engineered {} features for {} records over {} dates and {} symbols",
+                FEATURE_COUNT, rows, dateCount, symbols);
+        return result;
+    }
+
+    /**
+     * 滚动特征：按标的编号做计数排序得到每个标的按时间排列的行，再按标的并行做滑动窗口更新
+     */
+    private void computeRolling(double[] close, double[] volume, double[] returns, int[] symbol, int symbols,
+                                double[] out) {
+        int rows = close.length;
+        int[] symbolStarts = new int[symbols + 1];
+        for (int k = 0; k < rows; k++) {
+            symbolStarts[symbol[k] + 1]++;
+        }
+        for (int s = 0; s < symbols; s++) {
+            symbolStarts[s + 1] += symbolStarts[s];
+        }
+        int[] fill = Arrays.copyOf(symbolStarts, symbols);
+        int[] bySymbol = new int[rows];
+        for (int k = 0; k < rows; k++) {
+            bySymbol[fill[symbol[k]]++] = k;
+        }
+
+        parallelFor(symbols, s -> {
+            RollingWindow returnWindow = new RollingWindow(window);
+            RollingWindow closeWindow = new RollingWindow(window);
+            RollingWindow volumeWindow = new RollingWindow(window);
+            for (int p = symbolStarts[s]; p < symbolStarts[s + 1]; p++) {
+                int k = bySymbol[p];
+                int slot = (p - symbolStarts[s]) % window;
+                returnWindow.replace(slot, returns[k]);
+                closeWindow.replace(slot, close[k]);
+                volumeWindow.replace(slot, volume[k]);
+
+                double closeMean = closeWindow.mean();
+                double volumeMean = volumeWindow.mean();
+                out[k] = returnWindow.mean();
+                out[rows + k] = returnWindow.std();
+                out[2 * rows + k] = closeMean == 0 ? 0.0 : close[k] / closeMean - 1.0;
+                out[3 * rows + k] = volumeMean == 0 ? 0.0 : volume[k] / volumeMean;
+            }
+        });
+    }
+
+    /**
+     * 一个标的一个序列的滑动窗口，缺失值以NaN占位，和与平方和只累加有效值
+     */
+    private static final class RollingWindow {
+        private final double[] values;
+        private double sum;
+        private double sumSq;
+        private int valid;
+
+        RollingWindow(int window) {
+            values = new double[window];
+            Arrays.fill(values, Double.NaN);
+        }
+
+        /**
+         * 用新值替换槽位中的旧值，写满最后一个槽位时重新求和
+         */
+        void replace(int slot, double value) {
+            double old = values[slot];
+            if (!Double.isNaN(old)) {
+                sum -= old;
+                sumSq -= old * old;
+                valid--;
+            }
+            values[slot] = Double.isFinite(value) ? value : Double.NaN;
+            if (Double.isFinite(value)) {
+                sum += value;
+                sumSq += value * value;
+                valid++;
+            }
+            if (slot == values.length - 1) {
+                recompute();
+            }
+        }
+
+        private void recompute() {
+            sum = 0;
+            sumSq = 0;
+            valid = 0;
+            for (double value : values) {
+                if (!Double.isNaN(value)) {
+                    sum += value;
+                    sumSq += value * value;
+                    valid++;
+                }
+            }
+        }
+
+        double mean() {
+            return valid == 0 ? Double.NaN : sum / valid;
+        }
+
+        double std() {
+            if (valid < 2) {
+                return valid == 0 ? Double.NaN : 0.0;
+            }
+            double variance = (sumSq - sum * sum / valid) / (valid - 1);
+            return Math.sqrt(Math.max(variance, 0.0));
+        }
+    }
+
+    /**
+     * 截面特征：同一日期的行在[from, to)内连续
+     */
+    private static void computeCrossSection(int from, int to, double[] returns, double[] volume, double[] out, int rows) {
+        zScore(returns, from, to, out, 4 * rows);
+        percentileRank(returns, 0, from, to, out, 5 * rows);
+        zScore(volume, from, to, out, 6 * rows);
+        percentileRank(out, 2 * rows, from, to, out, 7 * rows);
+    }
+
+    /**
+     * z分数：均值和标准差只用有效值计算，缺失值的z分数为NaN
+     */
+    private static void zScore(double[] values, int from, int to, double[] out, int outOffset) {
+        int n = 0;
+        double sum = 0;
+        for (int k = from; k < to; k++) {
+            if (Double.isFinite(values[k])) {
+                sum += values[k];
+                n++;
+            }
+        }
+        double mean = sum / n;
+        double sumSq = 0;
+        for (int k = from; k < to; k++) {
+            if (Double.isFinite(values[k])) {
+                double diff = values[k] - mean;
+                sumSq += diff * diff;
+            }
+        }
+        double std = n > 1 ? Math.sqrt(sumSq / (n - 1)) : 0.0;
+        double scale = std > 0 ? 1.0 / std : 0.0;
+        for (int k = from; k < to; k++) {
+            out[outOffset + k] = Double.isFinite(values[k]) ? (values[k] - mean) * scale : Double.NaN;
+        }
+    }
+
+    /**
+     * 分位排名：有效值中严格小于当前值的个数除以(n-1)，并列值排名相同，结果在[0, 1]内，缺失值的排名为NaN
+     */
+    private static void percentileRank(double[] values, int valueOffset, int from, int to, double[] out, int outOffset) {
+        double[] sorted = new double[to - from];
+        int n = 0;
+        for (int k = from; k < to; k++) {
+            if (Double.isFinite(values[valueOffset + k])) {
+                sorted[n++] = values[valueOffset + k];
+            }
+        }
+        Arrays.sort(sorted, 0, n);
+        double scale = n > 1 ? 1.0 / (n - 1) : 0.0;
+        for (int k = from; k < to; k++) {
+            double value = values[valueOffset + k];
+            if (!Double.isFinite(value)) {
+                out[outOffset + k] = Double.NaN;
+            } else {
+                out[outOffset + k] = n == 1 ? 0.5 : lowerBound(sorted, n, value) * scale;
+            }
+        }
+    }
+
+    private static int lowerBound(double[] sorted, int length, double value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(sorted[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 把[0, n)切成连续区间在线程池上并行执行，调用线程等待全部完成
+     */
+    private void parallelFor(int n, IntConsumer body) {
+        int tasks = Math.min(n, numThreads * TASKS_PER_THREAD);
+        if (tasks <= 1) {
+            for (int i = 0; i < n; i++) {
+                body.accept(i);
+            }
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            int from = (int) ((long) t * n / tasks);
+            int to = (int) ((long) (t + 1) * n / tasks);
+            futures.add(executor.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Interrupted while engineering features", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Feature engineering failed", e.getCause());
+        }
+    }
+
+    private static FactorData withFeatures(FactorData source, double[] features) {
+        FactorData copy = new FactorData(source.getDate(), features, source.getTarget());
+        copy.setOpen(source.getOpen());
+        copy.setHigh(source.getHigh());
+        copy.setLow(source.getLow());
+        copy.setClose(source.getClose());
+        copy.setVolume(source.getVolume());
+        copy.setReturn(source.getReturn());
+        copy.setFactorValue(source.getFactorValue());
+        return copy;
+    }
+
+    DataProcessor getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
\ No newline at end of file
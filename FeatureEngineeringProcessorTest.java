@@ -0,0 +1,134 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 特征工程处理器测试类
+ */
+public class FeatureEngineeringProcessorTest {
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private FeatureEngineeringProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new FeatureEngineeringProcessor(2, 4, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private static FactorData row(int day, int symbol) {
+        FactorData data = new FactorData(START.plusDays(day), new double[]{symbol}, 0.0);
+        data.setClose(10.0 * (symbol + 1) + day);
+        data.setVolume(100.0 * (symbol + 1));
+        data.setReturn(0.01 * (symbol + 1) * (day + 1));
+        return data;
+    }
+
+    @Test
+    void testRollingAndCrossSectionalFeatures() {
+        // 日期倒序输入，同一日期内标的顺序固定
+        List<FactorData> input = new ArrayList<>();
+        for (int day = 3; day >= 0; day--) {
+            for (int symbol = 0; symbol < 3; symbol++) {
+                input.add(row(day, symbol));
+            }
+        }
+
+        List<FactorData> output = processor.process(input);
+
+        assertEquals(input.size(), output.size());
+        // 第0条是第3天的标的0：窗口为第2、3天的收益0.03和0.04
+        double[] features = output.get(0).getFeatures();
+        assertEquals(1 + FeatureEngineeringProcessor.FEATURE_COUNT, features.length);
+        assertEquals(0.0, features[0]);
+        assertEquals(0.035, features[1], 1e-12);
+        assertEquals(Math.sqrt(0.00005), features[2], 1e-12);
+        assertEquals(13.0 / 12.5 - 1.0, features[3], 1e-12);
+        assertEquals(1.0, features[4], 1e-12);
+        // 第3天三个标的收益为0.04、0.08、0.12，标的0的z分数为-1，排名为0
+        assertEquals(-1.0, features[5], 1e-12);
+        assertEquals(0.0, features[6], 1e-12);
+        assertEquals(1.0, output.get(2).getFeatures()[6], 1e-12);
+        // 第0天只有一条历史，波动率为0
+        FactorData first = output.get(output.size() - 3);
+        assertEquals(START, first.getDate());
+        assertEquals(0.0, first.getFeatures()[2], 1e-12);
+        assertEquals(input.get(5).getClose(), output.get(5).getClose());
+    }
+
+    @Test
+    void testMissingValuesAreSkipped() {
+        List<FactorData> input = new ArrayList<>();
+        for (int day = 0; day < 4; day++) {
+            for (int symbol = 0; symbol < 3; symbol++) {
+                input.add(row(day, symbol));
+            }
+        }
+        // 第1天标的0的收益缺失
+        input.get(3).setReturn(Double.NaN);
+
+        List<FactorData> output = processor.process(input);
+
+        // 第1天窗口内只有第0天的收益有效
+        double[] missing = output.get(3).getFeatures();
+        assertEquals(0.01, missing[1], 1e-12);
+        assertEquals(0.0, missing[2], 1e-12);
+        assertTrue(Double.isNaN(missing[5]));
+        assertTrue(Double.isNaN(missing[6]));
+        // 同一天其余标的只在有效值上做截面统计：0.04和0.06
+        assertEquals(-Math.sqrt(0.5), output.get(4).getFeatures()[5], 1e-12);
+        assertEquals(0.0, output.get(4).getFeatures()[6], 1e-12);
+        assertEquals(1.0, output.get(5).getFeatures()[6], 1e-12);
+        // 缺失值移出窗口后恢复正常
+        assertEquals(0.035, output.get(9).getFeatures()[1], 1e-12);
+        assertEquals(Math.sqrt(0.00005), output.get(9).getFeatures()[2], 1e-12);
+    }
+
+    @Test
+    void testLongSeriesMatchesDirectWindow() {
+        int window = 5;
+        FeatureEngineeringProcessor rolling = new FeatureEngineeringProcessor(window, 1, null);
+        List<FactorData> input = new ArrayList<>();
+        for (int day = 0; day < 20000; day++) {
+            FactorData data = new FactorData(START.plusDays(day), new double[0], 0.0);
+            // 大幅值和小幅值交替，增减抵消的舍入误差会逐步累积
+            data.setReturn(day % 2 == 0 ? 1e8 + day * 1e-3 : 1e-3 * (day % 7));
+            data.setClose(1.0);
+            data.setVolume(1.0);
+            input.add(data);
+        }
+
+        List<FactorData> output = rolling.process(input);
+        rolling.shutdown();
+
+        int last = input.size() - 1;
+        double sum = 0;
+        for (int day = last - window + 1; day <= last; day++) {
+            sum += input.get(day).getReturn();
+        }
+        assertEquals(sum / window, output.get(last).getFeatures()[0], 1e-6);
+    }
+
+    @Test
+    void testRejectsDatesWithDifferentSymbolCounts() {
+        // 第1天缺少标的2，按日期内序号识别标的会错位
+        List<FactorData> input = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int symbol = 0; symbol < (day == 1 ? 2 : 3); symbol++) {
+                input.add(row(day, symbol));
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> processor.process(input));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ForkJoin数据处理器 - 基于RecursiveTask和工作窃取的自适应并行处理
+ * <p>
+ * 与固定批大小的处理器不同，这里的叶子任务大小根据实测的单条记录处理耗时动态调整：
+ * 叶子任务的目标耗时固定，单条耗时越高，拆分得越细。单条耗时是所有叶子实测值的全局指数加权平均，
+ * 不区分子区间，因此叶子大小跟随整体负载的变化，而不是为某一段特别慢的记录单独拆小；
+ * 长新闻与短推文混杂时，各叶子的耗时差异由空闲线程通过工作窃取分担。
+ * <p>
+ * 叶子任务把结果按下标写入预先分配的数组，合并时不复制子任务的结果列表，最后按叶子顺序一次性收集，
+ * 输出顺序与输入一致。委托处理器可以过滤记录，但不能返回多于输入的记录。
+ */
+public class ForkJoinDataProcessor implements DataProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(ForkJoinDataProcessor.class);
+    private static final double COST_SMOOTHING = 0.2;
+    private static final int MIN_LEAF_SIZE = 1;
+
+    private final ForkJoinPool pool;
+    private final int initialLeafSize;
+    private final long targetLeafNanos;
+    private final DataProcessor delegate;
+    private volatile double nanosPerItem = -1;
+
+    /**
+     * 构造函数
+     * @param numThreads 并行度
+     * @param initialLeafSize 尚无耗时统计时的叶子任务大小
+     * @param targetLeafMicros 叶子任务的目标耗时（微秒）
+     * @param delegate 处理叶子任务的单线程处理器
+     */
+    public ForkJoinDataProcessor(int numThreads, int initialLeafSize, long targetLeafMicros, DataProcessor delegate) {
+        if (numThreads <= 0 || initialLeafSize <= 0 || targetLeafMicros <= 0) {
+            throw new IllegalArgumentException("Threads, leaf size and target leaf time must be positive");
+        }
+        this.pool = new ForkJoinPool(numThreads);
+        this.initialLeafSize = initialLeafSize;
+        this.targetLeafNanos = targetLeafMicros * 1000;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<FactorData> process(List<FactorData> data) {
+        if (data == null || data.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int size = data.size();
+        FactorData[] slots = new FactorData[size];
+        // 以叶子起始下标为索引：叶子结束下标和写入的记录数
+        int[] leafEnds = new int[size];
+        int[] leafCounts = new int[size];
+        pool.invoke(new ProcessTask(data, 0, size, slots, leafEnds, leafCounts));
+
+        List<FactorData> result = new ArrayList<>(size);
+        for (int from = 0; from < size; from = leafEnds[from]) {
+            for (int i = from; i < from + leafCounts[from]; i++) {
+                result.add(slots[i]);
+            }
+        }
+        logger.debug("Processed {} records with fork/join, estimated cost {} ns/record, leaf size {}",
+                data.size(), (long) nanosPerItem, leafSize());
+        return result;
+    }
+
+    /**
+     * 当前叶子任务大小：目标耗时除以估计的单条耗时
+     */
+    int leafSize() {
+        double cost = nanosPerItem;
+        if (cost <= 0) {
+            return initialLeafSize;
+        }
+        long size = (long) (targetLeafNanos / cost);
+        return (int) Math.max(MIN_LEAF_SIZE, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 用叶子任务的实测耗时更新单条记录耗时估计。并发更新可能丢失个别样本，对估计影响可以忽略
+     */
+    private void recordLeafCost(long elapsedNanos, int items) {
+        double sample = (double) elapsedNanos / items;
+        double current = nanosPerItem;
+        nanosPerItem = current <= 0 ? sample : current + COST_SMOOTHING * (sample - current);
+    }
+
+    /**
+     * 关闭ForkJoin线程池
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class ProcessTask extends RecursiveAction {
+        private final List<FactorData> data;
+        private final int from;
+        private final int to;
+        private final FactorData[] slots;
+        private final int[] leafEnds;
+        private final int[] leafCounts;
+
+        ProcessTask(List<FactorData> data, int from, int to, FactorData[] slots, int[] leafEnds, int[] leafCounts) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.slots = slots;
+            this.leafEnds = leafEnds;
+            this.leafCounts = leafCounts;
+        }
+
+        @Override
+        protected void compute() {
+            int length = to - from;
+            if (length <= leafSize()) {
+                long start = System.nanoTime();
+                List<FactorData> processed = delegate.process(data.subList(from, to));
+                recordLeafCost(System.nanoTime() - start, length);
+                int count = processed == null ? 0 : processed.size();
+                if (count > length) {
+                    throw new IllegalStateException("Delegate returned " + count + " records for " + length + " inputs");
+                }
+                for (int i = 0; i < count; i++) {
+                    slots[from + i] = processed.get(i);
+                }
+                leafEnds[from] = to;
+                leafCounts[from] = count;
+                return;
+            }
+
+            int middle = from + length / 2;
+            invokeAll(new ProcessTask(data, from, middle, slots, leafEnds, leafCounts),
+                    new ProcessTask(data, middle, to, slots, leafEnds, leafCounts));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ForkJoin数据处理器测试类
+ */
+public class ForkJoinDataProcessorTest {
+
+    /**
+     * 每条记录阻塞固定时间后把目标值加1，可以丢弃目标值为奇数的记录，记录每次收到的批大小
+     */
+    private static class RecordingProcessor implements DataProcessor {
+        private final long nanosPerItem;
+        private final boolean dropOdd;
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingProcessor(long nanosPerItem, boolean dropOdd) {
+            this.nanosPerItem = nanosPerItem;
+            this.dropOdd = dropOdd;
+        }
+
+        @Override
+        public List<FactorData> process(List<FactorData> batch) {
+            batchSizes.add(batch.size());
+            LockSupport.parkNanos(nanosPerItem * batch.size());
+            List<FactorData> result = new ArrayList<>(batch.size());
+            for (FactorData data : batch) {
+                if (!dropOdd || data.getTarget() % 2 == 0) {
+                    result.add(new FactorData(data.getDate(), data.getFeatures(), data.getTarget() + 1));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static List<FactorData> data(int size) {
+        List<FactorData> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(new FactorData(LocalDate.of(2024, 1, 1).plusDays(i), new double[]{i}, i));
+        }
+        return data;
+    }
+
+    @Test
+    void testPreservesOrderAcrossLeaves() {
+        RecordingProcessor delegate = new RecordingProcessor(0, true);
+        ForkJoinDataProcessor processor = new ForkJoinDataProcessor(4, 7, 1000, delegate);
+
+        List<FactorData> output = processor.process(data(1000));
+        processor.shutdown();
+
+        assertTrue(delegate.batchSizes.size() > 1);
+        assertEquals(500, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(2 * i + 1.0, output.get(i).getTarget());
+        }
+    }
+
+    @Test
+    void testSplitsLeavesByMeasuredCost() {
+        // 每条记录约50微秒，目标叶子耗时200微秒，叶子大小从64收缩到个位数
+        RecordingProcessor delegate = new RecordingProcessor(TimeUnit.MICROSECONDS.toNanos(50), false);
+        ForkJoinDataProcessor processor = new ForkJoinDataProcessor(2, 64, 200, delegate);
+        assertEquals(64, processor.leafSize());
+
+        List<FactorData> output = processor.process(data(256));
+        processor.shutdown();
+
+        assertEquals(256, output.size());
+        assertEquals(256, delegate.batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(delegate.batchSizes.stream().allMatch(size -> size <= 64));
+        assertTrue(processor.leafSize() < 64 / 8, "Leaf size should follow the measured cost");
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i + 1.0, output.get(i).getTarget());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * 增量回测引擎 - 逐日处理行情事件并维护运行状态
+ * <p>
+ * 净值、历史峰值、最大回撤以及日收益的均值和二阶中心矩（Welford算法）随每个交易日更新，
+ * 追加一天的开销为O(1)，净值曲线和回撤序列以可增长数组保存（均摊O(1)）。
+ * 通过snapshot()保存状态、resume()恢复后，每日运行只需处理新增日期的数据。
+ */
+public class IncrementalBacktestEngine {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBacktestEngine.class);
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TradingStrategy strategy;
+    private int lastEpochDay = Integer.MIN_VALUE;
+    private double equity = 1.0;
+    private double peak = 1.0;
+    private double maxDrawdown = 0.0;
+    private double netExposure = 0.0;
+    private long days = 0;
+    private double meanReturn = 0.0;
+    private double m2 = 0.0;
+
+    private int[] dates = new int[INITIAL_CAPACITY];
+    private double[] equityCurve = new double[INITIAL_CAPACITY];
+    private double[] drawdownCurve = new double[INITIAL_CAPACITY];
+
+    /**
+     * 构造函数
+     * @param strategy 交易策略
+     */
+    public IncrementalBacktestEngine(TradingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * 从快照恢复回测状态
+     * @param snapshot 状态快照
+     * @return 回测引擎
+     */
+    public static IncrementalBacktestEngine resume(Snapshot snapshot) {
+        IncrementalBacktestEngine engine = new IncrementalBacktestEngine(snapshot.strategy);
+        engine.lastEpochDay = snapshot.lastEpochDay;
+        engine.equity = snapshot.equity;
+        engine.peak = snapshot.peak;
+        engine.maxDrawdown = snapshot.maxDrawdown;
+        engine.netExposure = snapshot.netExposure;
+        engine.days = snapshot.days;
+        engine.meanReturn = snapshot.meanReturn;
+        engine.m2 = snapshot.m2;
+        int capacity = Math.max(INITIAL_CAPACITY, snapshot.dates.length);
+        engine.dates = Arrays.copyOf(snapshot.dates, capacity);
+        engine.equityCurve = Arrays.copyOf(snapshot.equityCurve, capacity);
+        engine.drawdownCurve = Arrays.copyOf(snapshot.drawdownCurve, capacity);
+        return engine;
+    }
+
+    /**
+     * 处理一个交易日的组合收益
+     * @param epochDay 日期（epoch day），必须晚于已处理的最后一个交易日
+     * @param portfolioReturn 当日组合收益率
+     */
+    public void onDay(int epochDay, double portfolioReturn) {
+        if (epochDay <= lastEpochDay) {
+            throw new IllegalArgumentException("Day " + LocalDate.ofEpochDay(epochDay)
+                    + " is not after last processed day " + LocalDate.ofEpochDay(lastEpochDay));
+        }
+
+        equity *= 1.0 + portfolioReturn;
+        peak = Math.max(peak, equity);
+        double drawdown = equity / peak - 1.0;
+        maxDrawdown = Math.min(maxDrawdown, drawdown);
+
+        days++;
+        double delta = portfolioReturn - meanReturn;
+        meanReturn += delta / days;
+        m2 += delta * (portfolioReturn - meanReturn);
+
+        int index = (int) days - 1;
+        if (index == dates.length) {
+            int capacity = dates.length * 2;
+            dates = Arrays.copyOf(dates, capacity);
+            equityCurve = Arrays.copyOf(equityCurve, capacity);
+            drawdownCurve = Arrays.copyOf(drawdownCurve, capacity);
+        }
+        dates[index] = epochDay;
+        equityCurve[index] = equity;
+        drawdownCurve[index] = drawdown;
+        lastEpochDay = epochDay;
+    }
+
+    /**
+     * 处理一个交易日的横截面数据，按策略计算各标的仓位后等权合成组合收益
+     * @param epochDay 日期（epoch day）
+     * @param signals 各标的模型信号
+     * @param returns 各标的当日收益率
+     * @param count 标的数
+     */
+    public void onBar(int epochDay, double[] signals, double[] returns, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Bar must contain at least one symbol");
+        }
+        double pnl = 0.0;
+        double exposure = 0.0;
+        for (int i = 0; i < count; i++) {
+            double position = strategy.position(signals[i]);
+            pnl += position * returns[i];
+            exposure += position;
+        }
+        onAggregate(epochDay, pnl, exposure, count);
+    }
+
+    /**
+     * 处理一个交易日的已汇总数据，用于合并多个分片各自按策略计算的仓位收益之和，
+     * 结果与对完整横截面调用onBar相同
+     * @param epochDay 日期（epoch day）
+     * @param pnlSum 各标的仓位乘以收益率之和
+     * @param exposureSum 各标的仓位之和
+     * @param count 标的数
+     */
+    public void onAggregate(int epochDay, double pnlSum, double exposureSum, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Bar must contain at least one symbol");
+        }
+        onDay(epochDay, pnlSum / count);
+        netExposure = exposureSum / count;
+    }
+
+    /**
+     * 按日期顺序处理数据帧，信号取因子值列。早于或等于已处理最后一天的日期会被跳过，
+     * 因此恢复状态后可以直接传入包含历史数据的完整数据帧；只有新交易日的行参与排序，
+     * 数据帧已按日期排列时不排序
+     * @param frame 因子数据帧
+     * @return 新处理的交易日数
+     */
+    public int process(FactorFrame frame) {
+        return process(frame, frame::factorValue);
+    }
+
+    /**
+     * 按日期顺序处理数据帧，信号由调用方按行给出，不读写数据帧的因子值列，
+     * 因此多个回测可以并发共享同一个只读数据帧
+     * @param frame 因子数据帧
+     * @param signals 各行的模型信号，长度不小于行数
+     * @return 新处理的交易日数
+     */
+    public int process(FactorFrame frame, double[] signals) {
+        if (signals.length < frame.rowCount()) {
+            throw new IllegalArgumentException("Signal array too small: " + signals.length + " < " + frame.rowCount());
+        }
+        return process(frame, row -> signals[row]);
+    }
+
+    private int process(FactorFrame frame, IntToDoubleFunction signalOf) {
+        // 新交易日的行下标：高32位为日期，低32位为行号
+        long[] order = new long[frame.rowCount()];
+        int rows = 0;
+        boolean sorted = true;
+        for (int i = 0; i < order.length; i++) {
+            int date = frame.date(i);
+            if (date > lastEpochDay) {
+                long key = ((long) date << 32) | i;
+                sorted &= rows == 0 || key > order[rows - 1];
+                order[rows++] = key;
+            }
+        }
+        if (!sorted) {
+            Arrays.sort(order, 0, rows);
+        }
+
+        double[] daySignals = new double[INITIAL_CAPACITY];
+        double[] dayReturns = new double[INITIAL_CAPACITY];
+        int processed = 0;
+        int start = 0;
+        while (start < rows) {
+            int date = (int) (order[start] >> 32);
+            int end = start;
+            while (end < rows && (int) (order[end] >> 32) == date) {
+                end++;
+            }
+            int count = end - start;
+            if (count > daySignals.length) {
+                daySignals = new double[count];
+                dayReturns = new double[count];
+            }
+            for (int k = 0; k < count; k++) {
+                int row = (int) order[start + k];
+                daySignals[k] = signalOf.applyAsDouble(row);
+                dayReturns[k] = frame.returnAt(row);
+            }
+            onBar(date, daySignals, dayReturns, count);
+            processed++;
+            start = end;
+        }
+
+        logger.debug("Processed {} new trading days for strategy {}", processed, strategy);
+        return processed;
+    }
+
+    /**
+     * 保存当前状态
+     * @return 状态快照
+     */
+    public Snapshot snapshot() {
+        int n = (int) days;
+        return new Snapshot(strategy, lastEpochDay, equity, peak, maxDrawdown, netExposure, days, meanReturn, m2,
+                Arrays.copyOf(dates, n), Arrays.copyOf(equityCurve, n), Arrays.copyOf(drawdownCurve, n));
+    }
+
+    /**
+     * 以当前状态生成回测结果
+     * @param modelName 模型名称
+     * @return 回测结果
+     */
+    public BacktestResult toResult(String modelName) {
+        int n = (int) days;
+        return new BacktestResult(strategy.name().toLowerCase(), modelName, Arrays.copyOf(dates, n),
+                Arrays.copyOf(equityCurve, n), Arrays.copyOf(drawdownCurve, n),
+                getSharpeRatio(), maxDrawdown, getTotalReturn());
+    }
+
+    /**
+     * 年化夏普比率，由日收益的样本均值和样本标准差计算
+     * @return 夏普比率，不足两个交易日或波动为0时返回0
+     */
+    public double getSharpeRatio() {
+        double variance = days > 1 ? m2 / (days - 1) : 0.0;
+        return variance > 0 ? meanReturn / Math.sqrt(variance) * Math.sqrt(TRADING_DAYS_PER_YEAR) : 0.0;
+    }
+
+    public TradingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public long getDays() {
+        return days;
+    }
+
+    public int getLastEpochDay() {
+        return lastEpochDay;
+    }
+
+    public double getEquity() {
+        return equity;
+    }
+
+    public double getTotalReturn() {
+        return equity - 1.0;
+    }
+
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public double getCurrentDrawdown() {
+        return equity / peak - 1.0;
+    }
+
+    /**
+     * 最近一个交易日的平均净仓位
+     * @return 净仓位
+     */
+    public double getNetExposure() {
+        return netExposure;
+    }
+
+    /**
+     * 回测状态快照 - 不可变，可序列化保存以便下次运行时恢复
+     */
+    public static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final TradingStrategy strategy;
+        private final int lastEpochDay;
+        private final double equity;
+        private final double peak;
+        private final double maxDrawdown;
+        private final double netExposure;
+        private final long days;
+        private final double meanReturn;
+        private final double m2;
+        private final int[] dates;
+        private final double[] equityCurve;
+        private final double[] drawdownCurve;
+
+        private Snapshot(TradingStrategy strategy, int lastEpochDay, double equity, double peak, double maxDrawdown,
+                         double netExposure, long days, double meanReturn, double m2,
+                         int[] dates, double[] equityCurve, double[] drawdownCurve) {
+            this.strategy = strategy;
+            this.lastEpochDay = lastEpochDay;
+            this.equity = equity;
+            this.peak = peak;
+            this.maxDrawdown = maxDrawdown;
+            this.netExposure = netExposure;
+            this.days = days;
+            this.meanReturn = meanReturn;
+            this.m2 = m2;
+            this.dates = dates;
+            this.equityCurve = equityCurve;
+            this.drawdownCurve = drawdownCurve;
+        }
+
+        public TradingStrategy getStrategy() {
+            return strategy;
+        }
+
+        public int getLastEpochDay() {
+            return lastEpochDay;
+        }
+
+        public long getDays() {
+            return days;
+        }
+    }
+}
\ No newline at end of file
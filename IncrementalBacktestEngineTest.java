@@ -0,0 +1,101 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 增量回测引擎测试类
+ */
+public class IncrementalBacktestEngineTest {
+    private FactorFrame frame;
+
+    @BeforeEach
+    void setUp() {
+        // 准备测试数据：40个交易日，每日4个标的，信号与收益随机
+        Random random = new Random(7);
+        List<FactorData> data = new ArrayList<>();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int day = 0; day < 40; day++) {
+            for (int symbol = 0; symbol < 4; symbol++) {
+                FactorData row = new FactorData(start.plusDays(day), new double[]{symbol}, 0.0);
+                row.setFactorValue(random.nextGaussian());
+                row.setReturn(random.nextGaussian() * 0.01);
+                data.add(row);
+            }
+        }
+        frame = FactorFrame.from(data);
+    }
+
+    @Test
+    void testResumeFromSnapshotMatchesFullRun() {
+        IncrementalBacktestEngine full = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        assertEquals(40, full.process(frame));
+
+        IncrementalBacktestEngine first = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        first.process(frame.slice(0, 25 * 4));
+        IncrementalBacktestEngine resumed = IncrementalBacktestEngine.resume(first.snapshot());
+        // 传入完整历史时只处理快照之后的15天
+        assertEquals(15, resumed.process(frame));
+
+        assertEquals(full.getDays(), resumed.getDays());
+        assertEquals(full.getEquity(), resumed.getEquity(), 1e-12);
+        assertEquals(full.getMaxDrawdown(), resumed.getMaxDrawdown(), 1e-12);
+        assertEquals(full.getSharpeRatio(), resumed.getSharpeRatio(), 1e-9);
+        assertEquals(full.toResult("m").getEquityCurve(), resumed.toResult("m").getEquityCurve());
+    }
+
+    @Test
+    void testResumeOnShuffledNewRowsMatchesFullRun() {
+        IncrementalBacktestEngine full = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        full.process(frame);
+
+        IncrementalBacktestEngine resumed = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        resumed.process(frame.slice(0, 25 * 4));
+        // 新交易日的行逆序复制出来，只需对这些行排序
+        int[] newRows = new int[15 * 4];
+        for (int i = 0; i < newRows.length; i++) {
+            newRows[i] = frame.rowCount() - 1 - i;
+        }
+        FactorFrame shuffled = frame.copyRows(newRows, newRows.length);
+        assertEquals(frame.symbolId(newRows[5]), shuffled.symbolId(5));
+        assertEquals(frame.factorValue(newRows[5]), shuffled.factorValue(5));
+
+        assertEquals(15, resumed.process(shuffled));
+        assertEquals(full.getEquity(), resumed.getEquity(), 1e-12);
+        assertArrayEquals(full.toResult("m").epochDayArray(), resumed.toResult("m").epochDayArray());
+    }
+
+    @Test
+    void testWelfordSharpeMatchesTwoPassComputation() {
+        double[] returns = {0.01, -0.02, 0.015, 0.003, -0.007, 0.02};
+        IncrementalBacktestEngine engine = new IncrementalBacktestEngine(TradingStrategy.LONGONLY);
+        for (int i = 0; i < returns.length; i++) {
+            engine.onDay(19000 + i, returns[i]);
+        }
+
+        double mean = 0.0;
+        for (double r : returns) {
+            mean += r / returns.length;
+        }
+        double variance = 0.0;
+        for (double r : returns) {
+            variance += (r - mean) * (r - mean) / (returns.length - 1);
+        }
+        assertEquals(mean / Math.sqrt(variance) * Math.sqrt(252), engine.getSharpeRatio(), 1e-9);
+    }
+
+    @Test
+    void testRejectsOutOfOrderDay() {
+        IncrementalBacktestEngine engine = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        engine.onDay(19000, 0.01);
+        assertThrows(IllegalArgumentException.class, () -> engine.onDay(19000, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> engine.onDay(18999, 0.01));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.quant.altdata;
+
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 延迟初始化的引擎子系统 - 首次使用时才构造，并报告构造耗时
+ * <p>
+ * 构造在锁内执行，并发的首次访问（包括后台预热和前台调用）只构造一次，后到的调用等待构造完成；
+ * 构造完成后的读取只是一次volatile读。
+ * @param <T> 子系统类型
+ */
+final class LazySubsystem<T> {
+    private final String name;
+    private final Supplier<T> factory;
+    private final ObjLongConsumer<String> timingListener;
+    private volatile T instance;
+
+    /**
+     * 构造函数
+     * @param name 子系统名称
+     * @param factory 构造子系统的工厂
+     * @param timingListener 构造完成后接收名称和耗时（纳秒）
+     */
+    LazySubsystem(String name, Supplier<T> factory, ObjLongConsumer<String> timingListener) {
+        this.name = name;
+        this.factory = factory;
+        this.timingListener = timingListener;
+    }
+
+    /**
+     * 获取子系统，尚未构造时在当前线程构造
+     * @return 子系统实例
+     */
+    T get() {
+        T value = instance;
+        if (value == null) {
+            synchronized (this) {
+                value = instance;
+                if (value == null) {
+                    long start = System.nanoTime();
+                    value = factory.get();
+                    timingListener.accept(name, System.nanoTime() - start);
+                    instance = value;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 获取已构造的子系统，不触发构造
+     * @return 子系统实例，尚未构造时返回null
+     */
+    T getIfBuilt() {
+        return instance;
+    }
+
+    String getName() {
+        return name;
+    }
+}
\ No newline at end of file
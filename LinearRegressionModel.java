@@ -0,0 +1,300 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 线性回归因子模型 - 通过正规方程求解带截距的最小二乘回归
+ * <p>
+ * 模型保留充分统计量X'X和X'y，update()把新数据累加进统计量后重新求解，
+ * 结果与在全部历史上重新训练完全一致，开销只与新数据量和特征数有关。
+ */
+public class LinearRegressionModel implements FactorModel {
+    private static final Logger logger = LoggerFactory.getLogger(LinearRegressionModel.class);
+    private static final double RIDGE = 1e-8;
+
+    private final int inputSize;
+    private final double[] weights;
+    private final double[][] xtx;
+    private final double[] xty;
+    private long sampleCount;
+    private double intercept;
+    private boolean isTrained = false;
+
+    /**
+     * 构造函数
+     * @param inputSize 输入特征数量
+     */
+    public LinearRegressionModel(int inputSize) {
+        this.inputSize = inputSize;
+        this.weights = new double[inputSize];
+        this.xtx = new double[inputSize + 1][inputSize + 1];
+        this.xty = new double[inputSize + 1];
+    }
+
+    @Override
+    public void train(List<FactorData> trainingData, int epochs) {
+        if (trainingData == null || trainingData.isEmpty()) {
+            throw new IllegalArgumentException("Training data cannot be null or empty");
+        }
+
+        logger.info("Training LinearRegressionModel with {} samples (closed form, epochs ignored: {})", trainingData.size(), epochs);
+
+        for (double[] xtxRow : xtx) {
+            Arrays.fill(xtxRow, 0.0);
+        }
+        Arrays.fill(xty, 0.0);
+        sampleCount = 0;
+        accumulateAll(trainingData);
+
+        solve(xtx, xty);
+        isTrained = true;
+        logger.info("LinearRegressionModel training completed. Intercept: {}", intercept);
+    }
+
+    /**
+     * 把新数据累加进充分统计量后重新求解，等价于在全部历史加新数据上重新训练
+     * @param newData 新增数据
+     */
+    @Override
+    public void update(List<FactorData> newData) {
+        if (newData == null || newData.isEmpty()) {
+            throw new IllegalArgumentException("Update data cannot be null or empty");
+        }
+        if (isTrained && sampleCount == 0) {
+            throw new IllegalStateException("Sufficient statistics are not available; retrain before updating");
+        }
+
+        accumulateAll(newData);
+        solve(xtx, xty);
+        isTrained = true;
+        logger.info("LinearRegressionModel updated with {} samples ({} in total). Intercept: {}",
+                newData.size(), sampleCount, intercept);
+    }
+
+    /**
+     * 累积增广矩阵[1, x]的X'X和X'y
+     */
+    private void accumulateAll(List<FactorData> data) {
+        double[] row = new double[inputSize + 1];
+        row[0] = 1.0;
+        for (FactorData item : data) {
+            double[] features = item.getFeatures();
+            if (features.length != inputSize) {
+                throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + features.length);
+            }
+            System.arraycopy(features, 0, row, 1, inputSize);
+            accumulate(xtx, xty, row, item.getTarget());
+        }
+        sampleCount += data.size();
+    }
+
+    private static void accumulate(double[][] xtx, double[] xty, double[] row, double target) {
+        int n = row.length;
+        for (int a = 0; a < n; a++) {
+            double value = row[a];
+            xty[a] += value * target;
+            double[] xtxRow = xtx[a];
+            for (int b = 0; b < n; b++) {
+                xtxRow[b] += value * row[b];
+            }
+        }
+    }
+
+    /**
+     * 用部分主元高斯消元求解(X'X + λI)β = X'y
+     */
+    private void solve(double[][] xtx, double[] xty) {
+        int n = xty.length;
+        double[][] a = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(xtx[i], 0, a[i], 0, n);
+            a[i][i] += RIDGE;
+            a[i][n] = xty[i];
+        }
+
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) {
+                if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) {
+                    pivot = r;
+                }
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            if (Math.abs(a[col][col]) < 1e-15) {
+                throw new IllegalStateException("Singular design matrix in linear regression");
+            }
+            for (int r = col + 1; r < n; r++) {
+                double factor = a[r][col] / a[col][col];
+                for (int c = col; c <= n; c++) {
+                    a[r][c] -= factor * a[col][c];
+                }
+            }
+        }
+
+        double[] beta = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = a[r][n];
+            for (int c = r + 1; c < n; c++) {
+                sum -= a[r][c] * beta[c];
+            }
+            beta[r] = sum / a[r][r];
+        }
+
+        intercept = beta[0];
+        System.arraycopy(beta, 1, weights, 0, inputSize);
+    }
+
+    @Override
+    public double predict(double[] features) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+
+        if (features == null || features.length != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + (features == null ? 0 : features.length));
+        }
+
+        double result = intercept;
+        for (int j = 0; j < inputSize; j++) {
+            result += weights[j] * features[j];
+        }
+        return result;
+    }
+
+    @Override
+    public void predictBatch(double[] features, int rows, double[] output) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+        FactorModel.checkBatch(features, rows, inputSize, output);
+
+        for (int i = 0; i < rows; i++) {
+            int base = i * inputSize;
+            double result = intercept;
+            for (int j = 0; j < inputSize; j++) {
+                result += weights[j] * features[base + j];
+            }
+            output[i] = result;
+        }
+    }
+
+    /**
+     * 列式批量预测：按特征列累加，内层循环为连续数组上的乘加
+     */
+    @Override
+    public void predictBatch(FactorFrame batch, double[] output) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+        if (batch.featureCount() != inputSize) {
+            throw new IllegalArgumentException("Feature size mismatch: expected " + inputSize + ", got " + batch.featureCount());
+        }
+        int rows = batch.rowCount();
+        FactorModel.checkOutput(rows, output);
+
+        Arrays.fill(output, 0, rows, intercept);
+        double[] columns = batch.featureArray();
+        for (int j = 0; j < inputSize; j++) {
+            double weight = weights[j];
+            int base = batch.featureOffset(j);
+            for (int i = 0; i < rows; i++) {
+                output[i] += weight * columns[base + i];
+            }
+        }
+    }
+
+    @Override
+    public double evaluate(List<FactorData> testData) {
+        if (!isTrained) {
+            throw new IllegalStateException("Model has not been trained yet");
+        }
+
+        if (testData == null || testData.isEmpty()) {
+            throw new IllegalArgumentException("Test data cannot be null or empty");
+        }
+
+        double sumSquaredError = 0;
+        for (FactorData data : testData) {
+            double error = predict(data.getFeatures()) - data.getTarget();
+            sumSquaredError += error * error;
+        }
+        double mse = sumSquaredError / testData.size();
+        logger.info("Model evaluation completed. Test MSE: {}", mse);
+        return mse;
+    }
+
+    @Override
+    public FactorModel copy() {
+        LinearRegressionModel copy = new LinearRegressionModel(inputSize);
+        System.arraycopy(weights, 0, copy.weights, 0, inputSize);
+        for (int a = 0; a <= inputSize; a++) {
+            System.arraycopy(xtx[a], 0, copy.xtx[a], 0, inputSize + 1);
+        }
+        System.arraycopy(xty, 0, copy.xty, 0, inputSize + 1);
+        copy.sampleCount = sampleCount;
+        copy.intercept = intercept;
+        copy.isTrained = isTrained;
+        return copy;
+    }
+
+    /**
+     * 由检查点恢复已训练的模型
+     * @param weights 各特征的回归系数
+     * @param intercept 截距
+     * @param xtx 充分统计量X'X，为null时恢复的模型只能预测、不能增量更新
+     * @param xty 充分统计量X'y
+     * @param sampleCount 统计量包含的样本数
+     * @return 已训练的模型
+     */
+    static LinearRegressionModel restore(double[] weights, double intercept, double[][] xtx, double[] xty, long sampleCount) {
+        LinearRegressionModel model = new LinearRegressionModel(weights.length);
+        System.arraycopy(weights, 0, model.weights, 0, weights.length);
+        if (xtx != null) {
+            for (int a = 0; a < xtx.length; a++) {
+                System.arraycopy(xtx[a], 0, model.xtx[a], 0, xtx.length);
+            }
+            System.arraycopy(xty, 0, model.xty, 0, xty.length);
+            model.sampleCount = sampleCount;
+        }
+        model.intercept = intercept;
+        model.isTrained = true;
+        return model;
+    }
+
+    double[][] getSufficientXtx() {
+        return xtx;
+    }
+
+    double[] getSufficientXty() {
+        return xty;
+    }
+
+    long getSampleCount() {
+        return sampleCount;
+    }
+
+    double[] getWeights() {
+        return weights.clone();
+    }
+
+    double getIntercept() {
+        return intercept;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return isTrained;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 线性回归模型测试类
+ */
+public class LinearRegressionModelTest {
+
+    private static List<FactorData> noisyData(int from, int to) {
+        List<FactorData> data = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            double[] features = {Math.sin(i), Math.cos(i * 0.7), (i % 13) / 13.0};
+            double noise = ((i * 7919) % 101 - 50) / 500.0;
+            data.add(new FactorData(LocalDate.of(2020, 1, 1).plusDays(i), features,
+                    0.1 + 1.5 * features[0] - 0.5 * features[1] + 2.0 * features[2] + noise));
+        }
+        return data;
+    }
+
+    @Test
+    void testUpdateMatchesFullRetrain() {
+        LinearRegressionModel full = new LinearRegressionModel(3);
+        List<FactorData> all = noisyData(0, 600);
+        full.train(all, 1);
+
+        LinearRegressionModel incremental = new LinearRegressionModel(3);
+        incremental.train(noisyData(0, 500), 1);
+        FactorModel shadow = incremental.copy();
+        shadow.update(noisyData(500, 550));
+        shadow.update(noisyData(550, 600));
+
+        double[] probe = {0.3, -0.2, 0.8};
+        assertEquals(full.predict(probe), shadow.predict(probe), 1e-9);
+        assertNotEquals(full.predict(probe), incremental.predict(probe), 1e-9);
+        assertEquals(600, ((LinearRegressionModel) shadow).getSampleCount());
+    }
+
+    @Test
+    void testRestoredModelWithoutStatisticsRejectsUpdate() {
+        LinearRegressionModel restored = LinearRegressionModel.restore(new double[]{1, 2, 3}, 0.5, null, null, 0);
+
+        assertEquals(0.5 + 1 + 2 + 3, restored.predict(new double[]{1, 1, 1}), 1e-12);
+        assertThrows(IllegalStateException.class, () -> restored.update(noisyData(0, 10)));
+    }
+}
\ No newline at end of file
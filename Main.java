@@ -6,23 +6,32 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 应用程序入口类
+ * <p>
+ * 引擎子系统在首次使用时才初始化；需要预热的子系统通过配置项engine.warmup指定，由引擎在构造后于后台预热，
+ * 与主线程的工作重叠。入口在结束时输出各启动阶段的耗时。配合run-fast.sh的AppCDS归档可以进一步缩短类加载时间。
  */
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
     public static void main(String[] args) {
+        long launchStart = System.nanoTime();
         logger.info("Starting AltDataFactorEngine");
 
         try {
             // 加载配置
-            Properties config = loadConfig("config.properties");
+            long phaseStart = System.nanoTime();
+            Properties config = loadConfig(args.length > 0 ? args[0] : "config.properties");
+            long configMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart);
 
-            // 初始化引擎
+            // 初始化引擎，子系统按需构造，engine.warmup中列出的部分在后台预热
+            phaseStart = System.nanoTime();
             AltDataFactorEngine engine = new AltDataFactorEngine(config);
-            logger.info("AltDataFactorEngine initialized successfully");
+            logger.info("AltDataFactorEngine initialized successfully in {} ms (config {} ms)",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart), configMillis);
 
             // 示例：从新闻数据源获取数据
             LocalDateTime startDate = LocalDateTime.now().minusDays(30);
@@ -40,6 +49,9 @@ public class Main {
             // 示例：可视化结果
             engine.visualizeResults(factorData, backtestResult);
 
+            engine.getStartupTimings().forEach((phase, millis) -> logger.info("Startup phase {}: {} ms", phase, millis));
+            logger.info("Finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchStart));
+            engine.shutdown();
         } catch (Exception e) {
             logger.error("Application failed: {}", e.getMessage(), e);
             System.exit(1);
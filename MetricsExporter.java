@@ -0,0 +1,150 @@
+package com.quant.altdata.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标导出器 - 定期把指标写入本地文件，或在本机回环地址上提供/metrics端点
+ * <p>
+ * 导出只在后台线程或HTTP请求线程上读取计数器，不影响记录路径。
+ */
+public class MetricsExporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExporter.class);
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final long intervalSeconds;
+    private final int httpPort;
+    private ScheduledExecutorService scheduler;
+    private HttpServer server;
+
+    /**
+     * 构造函数
+     * @param registry 指标注册表
+     * @param file 导出文件路径，为null时不写文件
+     * @param intervalSeconds 写文件间隔（秒）
+     * @param httpPort HTTP端口，负数表示不开启端点，0表示随机端口
+     */
+    public MetricsExporter(MetricsRegistry registry, Path file, long intervalSeconds, int httpPort) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Export interval must be positive: " + intervalSeconds);
+        }
+        this.registry = registry;
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+        this.httpPort = httpPort;
+    }
+
+    /**
+     * 根据配置创建导出器：metrics.export.file、metrics.export.intervalSeconds（默认60）、metrics.http.port
+     * @param registry 指标注册表
+     * @param config 配置属性
+     * @return 导出器，未配置任何导出方式时返回null
+     */
+    public static MetricsExporter fromConfig(MetricsRegistry registry, Properties config) {
+        String file = config.getProperty("metrics.export.file");
+        String port = config.getProperty("metrics.http.port");
+        if (file == null && port == null) {
+            return null;
+        }
+        return new MetricsExporter(registry, file == null ? null : Paths.get(file),
+                Long.parseLong(config.getProperty("metrics.export.intervalSeconds", "60")),
+                port == null ? -1 : Integer.parseInt(port));
+    }
+
+    /**
+     * 启动定时文件导出和HTTP端点
+     */
+    public synchronized void start() {
+        if (file != null && scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::exportQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            logger.info("Exporting metrics to {} every {} s", file, intervalSeconds);
+        }
+        if (httpPort >= 0 && server == null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to bind metrics endpoint on port " + httpPort, e);
+            }
+            server.createContext("/metrics", exchange -> {
+                byte[] body = registry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            logger.info("Serving metrics on http://{}:{}/metrics", server.getAddress().getHostString(), getHttpPort());
+        }
+    }
+
+    /**
+     * 把当前指标写入文件，先写临时文件再原子替换，读取方不会看到写了一半的内容
+     * @param target 目标文件
+     * @throws IOException 写入失败
+     */
+    public void writeTo(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, registry.toPrometheusText().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void exportQuietly() {
+        try {
+            writeTo(file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to export metrics to {}", file, e);
+        }
+    }
+
+    /**
+     * 实际监听的HTTP端口
+     * @return 端口号，未开启端点时返回-1
+     */
+    public synchronized int getHttpPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * 停止导出，配置了文件时在退出前写入最后一次指标
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            exportQuietly();
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.quant.altdata.metrics;
+
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 指标注册表 - 记录各热点阶段的调用次数、处理记录数、延迟分布以及按错误代码分类的失败次数
+ * <p>
+ * 所有计数器在构造时一次性创建，记录路径只做LongAdder累加和直方图桶自增，不加锁、不分配对象，
+ * 可以在生产环境常开。超过慢调用阈值的调用会额外输出一条WARN日志，作为轻量的调用追踪。
+ */
+public class MetricsRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    /**
+     * 被监控的阶段
+     */
+    public enum Stage {
+        FETCH,
+        PROCESS,
+        TRAIN,
+        PREDICT,
+        BACKTEST
+    }
+
+    private final boolean enabled;
+    private final long slowNanos;
+    private final Map<Stage, StageStats> stages = new EnumMap<>(Stage.class);
+    private final Map<FactorEngineException.ErrorCode, LongAdder> failures =
+            new EnumMap<>(FactorEngineException.ErrorCode.class);
+
+    /**
+     * 构造函数
+     * @param enabled 是否记录指标，关闭时start/stop均为空操作
+     * @param slowNanos 慢调用阈值（纳秒），0表示不输出慢调用日志
+     */
+    public MetricsRegistry(boolean enabled, long slowNanos) {
+        if (slowNanos < 0) {
+            throw new IllegalArgumentException("Slow call threshold must be non-negative: " + slowNanos);
+        }
+        this.enabled = enabled;
+        this.slowNanos = slowNanos;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageStats());
+        }
+        for (FactorEngineException.ErrorCode code : FactorEngineException.ErrorCode.values()) {
+            failures.put(code, new LongAdder());
+        }
+    }
+
+    /**
+     * 根据配置创建指标注册表
+     * @param config 配置属性，metrics.enabled（默认true）、metrics.trace.slowMillis（默认0）
+     * @return 指标注册表
+     */
+    public static MetricsRegistry fromConfig(Properties config) {
+        boolean enabled = Boolean.parseBoolean(config.getProperty("metrics.enabled", "true"));
+        long slowMillis = Long.parseLong(config.getProperty("metrics.trace.slowMillis", "0"));
+        return new MetricsRegistry(enabled, slowMillis * 1_000_000L);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开始计时
+     * @return 起始时间戳，传给stop
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 结束计时并记录一次阶段调用
+     * @param stage 阶段
+     * @param startNanos start()返回的时间戳
+     * @param records 本次处理的记录数
+     */
+    public void stop(Stage stage, long startNanos, long records) {
+        if (!enabled) {
+            return;
+        }
+        record(stage, System.nanoTime() - startNanos, records);
+    }
+
+    /**
+     * 记录一次已在别处计时的阶段调用，例如流水线各阶段的单个批次
+     * @param stage 阶段
+     * @param elapsedNanos 耗时（纳秒）
+     * @param records 本次处理的记录数
+     */
+    public void record(Stage stage, long elapsedNanos, long records) {
+        if (!enabled) {
+            return;
+        }
+        stages.get(stage).record(elapsedNanos, records);
+        if (slowNanos > 0 && elapsedNanos >= slowNanos) {
+            logger.warn("Slow {} call took {} ms for {} records", stage, elapsedNanos / 1_000_000, records);
+        }
+    }
+
+    /**
+     * 记录一次失败
+     * @param errorCode 错误代码
+     */
+    public void recordFailure(FactorEngineException.ErrorCode errorCode) {
+        if (enabled) {
+            failures.get(errorCode == null ? FactorEngineException.ErrorCode.UNKNOWN_ERROR : errorCode).increment();
+        }
+    }
+
+    /**
+     * 获取阶段统计
+     * @param stage 阶段
+     * @return 阶段统计
+     */
+    public StageStats getStage(Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * 获取某错误代码的失败次数
+     * @param errorCode 错误代码
+     * @return 失败次数
+     */
+    public long getFailureCount(FactorEngineException.ErrorCode errorCode) {
+        return failures.get(errorCode).sum();
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        stages.values().forEach(StageStats::reset);
+        failures.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * 以Prometheus文本格式导出当前指标，文件导出和HTTP端点共用该格式
+     * @return 指标文本
+     */
+    public String toPrometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# TYPE altdata_stage_calls_total counter\n");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            appendSample(sb, "altdata_stage_calls_total", entry.getKey(), null, entry.getValue().getCalls());
+        }
+        sb.append("# TYPE altdata_stage_records_total counter\n");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            appendSample(sb, "altdata_stage_records_total", entry.getKey(), null, entry.getValue().getRecords());
+        }
+        sb.append("# TYPE altdata_stage_records_per_second gauge\n");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            appendSample(sb, "altdata_stage_records_per_second", entry.getKey(), null,
+                    entry.getValue().getRecordsPerSecond());
+        }
+        sb.append("# TYPE altdata_stage_latency_seconds summary\n");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            LatencyHistogram latency = entry.getValue().getLatency();
+            for (String quantile : new String[]{"0.5", "0.9", "0.99", "0.999"}) {
+                appendSample(sb, "altdata_stage_latency_seconds", entry.getKey(), quantile,
+                        latency.getPercentileNanos(Double.parseDouble(quantile) * 100) / 1e9);
+            }
+            appendSample(sb, "altdata_stage_latency_seconds_sum", entry.getKey(), null,
+                    entry.getValue().getBusyNanos() / 1e9);
+            appendSample(sb, "altdata_stage_latency_seconds_count", entry.getKey(), null, latency.getCount());
+        }
+        sb.append("# TYPE altdata_stage_latency_max_seconds gauge\n");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            appendSample(sb, "altdata_stage_latency_max_seconds", entry.getKey(), null,
+                    entry.getValue().getLatency().getMaxNanos() / 1e9);
+        }
+        sb.append("# TYPE altdata_failures_total counter\n");
+        for (Map.Entry<FactorEngineException.ErrorCode, LongAdder> entry : failures.entrySet()) {
+            sb.append("altdata_failures_total{code=\"").append(entry.getKey().name())
+                    .append("\",number=\"").append(entry.getKey().getCode()).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendSample(StringBuilder sb, String name, Stage stage, String quantile, double value) {
+        sb.append(name).append("{stage=\"").append(stage.name().toLowerCase(Locale.ROOT)).append('"');
+        if (quantile != null) {
+            sb.append(",quantile=\"").append(quantile).append('"');
+        }
+        sb.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 单个阶段的统计：调用次数、记录数、累计耗时和延迟直方图
+     */
+    public static final class StageStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        void record(long elapsedNanos, long recordCount) {
+            latency.record(elapsedNanos);
+            calls.increment();
+            records.add(recordCount);
+            busyNanos.add(elapsedNanos);
+        }
+
+        void reset() {
+            latency.reset();
+            calls.reset();
+            records.reset();
+            busyNanos.reset();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getRecords() {
+            return records.sum();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.sum();
+        }
+
+        /**
+         * 阶段吞吐量，按阶段实际耗时（而非墙钟时间）计算
+         * @return 每秒记录数
+         */
+        public double getRecordsPerSecond() {
+            long nanos = busyNanos.sum();
+            return nanos == 0 ? 0.0 : records.sum() * 1e9 / nanos;
+        }
+    }
+}
\ No newline at end of file
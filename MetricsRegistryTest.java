@@ -0,0 +1,82 @@
+package com.quant.altdata.metrics;
+
+import com.quant.altdata.exception.FactorEngineException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 指标注册表测试类
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    void testStageAndFailureCounters() {
+        MetricsRegistry registry = new MetricsRegistry(true, 0);
+        long start = registry.start();
+        registry.stop(MetricsRegistry.Stage.PROCESS, start - 2_000_000, 1000);
+        registry.stop(MetricsRegistry.Stage.PROCESS, registry.start() - 2_000_000, 3000);
+        registry.recordFailure(FactorEngineException.ErrorCode.DATA_FETCH_ERROR);
+        registry.recordFailure(null);
+
+        MetricsRegistry.StageStats stats = registry.getStage(MetricsRegistry.Stage.PROCESS);
+        assertEquals(2, stats.getCalls());
+        assertEquals(4000, stats.getRecords());
+        assertTrue(stats.getRecordsPerSecond() > 0 && stats.getRecordsPerSecond() <= 1_000_000);
+        assertTrue(stats.getLatency().getPercentileNanos(50) >= 2_000_000 * 63 / 64);
+        assertEquals(1, registry.getFailureCount(FactorEngineException.ErrorCode.DATA_FETCH_ERROR));
+        assertEquals(1, registry.getFailureCount(FactorEngineException.ErrorCode.UNKNOWN_ERROR));
+
+        String text = registry.toPrometheusText();
+        assertTrue(text.contains("altdata_stage_records_total{stage=\"process\"} 4000"));
+        assertTrue(text.contains("altdata_failures_total{code=\"DATA_FETCH_ERROR\",number=\"1001\"} 1"));
+    }
+
+    @Test
+    void testRecordExternallyTimedBatches() {
+        // 流水线各阶段按批次上报已测得的耗时
+        MetricsRegistry registry = new MetricsRegistry(true, 0);
+        registry.record(MetricsRegistry.Stage.PREDICT, 5_000_000, 64);
+        registry.record(MetricsRegistry.Stage.PREDICT, 3_000_000, 32);
+
+        MetricsRegistry.StageStats stats = registry.getStage(MetricsRegistry.Stage.PREDICT);
+        assertEquals(2, stats.getCalls());
+        assertEquals(96, stats.getRecords());
+        assertEquals(8_000_000, stats.getBusyNanos());
+        assertEquals(0, registry.getStage(MetricsRegistry.Stage.FETCH).getCalls());
+    }
+
+    @Test
+    void testDisabledRegistryRecordsNothing() {
+        MetricsRegistry registry = new MetricsRegistry(false, 0);
+        registry.stop(MetricsRegistry.Stage.FETCH, registry.start(), 10);
+        registry.recordFailure(FactorEngineException.ErrorCode.BACKTEST_ERROR);
+
+        assertEquals(0, registry.getStage(MetricsRegistry.Stage.FETCH).getCalls());
+        assertEquals(0, registry.getFailureCount(FactorEngineException.ErrorCode.BACKTEST_ERROR));
+    }
+
+    @Test
+    void testExportToFileAndEndpoint(@TempDir Path dir) throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(true, 0);
+        registry.stop(MetricsRegistry.Stage.PREDICT, registry.start(), 5000);
+        Path file = dir.resolve("metrics/engine.prom");
+
+        try (MetricsExporter exporter = new MetricsExporter(registry, file, 3600, 0)) {
+            exporter.start();
+            exporter.writeTo(file);
+            assertTrue(Files.readString(file).contains("altdata_stage_records_total{stage=\"predict\"} 5000"));
+
+            URL url = new URL("http://127.0.0.1:" + exporter.getHttpPort() + "/metrics");
+            try (InputStream in = url.openStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(body.contains("altdata_stage_calls_total{stage=\"predict\"} 1"));
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.exception.FactorEngineException;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 模型检查点 - 把已发布的模型版本保存为紧凑的二进制文件，并在启动时恢复
+ * <p>
+ * 文件格式（大端序）：魔数、格式版本、模型名称、版本号、发布时间，随后是模型本体。
+ * 模型本体以类型字节开头：线性模型保存截距、系数和充分统计量；深度学习模型保存DL4J序列化的网络参数和优化器状态、
+ * 回放窗口和微调设置以及回放数据；集成模型依次保存每个成员的权重、误差估计和成员模型本体。
+ * 恢复后的模型可以直接增量更新。只读取当前格式版本，其他版本的检查点被拒绝，需要重新训练后保存。
+ */
+public final class ModelCheckpoint {
+    private static final int MAGIC = 0x41464D43;
+    private static final short FORMAT_VERSION = 3;
+    private static final byte TYPE_LINEAR = 1;
+    private static final byte TYPE_DEEP_LEARNING = 2;
+    private static final byte TYPE_ENSEMBLE = 3;
+
+    private ModelCheckpoint() {
+    }
+
+    /**
+     * 保存模型版本，先写临时文件再原子替换，读取方不会看到写了一半的检查点
+     * @param version 模型版本
+     * @param path 检查点文件
+     */
+    public static void save(ModelVersion version, Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeShort(FORMAT_VERSION);
+                    out.writeUTF(version.getName());
+                    out.writeLong(version.getVersion());
+                    out.writeLong(version.getPublishedAt().toEpochMilli());
+                    writeModel(out, version.getModel());
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Failed to save checkpoint of model " + version.getName() + " to " + path, e);
+        }
+    }
+
+    /**
+     * 读取检查点
+     * @param path 检查点文件
+     * @param ensembleExecutor 恢复的集成模型使用的执行器，可以为null
+     * @return 模型版本
+     */
+    public static ModelVersion load(Path path, ExecutorService ensembleExecutor) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a model checkpoint");
+            }
+            short format = in.readShort();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported checkpoint format version " + format);
+            }
+            String name = in.readUTF();
+            long version = in.readLong();
+            Instant publishedAt = Instant.ofEpochMilli(in.readLong());
+            return new ModelVersion(name, version, readModel(in, ensembleExecutor), publishedAt);
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR,
+                    "Failed to load model checkpoint " + path, e);
+        }
+    }
+
+    private static void writeModel(DataOutputStream out, FactorModel model) throws IOException {
+        if (model instanceof LinearRegressionModel) {
+            LinearRegressionModel linear = (LinearRegressionModel) model;
+            out.writeByte(TYPE_LINEAR);
+            out.writeInt(linear.getInputSize());
+            out.writeBoolean(linear.isTrained());
+            out.writeDouble(linear.getIntercept());
+            for (double weight : linear.getWeights()) {
+                out.writeDouble(weight);
+            }
+            out.writeLong(linear.getSampleCount());
+            for (double[] row : linear.getSufficientXtx()) {
+                for (double value : row) {
+                    out.writeDouble(value);
+                }
+            }
+            for (double value : linear.getSufficientXty()) {
+                out.writeDouble(value);
+            }
+        } else if (model instanceof DeepLearningFactorModel) {
+            DeepLearningFactorModel deepLearning = (DeepLearningFactorModel) model;
+            ByteArrayOutputStream network = new ByteArrayOutputStream();
+            ModelSerializer.writeModel(deepLearning.getNetwork(), network, true);
+            out.writeByte(TYPE_DEEP_LEARNING);
+            out.writeInt(deepLearning.getInputSize());
+            out.writeBoolean(deepLearning.isTrained());
+            out.writeInt(network.size());
+            network.writeTo(out);
+            out.writeInt(deepLearning.getReplayWindow());
+            out.writeInt(deepLearning.getFineTuneEpochs());
+            int replaySize = deepLearning.getReplaySize();
+            double[] features = new double[replaySize * deepLearning.getInputSize()];
+            double[] labels = new double[replaySize];
+            deepLearning.copyReplay(features, labels);
+            out.writeInt(replaySize);
+            for (double value : features) {
+                out.writeDouble(value);
+            }
+            for (double value : labels) {
+                out.writeDouble(value);
+            }
+        } else if (model instanceof EnsembleModel) {
+            EnsembleModel ensemble = (EnsembleModel) model;
+            out.writeByte(TYPE_ENSEMBLE);
+            out.writeInt(ensemble.getMemberCount());
+            for (int m = 0; m < ensemble.getMemberCount(); m++) {
+                out.writeDouble(ensemble.getWeight(m));
+                out.writeDouble(ensemble.getMemberError(m));
+                writeModel(out, ensemble.getMember(m));
+            }
+        } else {
+            throw new IllegalArgumentException("Checkpointing is not supported for " + model.getClass().getSimpleName());
+        }
+    }
+
+    private static FactorModel readModel(DataInputStream in, ExecutorService ensembleExecutor) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_LINEAR: {
+                int inputSize = in.readInt();
+                boolean trained = in.readBoolean();
+                double intercept = in.readDouble();
+                double[] weights = new double[inputSize];
+                for (int j = 0; j < inputSize; j++) {
+                    weights[j] = in.readDouble();
+                }
+                long sampleCount = in.readLong();
+                double[][] xtx = new double[inputSize + 1][inputSize + 1];
+                double[] xty = new double[inputSize + 1];
+                for (double[] row : xtx) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] = in.readDouble();
+                    }
+                }
+                for (int j = 0; j < xty.length; j++) {
+                    xty[j] = in.readDouble();
+                }
+                return trained ? LinearRegressionModel.restore(weights, intercept, xtx, xty, sampleCount)
+                        : new LinearRegressionModel(inputSize);
+            }
+            case TYPE_DEEP_LEARNING: {
+                int inputSize = in.readInt();
+                boolean trained = in.readBoolean();
+                byte[] network = new byte[in.readInt()];
+                in.readFully(network);
+                MultiLayerNetwork restored = ModelSerializer.restoreMultiLayerNetwork(new ByteArrayInputStream(network), true);
+                DeepLearningFactorModel model = DeepLearningFactorModel.restore(inputSize, restored, trained);
+                // 先恢复窗口大小，回放数据按该窗口截取
+                model.setReplayWindow(in.readInt());
+                model.setFineTuneEpochs(in.readInt());
+                int replaySize = in.readInt();
+                double[] features = new double[replaySize * inputSize];
+                double[] labels = new double[replaySize];
+                for (int j = 0; j < features.length; j++) {
+                    features[j] = in.readDouble();
+                }
+                for (int j = 0; j < replaySize; j++) {
+                    labels[j] = in.readDouble();
+                }
+                model.restoreReplay(features, labels);
+                return model;
+            }
+            case TYPE_ENSEMBLE: {
+                int members = in.readInt();
+                EnsembleModel ensemble = new EnsembleModel(ensembleExecutor);
+                for (int m = 0; m < members; m++) {
+                    double weight = in.readDouble();
+                    double error = in.readDouble();
+                    ensemble.addModel(readModel(in, ensembleExecutor), weight);
+                    ensemble.setMemberError(m, error);
+                }
+                return ensemble;
+            }
+            default:
+                throw new IOException("Unknown model type " + type);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.quant.altdata.factor.model;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.exception.FactorEngineException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模型检查点测试类
+ */
+public class ModelCheckpointTest {
+
+    private static List<FactorData> linearData(int rows) {
+        List<FactorData> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            double[] features = {i % 7, (i * 3) % 11};
+            data.add(new FactorData(LocalDate.of(2024, 1, 1).plusDays(i), features,
+                    0.5 + 2.0 * features[0] - features[1]));
+        }
+        return data;
+    }
+
+    @Test
+    void testEnsembleRoundTripKeepsWeightsAndCoefficients(@TempDir Path dir) {
+        LinearRegressionModel first = new LinearRegressionModel(2);
+        first.train(linearData(50), 1);
+        EnsembleModel ensemble = new EnsembleModel();
+        ensemble.addModel(first, 0.25);
+        ensemble.addModel(new LinearRegressionModel(2), 0.0);
+        Path file = dir.resolve("ensemble.ckpt");
+
+        ModelCheckpoint.save(new ModelVersion("ensemble", 7, ensemble, Instant.ofEpochMilli(1000)), file);
+        ModelVersion loaded = ModelCheckpoint.load(file, null);
+
+        assertEquals("ensemble", loaded.getName());
+        assertEquals(7, loaded.getVersion());
+        assertEquals(Instant.ofEpochMilli(1000), loaded.getPublishedAt());
+        EnsembleModel restored = (EnsembleModel) loaded.getModel();
+        assertEquals(2, restored.getMemberCount());
+        assertEquals(0.25, restored.getWeight(0));
+        assertTrue(restored.getMember(0).isTrained());
+        assertFalse(restored.getMember(1).isTrained());
+        double[] features = {3.0, 4.0};
+        assertEquals(first.predict(features), restored.predict(features), 1e-12);
+    }
+
+    @Test
+    void testLoadReportsCorruptFileAsTrainingError(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("broken.ckpt");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+
+        FactorEngineException e = assertThrows(FactorEngineException.class, () -> ModelCheckpoint.load(file, null));
+        assertEquals(FactorEngineException.ErrorCode.MODEL_TRAINING_ERROR, e.getErrorCode());
+        assertThrows(FactorEngineException.class, () -> ModelCheckpoint.load(dir.resolve("missing.ckpt"), null));
+    }
+
+    @Test
+    void testManagerRestoresTrainedModelOnRestart(@TempDir Path dir) {
+        Properties config = new Properties();
+        config.setProperty("model.feature.count", "2");
+        config.setProperty("model.ensemble.threads", "0");
+        config.setProperty("model.checkpoint.dir", dir.toString());
+
+        FactorModelManager manager = new FactorModelManager(config);
+        manager.trainModel("linear", linearData(50), 1);
+        double expected = manager.getModel("linear").predict(new double[]{1.0, 2.0});
+        assertTrue(Files.exists(dir.resolve("linear.ckpt")));
+
+        FactorModelManager restarted = new FactorModelManager(config);
+        FactorModel restored = restarted.getModel("linear");
+        assertTrue(restored.isTrained());
+        assertEquals(expected, restored.predict(new double[]{1.0, 2.0}), 1e-12);
+        assertEquals(2, restarted.getModelVersion("linear").getVersion());
+        assertFalse(restarted.getModel("deeplearning").isTrained());
+    }
+
+    @Test
+    void testTrainingMemberRepublishesEnsemble() {
+        Properties config = new Properties();
+        config.setProperty("model.feature.count", "2");
+        config.setProperty("model.ensemble.threads", "0");
+        FactorModelManager manager = new FactorModelManager(config);
+        EnsembleModel before = (EnsembleModel) manager.getModel("ensemble");
+
+        manager.trainModel("linear", linearData(50), 1);
+
+        EnsembleModel after = (EnsembleModel) manager.getModel("ensemble");
+        assertSame(manager.getModel("linear"), after.getMember(0));
+        assertSame(before.getMember(1), after.getMember(1));
+        assertEquals(2, manager.getModelVersion("ensemble").getVersion());
+        assertFalse(before.getMember(0).isTrained());
+
+        manager.rollback("linear");
+        assertSame(manager.getModel("linear"), ((EnsembleModel) manager.getModel("ensemble")).getMember(0));
+    }
+
+    @Test
+    void testRetrainRequiresCopy() {
+        FactorModelManager manager = new FactorModelManager(new Properties());
+        LinearRegressionModel live = new LinearRegressionModel(2);
+        // 不支持copy()的模型不能在正在打分的实例上原地训练
+        manager.registerModel("fixed", new FactorModel() {
+            @Override
+            public void train(List<FactorData> trainingData, int epochs) {
+                live.train(trainingData, epochs);
+            }
+            @Override
+            public double predict(double[] features) {
+                return live.predict(features);
+            }
+            @Override
+            public double evaluate(List<FactorData> testData) {
+                return live.evaluate(testData);
+            }
+            @Override
+            public boolean isTrained() {
+                return live.isTrained();
+            }
+            @Override
+            public int getInputSize() {
+                return 2;
+            }
+        });
+
+        assertThrows(RuntimeException.class, () -> manager.trainModel("fixed", linearData(50), 1));
+        assertFalse(live.isTrained());
+        assertEquals(1, manager.getModelVersion("fixed").getVersion());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.quant.altdata.factor.model;
+
+import java.time.Instant;
+
+/**
+ * 模型版本 - 注册表中某一已发布模型实例的不可变记录
+ */
+public final class ModelVersion {
+    private final String name;
+    private final long version;
+    private final FactorModel model;
+    private final Instant publishedAt;
+
+    /**
+     * 构造函数
+     * @param name 模型名称
+     * @param version 版本号，从1开始递增
+     * @param model 模型实例
+     * @param publishedAt 发布时间
+     */
+    public ModelVersion(String name, long version, FactorModel model, Instant publishedAt) {
+        this.name = name;
+        this.version = version;
+        this.model = model;
+        this.publishedAt = publishedAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public FactorModel getModel() {
+        return model;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return name + "@v" + version;
+    }
+}
\ No newline at end of file
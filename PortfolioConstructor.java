@@ -0,0 +1,501 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 组合构建器 - 按每日横截面的信号排名构建分位数或前K名多空组合
+ * <p>
+ * 每个交易日的横截面用快速选择（期望O(n)）划分，不做完整排序：分位数模式按分位边界依次选择（O(n log q)），
+ * 同时得到各分位组的等权收益；前K名模式只做两次选择。信号相同时按行号决定先后，结果与完整排序一致且可复现。
+ * 各交易日的选择互不依赖，按日期分块在多个线程上并行，每个线程的下标和信号缓冲区在所处理的各日之间复用。
+ * <p>
+ * 换手限制依赖前一日持仓，在选择完成后按日期顺序执行：目标权重与当前持仓的差距（两侧换手）超过上限时，
+ * 持仓只向目标移动上限允许的比例。组合的日收益送入IncrementalBacktestEngine生成BacktestResult。
+ * 与逐行回测一致，权重由当日信号决定并作用于当日收益。
+ * <p>
+ * 持仓按标的编号跨日延续，因此标的编号必须每天指向同一个标的，某天不在横截面中的标的当日目标权重为0。
+ * 用FactorFrame.from(List, List)、Builder或FactorStore构建的数据帧携带真实的标的编号，标的集合可以逐日变化；
+ * FactorFrame.from(List)按日期内的出现顺序编号，只有每天的标的集合和顺序都相同时编号才稳定。
+ */
+public class PortfolioConstructor {
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioConstructor.class);
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * 组内权重方式
+     */
+    public enum Weighting {
+        /** 等权 */
+        EQUAL,
+        /** 按信号绝对值加权 */
+        SIGNAL
+    }
+
+    private final TradingStrategy strategy;
+    private final int quantiles;
+    private final int topK;
+    private final Weighting weighting;
+    private final double maxTurnover;
+    private final double costRate;
+    private final int threads;
+
+    /**
+     * 构造函数。策略决定持仓方向：momentum做多信号最高组、做空最低组，contrarian相反，longonly只做多最高组。
+     * 多头和空头各自的权重绝对值之和为1
+     * @param strategy 交易策略
+     * @param config 配置属性，读取portfolio.quantiles（默认10）、portfolio.topK（大于0时按前K名选择，默认0）、
+     *               portfolio.weighting（equal或signal）、portfolio.maxTurnover（每日两侧换手上限，0为不限制）、
+     *               portfolio.costBps（按换手计的交易成本，基点）和portfolio.threads
+     */
+    public PortfolioConstructor(TradingStrategy strategy, Properties config) {
+        this.strategy = strategy;
+        this.quantiles = Integer.parseInt(config.getProperty("portfolio.quantiles", "10"));
+        this.topK = Integer.parseInt(config.getProperty("portfolio.topK", "0"));
+        this.weighting = Weighting.valueOf(config.getProperty("portfolio.weighting", "equal").toUpperCase());
+        this.maxTurnover = Double.parseDouble(config.getProperty("portfolio.maxTurnover", "0"));
+        this.costRate = Double.parseDouble(config.getProperty("portfolio.costBps", "0")) / 10000.0;
+        this.threads = Integer.parseInt(config.getProperty("portfolio.threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy cannot be null");
+        }
+        if (quantiles < 2 || topK < 0 || maxTurnover < 0 || costRate < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Quantiles must be at least 2, threads positive, "
+                    + "top K, turnover limit and cost non-negative");
+        }
+    }
+
+    /**
+     * 以数据帧的因子值列为信号构建组合
+     * @param frame 因子数据帧
+     * @return 组合
+     */
+    public Portfolio construct(FactorFrame frame) {
+        double[] signals = new double[frame.rowCount()];
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = frame.factorValue(i);
+        }
+        return construct(frame, signals);
+    }
+
+    /**
+     * 构建组合。信号为NaN的行不参与排名，当日权重为0；标的编号必须非负且同一日期内不能重复
+     * @param frame 因子数据帧
+     * @param signals 各行的模型信号，长度不小于行数
+     * @return 组合
+     */
+    public Portfolio construct(FactorFrame frame, double[] signals) {
+        int rows = frame.rowCount();
+        if (signals.length < rows) {
+            throw new IllegalArgumentException("Signal array too small: " + signals.length + " < " + rows);
+        }
+
+        if (rows == 0) {
+            return new Portfolio(strategy, quantiles, new int[0], new double[0], new double[0], new double[0],
+                    topK > 0 ? null : new double[0]);
+        }
+
+        int[] order = dateOrder(frame);
+        int days = 0;
+        int[] dayStart = new int[rows + 1];
+        for (int i = 0; i < rows; i++) {
+            if (i == 0 || frame.date(order[i]) != frame.date(order[i - 1])) {
+                dayStart[days++] = i;
+            }
+        }
+        dayStart[days] = rows;
+        int maxDayRows = 0;
+        for (int d = 0; d < days; d++) {
+            maxDayRows = Math.max(maxDayRows, dayStart[d + 1] - dayStart[d]);
+        }
+
+        double[] targets = new double[rows];
+        double[] bucketReturns = topK > 0 ? null : new double[days * quantiles];
+        select(frame, signals, order, dayStart, days, maxDayRows, targets, bucketReturns);
+
+        Portfolio portfolio = rebalance(frame, order, dayStart, days, targets, bucketReturns);
+        logger.debug("Constructed {} portfolio over {} days, average turnover {}", strategy, days,
+                portfolio.getAverageTurnover());
+        return portfolio;
+    }
+
+    /**
+     * 按日期稳定排序的行号；数据帧已按日期排列（常见情况）时不排序
+     */
+    private static int[] dateOrder(FactorFrame frame) {
+        int rows = frame.rowCount();
+        int[] order = new int[rows];
+        boolean sorted = true;
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+            sorted &= i == 0 || frame.date(i) >= frame.date(i - 1);
+        }
+        if (!sorted) {
+            // 高32位为日期，低32位为行号
+            long[] keys = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                keys[i] = ((long) frame.date(i) << 32) | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < rows; i++) {
+                order[i] = (int) keys[i];
+            }
+        }
+        return order;
+    }
+
+    private void select(FactorFrame frame, double[] signals, int[] order, int[] dayStart, int days, int maxDayRows,
+                        double[] targets, double[] bucketReturns) {
+        int workers = Math.min(threads, days);
+        if (workers <= 1) {
+            new DaySelector(maxDayRows).run(frame, signals, order, dayStart, 0, days, targets, bucketReturns);
+            return;
+        }
+
+        int chunks = Math.min(days, workers * CHUNKS_PER_THREAD);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 每个线程一套缓冲区，在该线程处理的所有日期之间复用
+        ThreadLocal<DaySelector> selectors = ThreadLocal.withInitial(() -> new DaySelector(maxDayRows));
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int from = (int) ((long) days * c / chunks);
+                int to = (int) ((long) days * (c + 1) / chunks);
+                futures.add(pool.submit(() -> selectors.get()
+                        .run(frame, signals, order, dayStart, from, to, targets, bucketReturns)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Interrupted during portfolio construction", e);
+        } catch (ExecutionException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Portfolio construction worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 按日期顺序把持仓向目标权重移动（受换手上限约束），计算组合日收益
+     */
+    private Portfolio rebalance(FactorFrame frame, int[] order, int[] dayStart, int days, double[] targets,
+                                double[] bucketReturns) {
+        int rows = frame.rowCount();
+        int symbols = 0;
+        for (int i = 0; i < rows; i++) {
+            int symbolId = frame.symbolId(i);
+            if (symbolId < 0) {
+                throw new IllegalArgumentException("Symbol id must be non-negative: " + symbolId);
+            }
+            symbols = Math.max(symbols, symbolId + 1);
+        }
+
+        double[] held = new double[symbols];
+        double[] wanted = new double[symbols];
+        int[] seenOnDay = new int[symbols];
+        Arrays.fill(seenOnDay, -1);
+        int[] epochDays = new int[days];
+        double[] returns = new double[days];
+        double[] turnover = new double[days];
+        double[] weights = new double[rows];
+
+        for (int d = 0; d < days; d++) {
+            // 当日不在横截面中的标的目标权重为0
+            Arrays.fill(wanted, 0.0);
+            for (int i = dayStart[d]; i < dayStart[d + 1]; i++) {
+                int row = order[i];
+                int symbolId = frame.symbolId(row);
+                if (seenOnDay[symbolId] == d) {
+                    throw new IllegalArgumentException("Duplicate symbol " + symbolId + " on "
+                            + frame.localDate(row));
+                }
+                seenOnDay[symbolId] = d;
+                wanted[symbolId] = targets[row];
+            }
+
+            double distance = 0.0;
+            for (int s = 0; s < symbols; s++) {
+                distance += Math.abs(wanted[s] - held[s]);
+            }
+            double step = maxTurnover > 0 && distance > maxTurnover ? maxTurnover / distance : 1.0;
+            for (int s = 0; s < symbols; s++) {
+                held[s] += step * (wanted[s] - held[s]);
+            }
+
+            double pnl = -costRate * step * distance;
+            for (int i = dayStart[d]; i < dayStart[d + 1]; i++) {
+                int row = order[i];
+                weights[row] = held[frame.symbolId(row)];
+                pnl += weights[row] * frame.returnAt(row);
+            }
+            epochDays[d] = frame.date(order[dayStart[d]]);
+            returns[d] = pnl;
+            turnover[d] = step * distance;
+        }
+        return new Portfolio(strategy, quantiles, epochDays, returns, turnover, weights, bucketReturns);
+    }
+
+    /**
+     * 单线程的逐日选择器 - 持有按最大横截面分配的缓冲区，处理连续的一段交易日
+     */
+    private final class DaySelector {
+        private final double[] keys;
+        private final int[] index;
+        private final int[] bounds = new int[quantiles + 1];
+
+        DaySelector(int capacity) {
+            this.keys = new double[capacity];
+            this.index = new int[capacity];
+        }
+
+        void run(FactorFrame frame, double[] signals, int[] order, int[] dayStart, int fromDay, int toDay,
+                 double[] targets, double[] bucketReturns) {
+            for (int d = fromDay; d < toDay; d++) {
+                int n = 0;
+                for (int i = dayStart[d]; i < dayStart[d + 1]; i++) {
+                    int row = order[i];
+                    if (!Double.isNaN(signals[row])) {
+                        keys[n] = signals[row];
+                        index[n] = row;
+                        n++;
+                    }
+                }
+
+                int bottomEnd;
+                int topStart;
+                if (topK > 0) {
+                    int k = Math.min(topK, strategy == TradingStrategy.LONGONLY ? n : n / 2);
+                    if (k == 0) {
+                        continue;
+                    }
+                    topStart = n - k;
+                    bottomEnd = k;
+                    selectNth(keys, index, 0, n, topStart);
+                    selectNth(keys, index, 0, topStart, bottomEnd);
+                } else {
+                    Arrays.fill(bucketReturns, d * quantiles, (d + 1) * quantiles, Double.NaN);
+                    if (n < quantiles) {
+                        continue;
+                    }
+                    for (int q = 0; q <= quantiles; q++) {
+                        bounds[q] = (int) ((long) n * q / quantiles);
+                    }
+                    selectBounds(0, n, 1, quantiles);
+                    for (int q = 0; q < quantiles; q++) {
+                        double sum = 0.0;
+                        for (int i = bounds[q]; i < bounds[q + 1]; i++) {
+                            sum += frame.returnAt(index[i]);
+                        }
+                        bucketReturns[d * quantiles + q] = sum / (bounds[q + 1] - bounds[q]);
+                    }
+                    topStart = bounds[quantiles - 1];
+                    bottomEnd = bounds[1];
+                }
+
+                double side = strategy == TradingStrategy.CONTRARIAN ? -1.0 : 1.0;
+                assign(topStart, n, side, targets);
+                if (strategy != TradingStrategy.LONGONLY) {
+                    assign(0, bottomEnd, -side, targets);
+                }
+            }
+        }
+
+        /**
+         * 依次确定[fromBound, toBound)范围内各分位边界位置上的元素，每次选择把区间一分为二
+         */
+        private void selectBounds(int lo, int hi, int fromBound, int toBound) {
+            if (fromBound >= toBound) {
+                return;
+            }
+            int middle = (fromBound + toBound) >>> 1;
+            int k = bounds[middle];
+            selectNth(keys, index, lo, hi, k);
+            selectBounds(lo, k, fromBound, middle);
+            selectBounds(k + 1, hi, middle + 1, toBound);
+        }
+
+        private void assign(int from, int to, double side, double[] targets) {
+            double total = 0.0;
+            if (weighting == Weighting.SIGNAL) {
+                for (int i = from; i < to; i++) {
+                    total += Math.abs(keys[i]);
+                }
+            }
+            for (int i = from; i < to; i++) {
+                double weight = total > 0 ? Math.abs(keys[i]) / total : 1.0 / (to - from);
+                targets[index[i]] = side * weight;
+            }
+        }
+    }
+
+    /**
+     * 快速选择：重排[lo, hi)使第k个位置上是排序后应在该处的元素，其左侧都不大于它，右侧都不小于它。
+     * 按信号升序、信号相同时按行号升序比较，keys和index同步交换
+     * @param keys 信号
+     * @param index 行号
+     * @param lo 起始位置
+     * @param hi 结束位置（不含）
+     * @param k 目标位置，lo &lt;= k &lt; hi时有效，k等于hi时不做任何操作
+     */
+    static void selectNth(double[] keys, int[] index, int lo, int hi, int k) {
+        while (hi - lo > 1 && k < hi) {
+            // 三数取中，中位数放到hi-1作为枢轴
+            int mid = (lo + hi) >>> 1;
+            int last = hi - 1;
+            if (less(keys, index, mid, lo)) {
+                swap(keys, index, mid, lo);
+            }
+            if (less(keys, index, last, lo)) {
+                swap(keys, index, last, lo);
+            }
+            if (less(keys, index, mid, last)) {
+                swap(keys, index, mid, last);
+            }
+            int store = lo;
+            for (int i = lo; i < last; i++) {
+                if (less(keys, index, i, last)) {
+                    swap(keys, index, i, store++);
+                }
+            }
+            swap(keys, index, store, last);
+            if (k == store) {
+                return;
+            }
+            if (k < store) {
+                hi = store;
+            } else {
+                lo = store + 1;
+            }
+        }
+    }
+
+    private static boolean less(double[] keys, int[] index, int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && index[a] < index[b]);
+    }
+
+    private static void swap(double[] keys, int[] index, int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int row = index[a];
+        index[a] = index[b];
+        index[b] = row;
+    }
+
+    /**
+     * 组合 - 逐日的组合收益、换手、各行最终持仓权重以及分位组收益
+     */
+    public static final class Portfolio {
+        private final TradingStrategy strategy;
+        private final int quantiles;
+        private final int[] epochDays;
+        private final double[] returns;
+        private final double[] turnover;
+        private final double[] weights;
+        private final double[] bucketReturns;
+
+        private Portfolio(TradingStrategy strategy, int quantiles, int[] epochDays, double[] returns,
+                          double[] turnover, double[] weights, double[] bucketReturns) {
+            this.strategy = strategy;
+            this.quantiles = quantiles;
+            this.epochDays = epochDays;
+            this.returns = returns;
+            this.turnover = turnover;
+            this.weights = weights;
+            this.bucketReturns = bucketReturns;
+        }
+
+        /**
+         * 把组合日收益逐日送入回测引擎
+         * @param modelName 模型名称
+         * @return 回测结果
+         */
+        public BacktestResult toResult(String modelName) {
+            IncrementalBacktestEngine backtest = new IncrementalBacktestEngine(strategy);
+            for (int d = 0; d < epochDays.length; d++) {
+                backtest.onDay(epochDays[d], returns[d]);
+            }
+            return backtest.toResult(modelName);
+        }
+
+        public int dayCount() {
+            return epochDays.length;
+        }
+
+        public int epochDay(int day) {
+            return epochDays[day];
+        }
+
+        /**
+         * 扣除交易成本后的组合日收益
+         * @param day 交易日序号
+         * @return 收益率
+         */
+        public double dailyReturn(int day) {
+            return returns[day];
+        }
+
+        /**
+         * 当日两侧换手，即各标的权重变化绝对值之和
+         * @param day 交易日序号
+         * @return 换手
+         */
+        public double turnover(int day) {
+            return turnover[day];
+        }
+
+        public double getAverageTurnover() {
+            double sum = 0.0;
+            for (double value : turnover) {
+                sum += value;
+            }
+            return turnover.length == 0 ? 0.0 : sum / turnover.length;
+        }
+
+        /**
+         * 某行标的在当日调仓后的持仓权重
+         * @param row 数据帧行号
+         * @return 权重，正数为多头，负数为空头
+         */
+        public double weight(int row) {
+            return weights[row];
+        }
+
+        /**
+         * 分位组的当日等权收益，第0组信号最低
+         * @param day 交易日序号
+         * @param bucket 分位组序号
+         * @return 收益率，当日有效标的数少于分位数时为NaN
+         */
+        public double bucketReturn(int day, int bucket) {
+            if (bucketReturns == null) {
+                throw new IllegalStateException("Bucket returns are only available in quantile mode");
+            }
+            if (bucket < 0 || bucket >= quantiles) {
+                throw new IllegalArgumentException("Bucket out of range: " + bucket);
+            }
+            return bucketReturns[day * quantiles + bucket];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 组合构建器测试类
+ */
+public class PortfolioConstructorTest {
+    private static final int DAYS = 40;
+    private static final int SYMBOLS = 53;
+
+    private static FactorFrame frame(long seed) {
+        Random random = new Random(seed);
+        List<FactorData> data = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                FactorData row = new FactorData(LocalDate.of(2024, 1, 1).plusDays(day), new double[]{0.0}, 0.0);
+                // 取整制造大量相同信号，检验按行号决定先后
+                row.setFactorValue(Math.round(random.nextGaussian() * 4) / 4.0);
+                row.setReturn(random.nextGaussian() * 0.01);
+                data.add(row);
+            }
+        }
+        return FactorFrame.from(data);
+    }
+
+    private static Properties config(String... entries) {
+        Properties config = new Properties();
+        for (int i = 0; i < entries.length; i += 2) {
+            config.setProperty(entries[i], entries[i + 1]);
+        }
+        return config;
+    }
+
+    @Test
+    void testQuantilePortfolioMatchesFullSort() {
+        FactorFrame frame = frame(5);
+        int quantiles = 5;
+        PortfolioConstructor.Portfolio portfolio = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.quantiles", "5", "portfolio.threads", "4")).construct(frame);
+
+        double[] expectedReturns = new double[DAYS];
+        for (int day = 0; day < DAYS; day++) {
+            Integer[] rows = new Integer[SYMBOLS];
+            for (int s = 0; s < SYMBOLS; s++) {
+                rows[s] = day * SYMBOLS + s;
+            }
+            Arrays.sort(rows, Comparator.<Integer>comparingDouble(frame::factorValue).thenComparingInt(r -> r));
+            for (int q = 0; q < quantiles; q++) {
+                int from = SYMBOLS * q / quantiles;
+                int to = SYMBOLS * (q + 1) / quantiles;
+                double sum = 0.0;
+                for (int i = from; i < to; i++) {
+                    sum += frame.returnAt(rows[i]);
+                    double expectedWeight = q == 0 ? -1.0 / (to - from) : q == quantiles - 1 ? 1.0 / (to - from) : 0.0;
+                    assertEquals(expectedWeight, portfolio.weight(rows[i]), 1e-15);
+                }
+                assertEquals(sum / (to - from), portfolio.bucketReturn(day, q), 1e-15);
+            }
+            expectedReturns[day] = portfolio.bucketReturn(day, quantiles - 1) - portfolio.bucketReturn(day, 0);
+            assertEquals(expectedReturns[day], portfolio.dailyReturn(day), 1e-12);
+        }
+
+        PortfolioConstructor.Portfolio serial = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.quantiles", "5", "portfolio.threads", "1")).construct(frame);
+        BacktestResult result = portfolio.toResult("linear");
+        assertArrayEquals(serial.toResult("linear").equityArray(), result.equityArray(), 0.0);
+        double equity = 1.0;
+        for (int day = 0; day < DAYS; day++) {
+            equity *= 1.0 + expectedReturns[day];
+        }
+        assertEquals(equity - 1.0, result.getTotalReturn(), 1e-12);
+        assertEquals("momentum", result.getStrategyName());
+    }
+
+    @Test
+    void testTurnoverLimitAndCosts() {
+        FactorFrame frame = frame(9);
+        PortfolioConstructor.Portfolio unlimited = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.topK", "10")).construct(frame);
+        PortfolioConstructor.Portfolio limited = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.topK", "10", "portfolio.maxTurnover", "0.5", "portfolio.costBps", "10"))
+                .construct(frame);
+
+        // 第一天从空仓建仓，多空各满仓的两侧换手为2
+        assertEquals(2.0, unlimited.turnover(0), 1e-12);
+        assertEquals(0.5, limited.turnover(0), 1e-12);
+        for (int day = 0; day < DAYS; day++) {
+            assertTrue(limited.turnover(day) <= 0.5 + 1e-12);
+            double gross = 0.0;
+            double pnl = 0.0;
+            for (int s = 0; s < SYMBOLS; s++) {
+                int row = day * SYMBOLS + s;
+                gross += Math.abs(limited.weight(row));
+                pnl += limited.weight(row) * frame.returnAt(row);
+            }
+            assertTrue(gross <= 2.0 + 1e-12);
+            assertEquals(pnl - 0.001 * limited.turnover(day), limited.dailyReturn(day), 1e-15);
+        }
+        assertTrue(limited.getAverageTurnover() < unlimited.getAverageTurnover());
+        assertThrows(IllegalStateException.class, () -> limited.bucketReturn(0, 0));
+    }
+
+    @Test
+    void testEmptyFrameGivesEmptyPortfolio() {
+        PortfolioConstructor.Portfolio portfolio = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.topK", "10")).construct(FactorFrame.builder(1, 0).build());
+        assertEquals(0, portfolio.toResult("linear").equityArray().length);
+    }
+
+    @Test
+    void testRaggedUniverseCarriesPositionsBySymbol() {
+        // 标的1在第2天缺失，按标的代码编号后其余标的的持仓不受影响
+        List<FactorData> data = new ArrayList<>();
+        List<String> symbols = new ArrayList<>();
+        double[][] signals = {{3, 2, 1, 0}, {3, 2, 1, 0}, {3, 1, 0}};
+        String[][] names = {{"A", "B", "C", "D"}, {"A", "B", "C", "D"}, {"A", "C", "D"}};
+        for (int day = 0; day < signals.length; day++) {
+            for (int s = 0; s < signals[day].length; s++) {
+                FactorData row = new FactorData(LocalDate.of(2024, 1, 1).plusDays(day), new double[]{0.0}, 0.0);
+                row.setFactorValue(signals[day][s]);
+                data.add(row);
+                symbols.add(names[day][s]);
+            }
+        }
+        FactorFrame frame = FactorFrame.from(data, symbols);
+        assertEquals(frame.symbolId(0), frame.symbolId(8));
+        assertEquals(frame.symbolId(2), frame.symbolId(9));
+
+        PortfolioConstructor.Portfolio portfolio = new PortfolioConstructor(TradingStrategy.MOMENTUM,
+                config("portfolio.topK", "1")).construct(frame);
+
+        // A始终做多、D始终做空，第2天持仓不变，换手为0
+        assertEquals(1.0, portfolio.weight(8), 1e-15);
+        assertEquals(-1.0, portfolio.weight(10), 1e-15);
+        assertEquals(0.0, portfolio.turnover(1), 1e-15);
+        assertEquals(0.0, portfolio.turnover(2), 1e-15);
+        assertThrows(IllegalArgumentException.class, () -> FactorFrame.from(data, symbols.subList(0, 5)));
+    }
+
+    @Test
+    void testSelectNthPartitionsAroundK() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 1 + random.nextInt(60);
+            double[] keys = new double[n];
+            int[] index = new int[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = random.nextInt(8);
+                index[i] = i;
+            }
+            long[] sorted = new long[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = (long) keys[i] << 32 | i;
+            }
+            Arrays.sort(sorted);
+            int k = random.nextInt(n);
+
+            PortfolioConstructor.selectNth(keys, index, 0, n, k);
+
+            assertEquals((int) sorted[k], index[k]);
+            for (int i = 0; i < n; i++) {
+                long key = (long) keys[i] << 32 | index[i];
+                assertTrue(i < k ? key < sorted[k] : key >= sorted[k]);
+            }
+        }
+    }
+}
\ No newline at end of file
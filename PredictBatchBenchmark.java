@@ -0,0 +1,101 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.factor.model.DeepLearningFactorModel;
+import com.quant.altdata.factor.model.EnsembleModel;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.factor.model.LinearRegressionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量预测基准 - 比较截面逐行predict与predictBatch的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PredictBatchBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"linear", "deeplearning", "ensemble"})
+    private String modelName;
+
+    @Param({"5000"})
+    private int crossSection;
+
+    private FactorModel model;
+    private FactorFrame batch;
+    private double[] rowMajor;
+    private double[] row;
+    private double[] output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<FactorData> trainingData = SyntheticFactorData.generate(2000, FEATURE_COUNT, 100, 7L);
+        LinearRegressionModel linear = new LinearRegressionModel(FEATURE_COUNT);
+        linear.train(trainingData, 1);
+        DeepLearningFactorModel deepLearning = new DeepLearningFactorModel(FEATURE_COUNT);
+        deepLearning.train(trainingData, 1);
+
+        switch (modelName) {
+            case "linear":
+                model = linear;
+                break;
+            case "deeplearning":
+                model = deepLearning;
+                break;
+            default:
+                EnsembleModel ensemble = new EnsembleModel();
+                ensemble.addModel(linear, 0.3);
+                ensemble.addModel(deepLearning, 0.7);
+                model = ensemble;
+        }
+
+        batch = SyntheticFactorData.generateFrame(crossSection, FEATURE_COUNT, crossSection, 11L);
+        rowMajor = new double[crossSection * FEATURE_COUNT];
+        for (int i = 0; i < crossSection; i++) {
+            for (int j = 0; j < FEATURE_COUNT; j++) {
+                rowMajor[i * FEATURE_COUNT + j] = batch.feature(i, j);
+            }
+        }
+        row = new double[FEATURE_COUNT];
+        output = new double[crossSection];
+    }
+
+    @Benchmark
+    public double[] perRowLoop() {
+        for (int i = 0; i < crossSection; i++) {
+            System.arraycopy(rowMajor, i * FEATURE_COUNT, row, 0, FEATURE_COUNT);
+            output[i] = model.predict(row);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public double[] batchRowMajor() {
+        model.predictBatch(rowMajor, crossSection, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] batchColumnar() {
+        model.predictBatch(batch, output);
+        return output;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.processing.DataProcessor;
+import com.quant.altdata.processing.DataProcessorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据处理器扩展性基准 - 通过DataProcessorFactory创建处理器，比较不同数据规模和线程数下的处理耗时
+ * <p>
+ * single处理器不使用线程数配置，不参与线程数扫描；单线程基线以threads=1的结果为准。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessorScalingBenchmark {
+
+    @Param({"parallel", "optimized"})
+    private String processorType;
+
+    @Param({"10000", "100000", "1000000"})
+    private int records;
+
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    private DataProcessor processor;
+    private List<FactorData> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = SyntheticFactorData.generate(records, 10, 500, 5L);
+        Properties config = new Properties();
+        config.setProperty("processor.type", processorType);
+        config.setProperty("processor.threads", String.valueOf(threads));
+        processor = DataProcessorFactory.createProcessor(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DataProcessorFactory.shutdown(processor);
+    }
+
+    @Benchmark
+    public List<FactorData> process() {
+        return processor.process(data);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.processing.DataProcessor;
+import com.quant.altdata.processing.OptimizedParallelProcessor;
+import com.quant.altdata.processing.ParallelDataProcessor;
+import com.quant.altdata.processing.ResourceLimiter;
+import com.quant.altdata.processing.VirtualThreadDataProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * I/O密集型处理吞吐基准 - 以模拟的阻塞式下游调用比较parallel、optimized和virtual三种处理器。
+ * 三种处理器使用相同的批次大小（optimized为相同的拆分阈值），差异只来自调度方式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProcessorThroughputBenchmark {
+
+    @Param({"parallel", "optimized", "virtual"})
+    private String processorType;
+
+    @Param({"200"})
+    private int ioLatencyMicros;
+
+    @Param({"20000"})
+    private int records;
+
+    @Param({"16"})
+    private int batchSize;
+
+    private DataProcessor processor;
+    private List<FactorData> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = SyntheticFactorData.generate(records, 10, 500, 3L);
+        DataProcessor blockingDelegate = new BlockingIoProcessor(ioLatencyMicros);
+        int threads = Runtime.getRuntime().availableProcessors();
+        switch (processorType) {
+            case "parallel":
+                processor = new ParallelDataProcessor(threads, batchSize, blockingDelegate);
+                break;
+            case "optimized":
+                processor = new OptimizedParallelProcessor(threads, batchSize, blockingDelegate);
+                break;
+            default:
+                processor = new VirtualThreadDataProcessor(batchSize, threads, blockingDelegate,
+                        new ResourceLimiter(Map.of("processor", 1024)), "processor");
+        }
+    }
+
+    @Benchmark
+    public List<FactorData> process() {
+        return processor.process(data);
+    }
+
+    /**
+     * 模拟每条记录一次阻塞式下游调用的处理器
+     */
+    private static class BlockingIoProcessor implements DataProcessor {
+        private final long latencyNanos;
+
+        BlockingIoProcessor(int latencyMicros) {
+            this.latencyNanos = latencyMicros * 1000L;
+        }
+
+        @Override
+        public List<FactorData> process(List<FactorData> batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            return batch;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.exception.FactorEngineException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 资源并发限制器 - 按下游资源（适配器查询、实体识别、情感模型等）分别限制并发访问数
+ * <p>
+ * 限额通过processor.virtual.limit.&lt;资源名&gt;=N配置，未配置的资源不受限制。
+ */
+public class ResourceLimiter {
+    private static final String LIMIT_PREFIX = "processor.virtual.limit.";
+    private final Map<String, Semaphore> semaphores;
+    private final Map<String, Integer> limits;
+
+    /**
+     * 构造函数
+     * @param limits 资源名到最大并发数的映射
+     */
+    public ResourceLimiter(Map<String, Integer> limits) {
+        this.semaphores = new ConcurrentHashMap<>();
+        this.limits = new ConcurrentHashMap<>();
+        limits.forEach(this::setLimit);
+    }
+
+    /**
+     * 从配置属性中读取所有资源限额
+     * @param config 配置属性
+     * @return 资源限制器
+     */
+    public static ResourceLimiter fromConfig(Properties config) {
+        ResourceLimiter limiter = new ResourceLimiter(Map.of());
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(LIMIT_PREFIX)) {
+                limiter.setLimit(key.substring(LIMIT_PREFIX.length()), Integer.parseInt(config.getProperty(key)));
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * 设置资源的最大并发数
+     * @param resource 资源名
+     * @param permits 最大并发数
+     */
+    public void setLimit(String resource, int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Resource limit must be positive: " + resource + "=" + permits);
+        }
+        semaphores.put(resource, new Semaphore(permits, true));
+        limits.put(resource, permits);
+    }
+
+    /**
+     * 获取资源的最大并发数
+     * @param resource 资源名
+     * @return 最大并发数，未配置限额时返回0
+     */
+    public int getLimit(String resource) {
+        return limits.getOrDefault(resource, 0);
+    }
+
+    /**
+     * 在持有资源许可的情况下执行任务
+     * @param resource 资源名
+     * @param task 任务
+     * @return 任务结果
+     */
+    public <T> T withPermit(String resource, Callable<T> task) {
+        Semaphore semaphore = semaphores.get(resource);
+        try {
+            if (semaphore == null) {
+                return task.call();
+            }
+            semaphore.acquire();
+            try {
+                return task.call();
+            } finally {
+                semaphore.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Interrupted while waiting for resource " + resource, e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Task on resource " + resource + " failed", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.quant.altdata.visualization;
+
+import java.util.Arrays;
+
+/**
+ * 序列降采样工具 - 在创建JFreeChart对象之前把长序列压缩到约等于像素宽度的点数
+ * <p>
+ * 折线使用LTTB（largest-triangle-three-buckets）算法，保留视觉上的峰谷形状；
+ * K线按区间聚合为开高低收和成交量之和。
+ */
+public final class SeriesDownsampler {
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * 按日期升序排列、每日一个值的序列
+     */
+    public static final class Series {
+        private final int[] epochDays;
+        private final double[] values;
+
+        Series(int[] epochDays, double[] values) {
+            this.epochDays = epochDays;
+            this.values = values;
+        }
+
+        public int size() {
+            return epochDays.length;
+        }
+
+        public int epochDay(int i) {
+            return epochDays[i];
+        }
+
+        public double value(int i) {
+            return values[i];
+        }
+    }
+
+    /**
+     * 将任意顺序、同一日期可能有多个值（多个标的）的数据合并为按日期排序的日均值序列
+     * @param epochDays 日期数组
+     * @param values 数值数组
+     * @param offset 起始下标
+     * @param length 数据点数
+     * @return 日均值序列
+     */
+    public static Series dailyMean(int[] epochDays, double[] values, int offset, int length) {
+        // 高32位为日期，低32位为下标，排序后同一日期相邻
+        long[] order = new long[length];
+        boolean sorted = true;
+        for (int i = 0; i < length; i++) {
+            order[i] = ((long) epochDays[offset + i] << 32) | i;
+            sorted &= i == 0 || epochDays[offset + i] > epochDays[offset + i - 1];
+        }
+        if (sorted) {
+            return new Series(Arrays.copyOfRange(epochDays, offset, offset + length),
+                    Arrays.copyOfRange(values, offset, offset + length));
+        }
+        Arrays.sort(order);
+
+        int[] days = new int[length];
+        double[] means = new double[length];
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            int day = (int) (order[start] >> 32);
+            int end = start;
+            double sum = 0.0;
+            while (end < length && (int) (order[end] >> 32) == day) {
+                sum += values[offset + (int) order[end]];
+                end++;
+            }
+            days[count] = day;
+            means[count] = sum / (end - start);
+            count++;
+            start = end;
+        }
+        return new Series(Arrays.copyOf(days, count), Arrays.copyOf(means, count));
+    }
+
+    /**
+     * 按日期排序的并行数组直接构成序列，不复制
+     * @param epochDays 升序日期数组
+     * @param values 数值数组
+     * @return 序列
+     */
+    public static Series of(int[] epochDays, double[] values) {
+        return new Series(epochDays, values);
+    }
+
+    /**
+     * LTTB降采样：首尾点保留，中间每个桶选取与前一选中点、后一桶均值点构成三角形面积最大的点
+     * @param series 按日期排序的序列
+     * @param threshold 目标点数
+     * @return 降采样后的序列，点数不超过threshold时原样返回
+     */
+    public static Series lttb(Series series, int threshold) {
+        int n = series.size();
+        if (threshold >= n || threshold < 3) {
+            return series;
+        }
+
+        int[] days = new int[threshold];
+        double[] values = new double[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        days[0] = series.epochDays[0];
+        values[0] = series.values[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += series.epochDays[j];
+                avgY += series.values[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double pointAX = series.epochDays[a];
+            double pointAY = series.values[a];
+            double maxArea = -1.0;
+            int selected = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointAX - avgX) * (series.values[j] - pointAY)
+                        - (pointAX - series.epochDays[j]) * (avgY - pointAY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = j;
+                }
+            }
+            days[i + 1] = series.epochDays[selected];
+            values[i + 1] = series.values[selected];
+            a = selected;
+        }
+
+        days[threshold - 1] = series.epochDays[n - 1];
+        values[threshold - 1] = series.values[n - 1];
+        return new Series(days, values);
+    }
+
+    /**
+     * K线区间聚合的桶边界：第b个桶覆盖[bounds[b], bounds[b+1])
+     * @param length 数据点数
+     * @param threshold 目标桶数
+     * @return 桶边界数组，长度为桶数加一
+     */
+    public static int[] bucketBounds(int length, int threshold) {
+        int buckets = Math.max(1, Math.min(length, threshold));
+        int[] bounds = new int[buckets + 1];
+        for (int b = 0; b <= buckets; b++) {
+            bounds[b] = (int) ((long) b * length / buckets);
+        }
+        return bounds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.quant.altdata.visualization;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 序列降采样工具测试类
+ */
+public class SeriesDownsamplerTest {
+
+    @Test
+    void testLttbKeepsEndpointsAndSpikes() {
+        int n = 10000;
+        int[] days = new int[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            days[i] = 18000 + i;
+            values[i] = Math.sin(i / 500.0);
+        }
+        values[4321] = 50.0;
+
+        SeriesDownsampler.Series sampled = SeriesDownsampler.lttb(SeriesDownsampler.of(days, values), 200);
+
+        assertEquals(200, sampled.size());
+        assertEquals(18000, sampled.epochDay(0));
+        assertEquals(18000 + n - 1, sampled.epochDay(199));
+        boolean spikeKept = false;
+        for (int i = 0; i < sampled.size(); i++) {
+            if (i > 0) {
+                assertTrue(sampled.epochDay(i) > sampled.epochDay(i - 1));
+            }
+            spikeKept |= sampled.value(i) == 50.0;
+        }
+        assertTrue(spikeKept);
+    }
+
+    @Test
+    void testDailyMeanMergesSymbolsOnSameDate() {
+        int[] days = {0, 5, 4, 5, 4, 6};
+        double[] values = {99, 1.0, 2.0, 3.0, 4.0, 5.0};
+
+        SeriesDownsampler.Series series = SeriesDownsampler.dailyMean(days, values, 1, 5);
+
+        assertEquals(3, series.size());
+        assertEquals(4, series.epochDay(0));
+        assertEquals(3.0, series.value(0), 1e-12);
+        assertEquals(2.0, series.value(1), 1e-12);
+        assertEquals(6, series.epochDay(2));
+        assertArrayEquals(new int[]{0, 2, 4}, SeriesDownsampler.bucketBounds(4, 2));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,495 @@
+package com.quant.altdata.shard;
+
+import com.quant.altdata.backtest.BacktestResult;
+import com.quant.altdata.backtest.IncrementalBacktestEngine;
+import com.quant.altdata.backtest.TradingStrategy;
+import com.quant.altdata.data.adapter.DataAdapterManager;
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.data.storage.FactorStore;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 分片协调器 - 把一次回测按标的或日期切分到本机的多个工作JVM上执行并合并结果
+ * <p>
+ * 协调器在回环地址上监听临时端口，为每个分片启动一个ShardWorker进程（沿用当前JVM的java可执行文件和类路径），
+ * 工作进程连接后回送启动时分配的随机令牌，令牌不符的连接被拒绝。每个连接由一个线程发送分片任务并等待结果。
+ * 各分片回传的逐日仓位收益之和按日相加后依次送入IncrementalBacktestEngine，得到与单进程完整横截面回测相同的结果；
+ * 因子输出按日期和标的编号排序后合并。
+ * <p>
+ * 按标的分片时协调进程只获取一次数据，在完整数据上统一分配标的编号，再把各分片的行写入临时目录下的FactorStore数据集，
+ * 工作进程通过内存映射读取自己的分片，运行结束后临时目录被删除。每个工作进程只处理自己的标的，截面特征（z分数、分位排名）只能在整个横截面上计算，
+ * 因此启用processor.features.enabled时默认按日期分片，显式指定按标的分片会被拒绝。按日期分片时，
+ * 每个分片额外获取shard.date.warmupDays天的历史供滚动窗口预热，默认值按交易日历留有余量，
+ * 保证分片首日的滚动窗口与单进程运行相同。
+ * <p>
+ * 数据适配器只能通过data.adapters配置，以代码注册的适配器对协调进程和工作进程新建的适配器管理器都不可见。
+ */
+public class ShardCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(ShardCoordinator.class);
+    private static final int HOLIDAY_MARGIN_DAYS = 10;
+
+    private final Properties config;
+    private final int workers;
+    private final ShardTask.Mode mode;
+    private final int warmupDays;
+    private final int workerThreads;
+    private final long connectTimeoutMillis;
+    private final long resultTimeoutMillis;
+    private final List<String> jvmOptions;
+
+    /**
+     * 构造函数
+     * @param config 配置属性，原样传给工作进程
+     */
+    public ShardCoordinator(Properties config) {
+        this.config = config;
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.workers = Integer.parseInt(config.getProperty("shard.workers", String.valueOf(Math.max(1, processors / 2))));
+        boolean features = featuresEnabled(config);
+        this.mode = ShardTask.Mode.forName(config.getProperty("shard.mode", features ? "date" : "symbol"));
+        if (features && mode == ShardTask.Mode.SYMBOL) {
+            throw new IllegalArgumentException("Symbol sharding cannot compute cross-sectional features; "
+                    + "use shard.mode=date with processor.features.enabled");
+        }
+        // 滚动窗口按观测数计算，预热按日历天计算：两倍窗口加上长假余量，覆盖window-1个交易日
+        int window = Integer.parseInt(config.getProperty("processor.features.window", "20"));
+        this.warmupDays = Integer.parseInt(config.getProperty("shard.date.warmupDays",
+                String.valueOf(features ? 2 * window + HOLIDAY_MARGIN_DAYS : 0)));
+        this.workerThreads = Integer.parseInt(config.getProperty("shard.worker.threads",
+                String.valueOf(Math.max(1, processors / Math.max(1, workers)))));
+        this.connectTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(config.getProperty("shard.worker.connectTimeoutSeconds", "60")));
+        this.resultTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(config.getProperty("shard.worker.timeoutSeconds", "3600")));
+        String options = config.getProperty("shard.worker.jvmOptions", "").trim();
+        this.jvmOptions = options.isEmpty() ? List.of() : Arrays.asList(options.split("\\s+"));
+        if (workers <= 0 || warmupDays < 0 || workerThreads <= 0) {
+            throw new IllegalArgumentException("Shard workers and threads must be positive, warmup non-negative");
+        }
+    }
+
+    /**
+     * 在工作进程上分片执行获取、处理、打分和回测，并合并结果
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @param modelName 模型名称，工作进程从检查点恢复该模型
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @return 合并后的分片运行结果
+     */
+    public ShardedRun run(String strategyName, String modelName, String source, String query,
+                          LocalDateTime startDate, LocalDateTime endDate) {
+        TradingStrategy strategy = TradingStrategy.forName(strategyName);
+        List<ShardTask> tasks = plan(strategyName, modelName, source, query, startDate, endDate);
+        Path sliceDirectory = mode == ShardTask.Mode.SYMBOL ? writeSlices(tasks, source, query, startDate, endDate) : null;
+        long token = new SecureRandom().nextLong();
+        List<Process> processes = new ArrayList<>(tasks.size());
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (ServerSocket server = new ServerSocket(0, tasks.size(), InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) connectTimeoutMillis);
+            for (ShardTask task : tasks) {
+                processes.add(launch(server.getLocalPort(), task.getShardIndex(), token));
+            }
+            logger.info("Launched {} shard workers ({}) on port {}", tasks.size(), mode.name().toLowerCase(),
+                    server.getLocalPort());
+
+            List<Future<ShardResult>> futures = new ArrayList<>(tasks.size());
+            boolean[] connected = new boolean[tasks.size()];
+            while (futures.size() < tasks.size()) {
+                Socket socket = server.accept();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                int shardIndex;
+                try {
+                    socket.setSoTimeout((int) connectTimeoutMillis);
+                    long received = in.readLong();
+                    shardIndex = in.readInt();
+                    if (received != token || shardIndex < 0 || shardIndex >= tasks.size() || connected[shardIndex]) {
+                        throw new IOException("Unexpected handshake");
+                    }
+                } catch (IOException e) {
+                    logger.warn("Rejected connection from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                    socket.close();
+                    continue;
+                }
+                connected[shardIndex] = true;
+                ShardTask task = tasks.get(shardIndex);
+                futures.add(executor.submit(() -> exchange(socket, in, task)));
+            }
+
+            List<ShardResult> results = new ArrayList<>(futures.size());
+            for (Future<ShardResult> future : futures) {
+                results.add(future.get());
+            }
+            for (ShardResult result : results) {
+                logger.info("Shard {} returned {} rows: fetch {} ms, process {} ms, score {} ms",
+                        result.getShardIndex(), result.getRowCount(),
+                        TimeUnit.NANOSECONDS.toMillis(result.getFetchNanos()),
+                        TimeUnit.NANOSECONDS.toMillis(result.getProcessNanos()),
+                        TimeUnit.NANOSECONDS.toMillis(result.getScoreNanos()));
+            }
+            return merge(results, strategy, modelName);
+        } catch (SocketTimeoutException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Timed out waiting for shard workers to connect", e);
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Sharded run failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Interrupted while waiting for shard workers", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FactorEngineException) {
+                throw (FactorEngineException) cause;
+            }
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Shard worker failed", cause);
+        } finally {
+            executor.shutdownNow();
+            for (Process process : processes) {
+                try {
+                    if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (sliceDirectory != null) {
+                deleteSlices(sliceDirectory);
+            }
+        }
+    }
+
+    /**
+     * 获取完整区间的数据并把各标的分片的行写入临时目录，任务改为指向该目录
+     * @return 临时目录
+     */
+    private Path writeSlices(List<ShardTask> tasks, String source, String query,
+                             LocalDateTime startDate, LocalDateTime endDate) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("shard-slices");
+        } catch (IOException e) {
+            throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                    "Failed to create shard slice directory", e);
+        }
+        DataAdapterManager adapterManager = new DataAdapterManager(config);
+        try {
+            List<FactorData> data = adapterManager.fetchData(source, query, startDate, endDate);
+            if (!data.isEmpty()) {
+                writeSymbolSlices(FactorFrame.from(data), tasks.size(), new FactorStore(directory));
+            }
+            logger.info("Wrote {} rows into {} symbol slices under {}", data.size(), tasks.size(), directory);
+        } catch (RuntimeException e) {
+            deleteSlices(directory);
+            throw e;
+        } finally {
+            adapterManager.shutdown();
+        }
+        for (int s = 0; s < tasks.size(); s++) {
+            tasks.set(s, tasks.get(s).withSliceDirectory(directory.toString()));
+        }
+        return directory;
+    }
+
+    /**
+     * 按标的编号散列把数据帧拆分到各分片的数据集，没有任何行的分片不写入
+     * @param frame 完整数据帧
+     * @param shardCount 分片总数
+     * @param store 分片数据存储
+     */
+    static void writeSymbolSlices(FactorFrame frame, int shardCount, FactorStore store) {
+        int rows = frame.rowCount();
+        int[] shardOfRow = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            shardOfRow[i] = ShardTask.shardOf(frame.symbolId(i), shardCount);
+        }
+        int[] owned = new int[rows];
+        for (int s = 0; s < shardCount; s++) {
+            int count = 0;
+            for (int i = 0; i < rows; i++) {
+                if (shardOfRow[i] == s) {
+                    owned[count++] = i;
+                }
+            }
+            if (count > 0) {
+                store.write(ShardTask.sliceName(s), frame.copyRows(owned, count));
+            }
+        }
+    }
+
+    private static void deleteSlices(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Failed to delete shard slice directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成各分片的任务：按标的分片时各分片覆盖完整区间，数据由run统一获取后写入分片目录；按日期分片时把交易日区间等分，
+     * 每个分片向前多取预热天数的数据
+     */
+    List<ShardTask> plan(String strategyName, String modelName, String source, String query,
+                         LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Invalid date range: " + startDate + " - " + endDate);
+        }
+        Properties workerConfig = new Properties();
+        for (String key : config.stringPropertyNames()) {
+            workerConfig.setProperty(key, config.getProperty(key));
+        }
+        // 工作进程分摊本机的处理线程，并且不导出指标
+        workerConfig.setProperty("processor.threads", String.valueOf(workerThreads));
+        workerConfig.setProperty("processor.features.threads", String.valueOf(workerThreads));
+        workerConfig.remove("metrics.export.file");
+        workerConfig.remove("metrics.http.port");
+
+        List<ShardTask> tasks = new ArrayList<>(workers);
+        if (mode == ShardTask.Mode.SYMBOL) {
+            for (int s = 0; s < workers; s++) {
+                tasks.add(new ShardTask(s, workers, mode, source, query, startDate, endDate,
+                        Integer.MIN_VALUE, Integer.MAX_VALUE, strategyName, modelName, workerConfig));
+            }
+            return tasks;
+        }
+
+        long firstDay = startDate.toLocalDate().toEpochDay();
+        long span = endDate.toLocalDate().toEpochDay() - firstDay + 1;
+        int shards = (int) Math.min(workers, span);
+        for (int s = 0; s < shards; s++) {
+            int keepFrom = (int) (firstDay + span * s / shards);
+            int keepTo = (int) (firstDay + span * (s + 1) / shards);
+            LocalDateTime fetchStart = s == 0 ? startDate
+                    : LocalDate.ofEpochDay(keepFrom - warmupDays).atStartOfDay();
+            if (fetchStart.isBefore(startDate)) {
+                fetchStart = startDate;
+            }
+            LocalDateTime fetchEnd = s == shards - 1 ? endDate
+                    : LocalDate.ofEpochDay(keepTo).atStartOfDay().minusNanos(1);
+            tasks.add(new ShardTask(s, shards, mode, source, query, fetchStart, fetchEnd,
+                    keepFrom, keepTo, strategyName, modelName, workerConfig));
+        }
+        return tasks;
+    }
+
+    static boolean featuresEnabled(Properties config) {
+        return Boolean.parseBoolean(config.getProperty("processor.features.enabled", "false"));
+    }
+
+    private Process launch(int port, int shardIndex, long token) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(InetAddress.getLoopbackAddress().getHostAddress());
+        command.add(String.valueOf(port));
+        command.add(String.valueOf(shardIndex));
+        command.add(String.valueOf(token));
+        return new ProcessBuilder(command)
+                .directory(new File(System.getProperty("user.dir")))
+                .inheritIO()
+                .start();
+    }
+
+    private ShardResult exchange(Socket socket, DataInputStream in, ShardTask task) throws IOException {
+        try (Socket ignored = socket;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            task.writeTo(out);
+            out.flush();
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, resultTimeoutMillis));
+            if (!in.readBoolean()) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                        "Shard " + task.getShardIndex() + " failed: " + in.readUTF());
+            }
+            return ShardResult.readFrom(in);
+        }
+    }
+
+    /**
+     * 合并各分片结果：同一交易日的仓位收益之和、仓位之和和标的数分别相加后按日期顺序推进回测，
+     * 因子输出按日期和标的编号排序
+     * @param results 各分片结果
+     * @param strategy 交易策略
+     * @param modelName 模型名称
+     * @return 合并后的分片运行结果
+     */
+    static ShardedRun merge(List<ShardResult> results, TradingStrategy strategy, String modelName) {
+        int dayEntries = 0;
+        int rows = 0;
+        for (ShardResult result : results) {
+            dayEntries += result.getDayCount();
+            rows += result.getRowCount();
+        }
+
+        // 高32位为日期，低32位为在拼接数组中的位置
+        long[] dayOrder = new long[dayEntries];
+        int[] entryShard = new int[dayEntries];
+        int[] entryIndex = new int[dayEntries];
+        int e = 0;
+        for (int r = 0; r < results.size(); r++) {
+            int[] days = results.get(r).days();
+            for (int d = 0; d < days.length; d++) {
+                dayOrder[e] = ((long) days[d] << 32) | e;
+                entryShard[e] = r;
+                entryIndex[e] = d;
+                e++;
+            }
+        }
+        Arrays.sort(dayOrder);
+
+        IncrementalBacktestEngine backtest = new IncrementalBacktestEngine(strategy);
+        int k = 0;
+        while (k < dayEntries) {
+            int date = (int) (dayOrder[k] >> 32);
+            double pnl = 0.0;
+            double exposure = 0.0;
+            int count = 0;
+            for (; k < dayEntries && (int) (dayOrder[k] >> 32) == date; k++) {
+                int entry = (int) dayOrder[k];
+                ShardResult result = results.get(entryShard[entry]);
+                int d = entryIndex[entry];
+                pnl += result.pnlSums()[d];
+                exposure += result.exposureSums()[d];
+                count += result.counts()[d];
+            }
+            backtest.onAggregate(date, pnl, exposure, count);
+        }
+
+        // 分片互不重叠，(日期, 标的)唯一，排序后按二分查找定位每行的位置
+        long[] keys = new long[rows];
+        double[] values = new double[rows];
+        int offset = 0;
+        for (ShardResult result : results) {
+            for (int i = 0; i < result.getRowCount(); i++) {
+                keys[offset + i] = ((long) result.rowDates()[i] << 32) | (result.rowSymbols()[i] & 0xFFFFFFFFL);
+            }
+            offset += result.getRowCount();
+        }
+        long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        for (int i = 1; i < rows; i++) {
+            if (sortedKeys[i] == sortedKeys[i - 1]) {
+                throw new IllegalStateException("Shards overlap on day " + LocalDate.ofEpochDay((int) (sortedKeys[i] >> 32))
+                        + ", symbol " + (int) sortedKeys[i]);
+            }
+        }
+        offset = 0;
+        for (ShardResult result : results) {
+            for (int i = 0; i < result.getRowCount(); i++) {
+                values[Arrays.binarySearch(sortedKeys, keys[offset + i])] = result.rowValues()[i];
+            }
+            offset += result.getRowCount();
+        }
+        int[] dates = new int[rows];
+        int[] symbols = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            dates[i] = (int) (sortedKeys[i] >> 32);
+            symbols[i] = (int) sortedKeys[i];
+        }
+
+        logger.info("Merged {} shards: {} days, {} rows, total return {}", results.size(), backtest.getDays(), rows,
+                backtest.getTotalReturn());
+        return new ShardedRun(backtest.toResult(modelName), dates, symbols, values, results.size());
+    }
+
+    /**
+     * 分片运行结果 - 合并后的回测结果和按日期、标的编号排序的因子输出
+     */
+    public static final class ShardedRun {
+        private final BacktestResult backtestResult;
+        private final int[] dates;
+        private final int[] symbolIds;
+        private final double[] factorValues;
+        private final int shardCount;
+
+        private ShardedRun(BacktestResult backtestResult, int[] dates, int[] symbolIds, double[] factorValues,
+                           int shardCount) {
+            this.backtestResult = backtestResult;
+            this.dates = dates;
+            this.symbolIds = symbolIds;
+            this.factorValues = factorValues;
+            this.shardCount = shardCount;
+        }
+
+        public BacktestResult getBacktestResult() {
+            return backtestResult;
+        }
+
+        public int getRowCount() {
+            return dates.length;
+        }
+
+        /**
+         * 因子输出的日期
+         * @param row 行号
+         * @return 日期（epoch day）
+         */
+        public int date(int row) {
+            return dates[row];
+        }
+
+        /**
+         * 因子输出的标的编号
+         * @param row 行号
+         * @return 标的编号
+         */
+        public int symbolId(int row) {
+            return symbolIds[row];
+        }
+
+        /**
+         * 因子输出的模型预测值
+         * @param row 行号
+         * @return 因子值
+         */
+        public double factorValue(int row) {
+            return factorValues[row];
+        }
+
+        public int getShardCount() {
+            return shardCount;
+        }
+    }
+}
\ No newline at end of file
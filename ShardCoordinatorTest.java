@@ -0,0 +1,211 @@
+package com.quant.altdata.shard;
+
+import com.quant.altdata.backtest.BacktestResult;
+import com.quant.altdata.backtest.IncrementalBacktestEngine;
+import com.quant.altdata.backtest.TradingStrategy;
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.data.storage.FactorStore;
+import com.quant.altdata.factor.model.LinearRegressionModel;
+import com.quant.altdata.processing.FeatureEngineeringProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片协调器测试类
+ */
+public class ShardCoordinatorTest {
+    private static final int DAYS = 30;
+    private static final int SYMBOLS = 7;
+
+    private static List<FactorData> data() {
+        Random random = new Random(11);
+        List<FactorData> data = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                double[] features = {random.nextGaussian(), random.nextGaussian()};
+                FactorData row = new FactorData(LocalDate.of(2024, 1, 1).plusDays(day), features,
+                        features[0] - 0.5 * features[1]);
+                row.setReturn(random.nextGaussian() * 0.01);
+                data.add(row);
+            }
+        }
+        return data;
+    }
+
+    private static ShardResult roundTrip(ShardResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            result.writeTo(out);
+        }
+        return ShardResult.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    void testSymbolShardsMergeToFullCrossSectionBacktest() throws IOException {
+        List<FactorData> data = data();
+        LinearRegressionModel model = new LinearRegressionModel(2);
+        model.train(data, 1);
+
+        FactorFrame full = FactorFrame.from(data);
+        double[] signals = new double[full.rowCount()];
+        model.predictBatch(full, signals);
+        IncrementalBacktestEngine expected = new IncrementalBacktestEngine(TradingStrategy.MOMENTUM);
+        expected.process(full, signals);
+        BacktestResult reference = expected.toResult("linear");
+
+        int shards = 3;
+        int[] ordinals = ShardWorker.symbolOrdinals(data);
+        List<ShardResult> results = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            FactorFrame.Builder builder = FactorFrame.builder(2, data.size());
+            for (int i = 0; i < data.size(); i++) {
+                if (ShardTask.shardOf(ordinals[i], shards) == s) {
+                    builder.add(data.get(i), ordinals[i]);
+                }
+            }
+            results.add(roundTrip(ShardWorker.score(s, builder.build(), model, TradingStrategy.MOMENTUM)));
+        }
+
+        ShardCoordinator.ShardedRun run = ShardCoordinator.merge(results, TradingStrategy.MOMENTUM, "linear");
+
+        BacktestResult merged = run.getBacktestResult();
+        assertArrayEquals(reference.epochDayArray(), merged.epochDayArray());
+        assertArrayEquals(reference.equityArray(), merged.equityArray(), 1e-12);
+        assertEquals(reference.getSharpeRatio(), merged.getSharpeRatio(), 1e-9);
+        assertEquals(data.size(), run.getRowCount());
+        for (int row = 0; row < run.getRowCount(); row++) {
+            // 原始数据按日期、标的顺序生成，合并输出的顺序与之相同
+            assertEquals(full.date(row), run.date(row));
+            assertEquals(full.symbolId(row), run.symbolId(row));
+            assertEquals(signals[row], run.factorValue(row), 1e-12);
+        }
+    }
+
+    @Test
+    void testSymbolSlicesPartitionTheFetchedFrame(@TempDir Path sliceDir) {
+        FactorFrame full = FactorFrame.from(data());
+        Map<Long, Integer> rowOf = new HashMap<>();
+        for (int row = 0; row < full.rowCount(); row++) {
+            rowOf.put(((long) full.date(row) << 32) | full.symbolId(row), row);
+        }
+        int shards = 3;
+        FactorStore store = new FactorStore(sliceDir);
+
+        ShardCoordinator.writeSymbolSlices(full, shards, store);
+
+        int total = 0;
+        for (int s = 0; s < shards; s++) {
+            FactorFrame slice = store.read(ShardTask.sliceName(s), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, DAYS));
+            for (int row = 0; row < slice.rowCount(); row++) {
+                // 分片只包含散列到自己的标的，行内容与协调进程获取的数据一致
+                assertEquals(s, ShardTask.shardOf(slice.symbolId(row), shards));
+                int source = rowOf.get(((long) slice.date(row) << 32) | slice.symbolId(row));
+                assertEquals(full.feature(source, 0), slice.feature(row, 0));
+                assertEquals(full.feature(source, 1), slice.feature(row, 1));
+                assertEquals(full.returnAt(source), slice.returnAt(row));
+            }
+            total += slice.rowCount();
+        }
+        assertEquals(full.rowCount(), total);
+    }
+
+    @Test
+    void testDatePlanCoversRangeWithWarmup() {
+        Properties config = new Properties();
+        config.setProperty("shard.workers", "4");
+        config.setProperty("shard.mode", "date");
+        config.setProperty("shard.date.warmupDays", "5");
+        ShardCoordinator coordinator = new ShardCoordinator(config);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 10, 23, 59);
+
+        List<ShardTask> tasks = coordinator.plan("momentum", "linear", "news", "", start, end);
+
+        assertEquals(4, tasks.size());
+        assertEquals(start, tasks.get(0).getFetchStart());
+        assertEquals(end, tasks.get(3).getFetchEnd());
+        int expectedFrom = (int) start.toLocalDate().toEpochDay();
+        for (ShardTask task : tasks) {
+            assertEquals(expectedFrom, task.getKeepFromDay());
+            expectedFrom = task.getKeepToDay();
+        }
+        assertEquals(end.toLocalDate().toEpochDay() + 1, expectedFrom);
+        ShardTask second = tasks.get(1);
+        assertEquals(start, second.getFetchStart());
+        assertEquals(LocalDate.ofEpochDay(tasks.get(2).getKeepFromDay() - 5).atStartOfDay(),
+                tasks.get(2).getFetchStart());
+    }
+
+    @Test
+    void testFeatureShardsMatchSingleProcessFeatures() {
+        // 只有工作日有数据，预热必须按交易日而不是日历天覆盖滚动窗口
+        Random random = new Random(5);
+        List<FactorData> data = new ArrayList<>();
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        for (int day = 0; day < 90; day++) {
+            LocalDate date = first.plusDays(day);
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (int symbol = 0; symbol < 6; symbol++) {
+                FactorData row = new FactorData(date, new double[]{random.nextGaussian()}, 0.0);
+                row.setClose(100.0 + random.nextGaussian());
+                row.setVolume(1000.0 + random.nextInt(500));
+                row.setReturn(random.nextGaussian() * 0.01);
+                data.add(row);
+            }
+        }
+        Properties config = new Properties();
+        config.setProperty("shard.workers", "4");
+        config.setProperty("processor.features.enabled", "true");
+        config.setProperty("processor.features.window", "10");
+        FeatureEngineeringProcessor processor = new FeatureEngineeringProcessor(10, 2, null);
+        List<FactorData> expected = processor.process(data);
+
+        List<ShardTask> tasks = new ShardCoordinator(config).plan("momentum", "linear", "news", "",
+                first.atStartOfDay(), first.plusDays(89).atTime(23, 59));
+
+        int kept = 0;
+        for (ShardTask task : tasks) {
+            assertEquals(ShardTask.Mode.DATE, task.getMode());
+            List<FactorData> fetched = new ArrayList<>();
+            List<Integer> sourceRows = new ArrayList<>();
+            for (int i = 0; i < data.size(); i++) {
+                LocalDate date = data.get(i).getDate();
+                if (!date.isBefore(task.getFetchStart().toLocalDate()) && !date.isAfter(task.getFetchEnd().toLocalDate())) {
+                    fetched.add(data.get(i));
+                    sourceRows.add(i);
+                }
+            }
+            List<FactorData> processed = processor.process(fetched);
+            for (int i = 0; i < processed.size(); i++) {
+                if (task.keepsDay((int) processed.get(i).getDate().toEpochDay())) {
+                    assertArrayEquals(expected.get(sourceRows.get(i)).getFeatures(), processed.get(i).getFeatures(), 1e-9);
+                    kept++;
+                }
+            }
+        }
+        processor.shutdown();
+        assertEquals(data.size(), kept);
+
+        config.setProperty("shard.mode", "symbol");
+        assertThrows(IllegalArgumentException.class, () -> new ShardCoordinator(config));
+    }
+}
\ No newline at end of file
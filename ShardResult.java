@@ -0,0 +1,166 @@
+package com.quant.altdata.shard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 分片结果 - 工作进程回传给协调进程的逐日汇总和因子输出
+ * <p>
+ * 逐日汇总按日期升序保存各交易日本分片标的的仓位收益之和、仓位之和和标的数，
+ * 协调进程把各分片同一天的汇总相加即得到完整横截面的等权组合收益，不需要传回逐行收益。
+ * 因子输出逐行保存日期、全局标的编号和模型预测值。
+ */
+public final class ShardResult {
+    private final int shardIndex;
+    private final int[] days;
+    private final double[] pnlSums;
+    private final double[] exposureSums;
+    private final int[] counts;
+    private final int[] rowDates;
+    private final int[] rowSymbols;
+    private final double[] rowValues;
+    private final long fetchNanos;
+    private final long processNanos;
+    private final long scoreNanos;
+
+    ShardResult(int shardIndex, int[] days, double[] pnlSums, double[] exposureSums, int[] counts,
+                int[] rowDates, int[] rowSymbols, double[] rowValues,
+                long fetchNanos, long processNanos, long scoreNanos) {
+        this.shardIndex = shardIndex;
+        this.days = days;
+        this.pnlSums = pnlSums;
+        this.exposureSums = exposureSums;
+        this.counts = counts;
+        this.rowDates = rowDates;
+        this.rowSymbols = rowSymbols;
+        this.rowValues = rowValues;
+        this.fetchNanos = fetchNanos;
+        this.processNanos = processNanos;
+        this.scoreNanos = scoreNanos;
+    }
+
+    /**
+     * 复制结果并附上各阶段耗时
+     * @param fetch 获取耗时（纳秒）
+     * @param process 处理耗时（纳秒）
+     * @param score 打分耗时（纳秒）
+     * @return 分片结果
+     */
+    ShardResult withTimings(long fetch, long process, long score) {
+        return new ShardResult(shardIndex, days, pnlSums, exposureSums, counts, rowDates, rowSymbols, rowValues,
+                fetch, process, score);
+    }
+
+    /**
+     * 写入输出流
+     * @param out 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(shardIndex);
+        out.writeLong(fetchNanos);
+        out.writeLong(processNanos);
+        out.writeLong(scoreNanos);
+        out.writeInt(days.length);
+        for (int d = 0; d < days.length; d++) {
+            out.writeInt(days[d]);
+            out.writeDouble(pnlSums[d]);
+            out.writeDouble(exposureSums[d]);
+            out.writeInt(counts[d]);
+        }
+        out.writeInt(rowDates.length);
+        for (int i = 0; i < rowDates.length; i++) {
+            out.writeInt(rowDates[i]);
+            out.writeInt(rowSymbols[i]);
+            out.writeDouble(rowValues[i]);
+        }
+    }
+
+    /**
+     * 从输入流读取
+     * @param in 输入流
+     * @return 分片结果
+     * @throws IOException 读取失败
+     */
+    public static ShardResult readFrom(DataInputStream in) throws IOException {
+        int shardIndex = in.readInt();
+        long fetchNanos = in.readLong();
+        long processNanos = in.readLong();
+        long scoreNanos = in.readLong();
+        int dayCount = in.readInt();
+        int[] days = new int[dayCount];
+        double[] pnlSums = new double[dayCount];
+        double[] exposureSums = new double[dayCount];
+        int[] counts = new int[dayCount];
+        for (int d = 0; d < dayCount; d++) {
+            days[d] = in.readInt();
+            pnlSums[d] = in.readDouble();
+            exposureSums[d] = in.readDouble();
+            counts[d] = in.readInt();
+        }
+        int rows = in.readInt();
+        int[] rowDates = new int[rows];
+        int[] rowSymbols = new int[rows];
+        double[] rowValues = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            rowDates[i] = in.readInt();
+            rowSymbols[i] = in.readInt();
+            rowValues[i] = in.readDouble();
+        }
+        return new ShardResult(shardIndex, days, pnlSums, exposureSums, counts, rowDates, rowSymbols, rowValues,
+                fetchNanos, processNanos, scoreNanos);
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getDayCount() {
+        return days.length;
+    }
+
+    public int getRowCount() {
+        return rowDates.length;
+    }
+
+    int[] days() {
+        return days;
+    }
+
+    double[] pnlSums() {
+        return pnlSums;
+    }
+
+    double[] exposureSums() {
+        return exposureSums;
+    }
+
+    int[] counts() {
+        return counts;
+    }
+
+    int[] rowDates() {
+        return rowDates;
+    }
+
+    int[] rowSymbols() {
+        return rowSymbols;
+    }
+
+    double[] rowValues() {
+        return rowValues;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    public long getProcessNanos() {
+        return processNanos;
+    }
+
+    public long getScoreNanos() {
+        return scoreNanos;
+    }
+}
\ No newline at end of file
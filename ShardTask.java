@@ -0,0 +1,249 @@
+package com.quant.altdata.shard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 分片任务 - 协调进程发给工作进程的一个分片的完整描述
+ * <p>
+ * 按日期分片时，每个分片获取自己的日期区间（向前多取预热天数以便滚动特征完整），处理后只保留区间内的行；
+ * 按标的分片时，协调进程只获取一次完整日期区间，按标的编号散列后把各分片的行写入临时目录下的FactorStore数据集，
+ * 工作进程通过内存映射读取自己的分片，不再访问数据源。标的编号由协调进程在完整数据上统一分配，
+ * 沿用FactorFrame的约定，即同一日期内按出现顺序编号。
+ */
+public final class ShardTask {
+
+    /**
+     * 分片方式
+     */
+    public enum Mode {
+        /** 按标的编号散列 */
+        SYMBOL,
+        /** 按连续日期区间 */
+        DATE;
+
+        /**
+         * 按名称查找分片方式，不区分大小写
+         * @param name 名称（symbol、date）
+         * @return 分片方式
+         */
+        public static Mode forName(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown shard mode: " + name);
+        }
+    }
+
+    private final int shardIndex;
+    private final int shardCount;
+    private final Mode mode;
+    private final String source;
+    private final String query;
+    private final LocalDateTime fetchStart;
+    private final LocalDateTime fetchEnd;
+    private final int keepFromDay;
+    private final int keepToDay;
+    private final String strategyName;
+    private final String modelName;
+    private final Properties config;
+    private final String sliceDirectory;
+
+    /**
+     * 构造函数
+     * @param shardIndex 分片序号
+     * @param shardCount 分片总数
+     * @param mode 分片方式
+     * @param source 数据源名称
+     * @param query 查询条件
+     * @param fetchStart 获取数据的开始时间
+     * @param fetchEnd 获取数据的结束时间
+     * @param keepFromDay 保留行的起始日期（epoch day，含）
+     * @param keepToDay 保留行的结束日期（epoch day，不含）
+     * @param strategyName 策略名称
+     * @param modelName 模型名称
+     * @param config 工作进程使用的配置
+     */
+    public ShardTask(int shardIndex, int shardCount, Mode mode, String source, String query,
+                     LocalDateTime fetchStart, LocalDateTime fetchEnd, int keepFromDay, int keepToDay,
+                     String strategyName, String modelName, Properties config) {
+        this(shardIndex, shardCount, mode, source, query, fetchStart, fetchEnd, keepFromDay, keepToDay,
+                strategyName, modelName, config, null);
+    }
+
+    private ShardTask(int shardIndex, int shardCount, Mode mode, String source, String query,
+                      LocalDateTime fetchStart, LocalDateTime fetchEnd, int keepFromDay, int keepToDay,
+                      String strategyName, String modelName, Properties config, String sliceDirectory) {
+        if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.mode = mode;
+        this.source = source;
+        this.query = query;
+        this.fetchStart = fetchStart;
+        this.fetchEnd = fetchEnd;
+        this.keepFromDay = keepFromDay;
+        this.keepToDay = keepToDay;
+        this.strategyName = strategyName;
+        this.modelName = modelName;
+        this.config = config;
+        this.sliceDirectory = sliceDirectory;
+    }
+
+    /**
+     * 指定按标的分片时分片数据所在的FactorStore目录
+     * @param directory 存储目录
+     * @return 新的分片任务
+     */
+    public ShardTask withSliceDirectory(String directory) {
+        return new ShardTask(shardIndex, shardCount, mode, source, query, fetchStart, fetchEnd, keepFromDay, keepToDay,
+                strategyName, modelName, config, directory);
+    }
+
+    /**
+     * 分片数据在FactorStore中的数据集名称
+     * @param shardIndex 分片序号
+     * @return 数据集名称
+     */
+    public static String sliceName(int shardIndex) {
+        return "shard-" + shardIndex;
+    }
+
+    /**
+     * 标的所属的分片，编号先经过乘法散列再取模，相邻编号均匀分散到各分片
+     * @param symbolId 标的编号
+     * @param shardCount 分片总数
+     * @return 分片序号
+     */
+    public static int shardOf(int symbolId, int shardCount) {
+        return Math.floorMod(symbolId * 0x9E3779B9, shardCount);
+    }
+
+    /**
+     * 判断日期是否在本分片保留的区间内
+     * @param epochDay 日期（epoch day）
+     * @return 是否保留
+     */
+    public boolean keepsDay(int epochDay) {
+        return epochDay >= keepFromDay && epochDay < keepToDay;
+    }
+
+    /**
+     * 写入输出流
+     * @param out 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(shardIndex);
+        out.writeInt(shardCount);
+        out.writeUTF(mode.name());
+        out.writeUTF(source);
+        out.writeUTF(query == null ? "" : query);
+        out.writeUTF(fetchStart.toString());
+        out.writeUTF(fetchEnd.toString());
+        out.writeInt(keepFromDay);
+        out.writeInt(keepToDay);
+        out.writeUTF(strategyName);
+        out.writeUTF(modelName);
+        Set<String> keys = config.stringPropertyNames();
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            out.writeUTF(key);
+            out.writeUTF(config.getProperty(key));
+        }
+        out.writeUTF(sliceDirectory == null ? "" : sliceDirectory);
+    }
+
+    /**
+     * 从输入流读取
+     * @param in 输入流
+     * @return 分片任务
+     * @throws IOException 读取失败
+     */
+    public static ShardTask readFrom(DataInputStream in) throws IOException {
+        int shardIndex = in.readInt();
+        int shardCount = in.readInt();
+        Mode mode = Mode.valueOf(in.readUTF());
+        String source = in.readUTF();
+        String query = in.readUTF();
+        LocalDateTime fetchStart = LocalDateTime.parse(in.readUTF());
+        LocalDateTime fetchEnd = LocalDateTime.parse(in.readUTF());
+        int keepFromDay = in.readInt();
+        int keepToDay = in.readInt();
+        String strategyName = in.readUTF();
+        String modelName = in.readUTF();
+        int entries = in.readInt();
+        Properties config = new Properties();
+        for (int i = 0; i < entries; i++) {
+            config.setProperty(in.readUTF(), in.readUTF());
+        }
+        String sliceDirectory = in.readUTF();
+        return new ShardTask(shardIndex, shardCount, mode, source, query, fetchStart, fetchEnd,
+                keepFromDay, keepToDay, strategyName, modelName, config, sliceDirectory.isEmpty() ? null : sliceDirectory);
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public LocalDateTime getFetchStart() {
+        return fetchStart;
+    }
+
+    public LocalDateTime getFetchEnd() {
+        return fetchEnd;
+    }
+
+    public int getKeepFromDay() {
+        return keepFromDay;
+    }
+
+    public int getKeepToDay() {
+        return keepToDay;
+    }
+
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public Properties getConfig() {
+        return config;
+    }
+
+    public String getSliceDirectory() {
+        return sliceDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + shardIndex + "/" + shardCount + " (" + mode.name().toLowerCase() + ")";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.quant.altdata.shard;
+
+import com.quant.altdata.backtest.TradingStrategy;
+import com.quant.altdata.data.adapter.DataAdapterManager;
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.data.storage.FactorStore;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.factor.model.FactorModelManager;
+import com.quant.altdata.processing.DataProcessor;
+import com.quant.altdata.processing.DataProcessorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片工作进程 - 在独立JVM中对一个分片执行获取、处理和打分
+ * <p>
+ * 启动参数为协调进程的地址、端口、分片序号和作业令牌。工作进程连接协调进程后先回送令牌和分片序号，
+ * 随后读取分片任务，按任务中的配置创建处理器和模型管理器，模型从协调进程预先保存的检查点恢复。
+ * 按日期分片时工作进程自行向数据适配器获取数据，按标的分片时从协调进程写好的FactorStore数据集读取本分片的行。
+ * 执行成功时回送分片结果，失败时回送错误信息，然后退出。
+ */
+public final class ShardWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ShardWorker.class);
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private ShardWorker() {
+    }
+
+    /**
+     * 工作进程入口
+     * @param args 协调进程地址、端口、分片序号、作业令牌
+     */
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: ShardWorker <host> <port> <shardIndex> <token>");
+            System.exit(2);
+        }
+        int shardIndex = Integer.parseInt(args[2]);
+        int status = 0;
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeLong(Long.parseLong(args[3]));
+            out.writeInt(shardIndex);
+            out.flush();
+
+            ShardTask task = ShardTask.readFrom(in);
+            try {
+                ShardResult result = run(task);
+                out.writeBoolean(true);
+                result.writeTo(out);
+            } catch (Exception e) {
+                logger.error("Shard {} failed: {}", shardIndex, e.getMessage(), e);
+                String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+                out.writeBoolean(false);
+                out.writeUTF(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                status = 1;
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.error("Shard {} lost connection to coordinator: {}", shardIndex, e.getMessage(), e);
+            status = 1;
+        }
+        // 模型库可能留下非守护线程，显式退出
+        System.exit(status);
+    }
+
+    /**
+     * 执行分片任务
+     * @param task 分片任务
+     * @return 分片结果
+     */
+    public static ShardResult run(ShardTask task) {
+        if (task.getMode() == ShardTask.Mode.SYMBOL && ShardCoordinator.featuresEnabled(task.getConfig())) {
+            throw new IllegalArgumentException("Symbol shards cannot compute cross-sectional features");
+        }
+        DataAdapterManager adapterManager = task.getMode() == ShardTask.Mode.DATE
+                ? new DataAdapterManager(task.getConfig()) : null;
+        FactorModelManager modelManager = new FactorModelManager(task.getConfig());
+        try {
+            long start = System.nanoTime();
+            List<FactorData> rawData;
+            int[] globalSymbols = null;
+            if (task.getMode() == ShardTask.Mode.SYMBOL) {
+                FactorFrame slice = readSlice(task);
+                rawData = slice.toFactorDataList();
+                globalSymbols = new int[slice.rowCount()];
+                for (int i = 0; i < globalSymbols.length; i++) {
+                    globalSymbols[i] = slice.symbolId(i);
+                }
+            } else {
+                rawData = adapterManager.fetchData(task.getSource(), task.getQuery(),
+                        task.getFetchStart(), task.getFetchEnd());
+            }
+            long fetched = System.nanoTime();
+
+            DataProcessor processor = DataProcessorFactory.createProcessor(task.getConfig());
+            List<FactorData> processed = processor.process(rawData);
+            if (globalSymbols != null && processed.size() != globalSymbols.length) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                        "Symbol sharding requires a row-preserving processor, but " + rawData.size()
+                                + " rows became " + processed.size());
+            }
+            int[] symbols = globalSymbols != null ? globalSymbols : symbolOrdinals(processed);
+            FactorFrame frame = keptFrame(task, processed, symbols);
+            long processedAt = System.nanoTime();
+
+            FactorModel model = modelManager.getModel(task.getModelName());
+            if (!model.isTrained()) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.MODEL_PREDICTION_ERROR,
+                        "Model " + task.getModelName() + " has no trained checkpoint");
+            }
+            ShardResult scored = score(task.getShardIndex(), frame, model, TradingStrategy.forName(task.getStrategyName()));
+            long end = System.nanoTime();
+            logger.info("Shard {} scored {} rows over {} days", task, scored.getRowCount(), scored.getDayCount());
+            return scored.withTimings(fetched - start, processedAt - fetched, end - processedAt);
+        } finally {
+            if (adapterManager != null) {
+                adapterManager.shutdown();
+            }
+            modelManager.shutdown();
+        }
+    }
+
+    /**
+     * 对分片数据帧打分并按日汇总策略仓位收益
+     * @param shardIndex 分片序号
+     * @param frame 分片数据帧，标的编号为全局编号
+     * @param model 已训练的模型
+     * @param strategy 交易策略
+     * @return 分片结果，不含耗时
+     */
+    static ShardResult score(int shardIndex, FactorFrame frame, FactorModel model, TradingStrategy strategy) {
+        int rows = frame.rowCount();
+        double[] predictions = new double[rows];
+        if (rows > 0) {
+            model.predictBatch(frame, predictions);
+        }
+
+        // 按日期排序的行下标：高32位为日期，低32位为行号
+        long[] order = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = ((long) frame.date(i) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] days = new int[rows];
+        double[] pnlSums = new double[rows];
+        double[] exposureSums = new double[rows];
+        int[] counts = new int[rows];
+        int dayCount = 0;
+        for (int k = 0; k < rows; k++) {
+            int row = (int) order[k];
+            int date = (int) (order[k] >> 32);
+            if (dayCount == 0 || days[dayCount - 1] != date) {
+                days[dayCount++] = date;
+            }
+            double position = strategy.position(predictions[row]);
+            pnlSums[dayCount - 1] += position * frame.returnAt(row);
+            exposureSums[dayCount - 1] += position;
+            counts[dayCount - 1]++;
+        }
+
+        int[] rowDates = new int[rows];
+        int[] rowSymbols = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            rowDates[i] = frame.date(i);
+            rowSymbols[i] = frame.symbolId(i);
+        }
+        return new ShardResult(shardIndex, Arrays.copyOf(days, dayCount), Arrays.copyOf(pnlSums, dayCount),
+                Arrays.copyOf(exposureSums, dayCount), Arrays.copyOf(counts, dayCount),
+                rowDates, rowSymbols, predictions, 0, 0, 0);
+    }
+
+    /**
+     * 读取协调进程写入的本分片数据，分片没有任何标的时数据集不存在，返回空数据帧
+     */
+    private static FactorFrame readSlice(ShardTask task) {
+        if (task.getSliceDirectory() == null) {
+            throw new IllegalArgumentException("Symbol shard " + task + " has no slice directory");
+        }
+        return new FactorStore(Paths.get(task.getSliceDirectory())).read(ShardTask.sliceName(task.getShardIndex()),
+                task.getFetchStart().toLocalDate(), task.getFetchEnd().toLocalDate());
+    }
+
+    /**
+     * 同一日期内按出现顺序编号，与FactorFrame.from一致
+     */
+    static int[] symbolOrdinals(List<FactorData> data) {
+        int[] ordinals = new int[data.size()];
+        Map<LocalDate, Integer> next = new HashMap<>();
+        for (int i = 0; i < data.size(); i++) {
+            ordinals[i] = next.merge(data.get(i).getDate(), 1, Integer::sum) - 1;
+        }
+        return ordinals;
+    }
+
+    private static FactorFrame keptFrame(ShardTask task, List<FactorData> processed, int[] symbols) {
+        int featureCount = processed.isEmpty() ? 0 : processed.get(0).getFeatures().length;
+        FactorFrame.Builder builder = FactorFrame.builder(featureCount, processed.size());
+        for (int i = 0; i < processed.size(); i++) {
+            FactorData data = processed.get(i);
+            if (task.keepsDay((int) data.getDate().toEpochDay())) {
+                builder.add(data, symbols[i]);
+            }
+        }
+        return builder.build();
+    }
+}
\ No newline at end of file
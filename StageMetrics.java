@@ -0,0 +1,131 @@
+package com.quant.altdata.pipeline;
+
+import com.quant.altdata.metrics.MetricsRegistry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流水线阶段指标 - 记录单个阶段的输入队列深度、处理记录数和吞吐，
+ * 指定了指标注册表时每个批次同时计入对应的引擎阶段
+ */
+public class StageMetrics {
+    private final String stageName;
+    private final BlockingQueue<?> inputQueue;
+    private final MetricsRegistry registry;
+    private final MetricsRegistry.Stage registryStage;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * 构造函数
+     * @param stageName 阶段名称
+     * @param inputQueue 阶段输入队列，源头阶段为null
+     */
+    public StageMetrics(String stageName, BlockingQueue<?> inputQueue) {
+        this(stageName, inputQueue, null, null);
+    }
+
+    /**
+     * 构造函数
+     * @param stageName 阶段名称
+     * @param inputQueue 阶段输入队列，源头阶段为null
+     * @param registry 接收批次耗时的指标注册表，可以为null
+     * @param registryStage 批次计入的引擎阶段
+     */
+    public StageMetrics(String stageName, BlockingQueue<?> inputQueue, MetricsRegistry registry,
+                        MetricsRegistry.Stage registryStage) {
+        this.stageName = stageName;
+        this.inputQueue = inputQueue;
+        this.registry = registry;
+        this.registryStage = registryStage;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录一个批次的处理
+     * @param recordCount 记录数
+     * @param elapsedNanos 处理耗时
+     */
+    void recordBatch(int recordCount, long elapsedNanos) {
+        records.add(recordCount);
+        batches.increment();
+        busyNanos.add(elapsedNanos);
+        sampleQueueDepth();
+        if (registry != null) {
+            registry.record(registryStage, elapsedNanos, recordCount);
+        }
+    }
+
+    /**
+     * 采样输入队列深度
+     */
+    void sampleQueueDepth() {
+        if (inputQueue == null) {
+            return;
+        }
+        int depth = inputQueue.size();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    public long getRecords() {
+        return records.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public int getQueueDepth() {
+        return inputQueue == null ? 0 : inputQueue.size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * 阶段运行期间的记录吞吐
+     * @return 记录数/秒
+     */
+    public double getRecordsPerSecond() {
+        long start = startNanos;
+        if (start == 0) {
+            return 0.0;
+        }
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return end > start ? records.sum() * 1e9 / (end - start) : 0.0;
+    }
+
+    /**
+     * 阶段线程实际处理的时间占比，接近1说明该阶段是瓶颈
+     * @param workers 阶段线程数
+     * @return 利用率
+     */
+    public double getUtilization(int workers) {
+        long start = startNanos;
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return start == 0 || end <= start ? 0.0 : (double) busyNanos.sum() / ((end - start) * (double) workers);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: records=%d batches=%d queueDepth=%d maxQueueDepth=%d throughput=%.1f rec/s",
+                stageName, getRecords(), getBatches(), getQueueDepth(), getMaxQueueDepth(), getRecordsPerSecond());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.quant.altdata.pipeline;
+
+import com.quant.altdata.data.adapter.DataAdapterManager;
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.metrics.MetricsRegistry;
+import com.quant.altdata.processing.DataProcessor;
+import com.quant.altdata.processing.FeatureEngineeringProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 流式处理流水线 - 数据获取、加工和模型打分三个阶段通过有界队列串联
+ * <p>
+ * 获取阶段通过DataAdapterManager按时间分块把数据发布到原始数据队列，分块获取经过磁盘缓存和请求合并，
+ * 多个加工线程并发消费并写入打分队列，
+ * 打分阶段在调用线程上逐批增量打分。队列满时上游阻塞，内存占用只与队列容量和分块大小有关，
+ * 与时间窗口长度无关。加工阶段并发执行，批次到达打分阶段的顺序不保证与获取顺序一致。
+ * <p>
+ * 加工阶段逐块独立处理，不支持依赖历史窗口的特征工程处理器：滚动窗口会在每个分块处重新开始，
+ * 得到的特征与批量计算不一致，因此构造时直接拒绝。
+ */
+public class StreamingPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingPipeline.class);
+    private static final List<FactorData> END_OF_STREAM = new ArrayList<>(0);
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * 打分结果监听器
+     */
+    public interface ScoreListener {
+        /**
+         * 一个批次打分完成。scores数组在回调结束后会被复用，需要保留时请复制
+         * @param batch 已写入因子值的批次
+         * @param scores 打分结果，前batch.size()个元素有效
+         */
+        void onScored(List<FactorData> batch, double[] scores);
+    }
+
+    private final DataAdapterManager adapterManager;
+    private final String source;
+    private final DataProcessor processor;
+    private final FactorModel model;
+    private final int queueCapacity;
+    private final int processorWorkers;
+    private final int chunkDays;
+    private MetricsRegistry metrics;
+
+    /**
+     * 构造函数
+     * @param adapterManager 数据适配器管理器
+     * @param source 数据源名称
+     * @param processor 数据处理器
+     * @param model 打分模型
+     * @param queueCapacity 每个阶段间队列可容纳的批次数
+     * @param processorWorkers 加工阶段线程数
+     * @param chunkDays 数据获取的分块天数
+     */
+    public StreamingPipeline(DataAdapterManager adapterManager, String source, DataProcessor processor, FactorModel model,
+                             int queueCapacity, int processorWorkers, int chunkDays) {
+        if (queueCapacity <= 0 || processorWorkers <= 0 || chunkDays <= 0) {
+            throw new IllegalArgumentException("Queue capacity, workers and chunk days must be positive");
+        }
+        if (processor instanceof FeatureEngineeringProcessor) {
+            throw new IllegalArgumentException("Feature engineering needs the full history and is not supported in "
+                    + "streaming mode; disable processor.features.enabled or use the batch API");
+        }
+        adapterManager.getAdapter(source);
+        this.adapterManager = adapterManager;
+        this.source = source;
+        this.processor = processor;
+        this.model = model;
+        this.queueCapacity = queueCapacity;
+        this.processorWorkers = processorWorkers;
+        this.chunkDays = chunkDays;
+    }
+
+    /**
+     * 设置指标注册表，各阶段的每个批次分别计入FETCH、PROCESS和PREDICT阶段
+     * @param metrics 指标注册表，null表示不记录
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 运行流水线直到时间窗口内的数据全部打分完成
+     * @param query 查询条件
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param listener 打分结果监听器
+     * @return 各阶段指标，依次为fetch、process、score
+     */
+    public List<StageMetrics> run(String query, LocalDateTime startDate, LocalDateTime endDate, ScoreListener listener) {
+        BlockingQueue<List<FactorData>> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<FactorData>> processedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        StageMetrics fetchMetrics = new StageMetrics("fetch", null, metrics, MetricsRegistry.Stage.FETCH);
+        StageMetrics processMetrics = new StageMetrics("process", rawQueue, metrics, MetricsRegistry.Stage.PROCESS);
+        StageMetrics scoreMetrics = new StageMetrics("score", processedQueue, metrics, MetricsRegistry.Stage.PREDICT);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger remainingWorkers = new AtomicInteger(processorWorkers);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService stages = Executors.newFixedThreadPool(1 + processorWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-stage-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("Starting streaming pipeline for query '{}' between {} and {}", query, startDate, endDate);
+        try {
+            stages.submit(() -> runStage(failure, stages, () -> {
+                fetchMetrics.start();
+                long[] lastEmit = {System.nanoTime()};
+                adapterManager.stream(source, query, startDate, endDate, chunkDays, chunk -> {
+                    fetchMetrics.recordBatch(chunk.size(), System.nanoTime() - lastEmit[0]);
+                    put(rawQueue, chunk);
+                    processMetrics.sampleQueueDepth();
+                    lastEmit[0] = System.nanoTime();
+                });
+                put(rawQueue, END_OF_STREAM);
+                fetchMetrics.finish();
+            }));
+
+            processMetrics.start();
+            for (int w = 0; w < processorWorkers; w++) {
+                stages.submit(() -> runStage(failure, stages, () -> {
+                    while (true) {
+                        List<FactorData> batch = rawQueue.take();
+                        if (batch == END_OF_STREAM) {
+                            put(rawQueue, END_OF_STREAM);
+                            if (remainingWorkers.decrementAndGet() == 0) {
+                                processMetrics.finish();
+                                put(processedQueue, END_OF_STREAM);
+                            }
+                            return;
+                        }
+                        long start = System.nanoTime();
+                        List<FactorData> processed = processor.process(batch);
+                        processMetrics.recordBatch(batch.size(), System.nanoTime() - start);
+                        if (!processed.isEmpty()) {
+                            put(processedQueue, processed);
+                            scoreMetrics.sampleQueueDepth();
+                        }
+                    }
+                }));
+            }
+
+            runStage(failure, stages, () -> score(processedQueue, scoreMetrics, failure, listener));
+        } finally {
+            stages.shutdownNow();
+        }
+
+        List<StageMetrics> metrics = Arrays.asList(fetchMetrics, processMetrics, scoreMetrics);
+        Throwable error = failure.get();
+        if (error != null) {
+            if (error instanceof FactorEngineException) {
+                throw (FactorEngineException) error;
+            }
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Streaming pipeline failed", error);
+        }
+
+        metrics.forEach(stage -> logger.info("Pipeline stage {}", stage));
+        return metrics;
+    }
+
+    /**
+     * 打分阶段：逐批打包特征并调用批量预测，特征缓冲区在批次间复用
+     */
+    private void score(BlockingQueue<List<FactorData>> processedQueue, StageMetrics scoreMetrics,
+                       AtomicReference<Throwable> failure, ScoreListener listener) throws InterruptedException {
+        int inputSize = model.getInputSize();
+        double[] features = new double[0];
+        double[] scores = new double[0];
+        scoreMetrics.start();
+        while (failure.get() == null) {
+            List<FactorData> batch = processedQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (batch == null) {
+                continue;
+            }
+            if (batch == END_OF_STREAM) {
+                break;
+            }
+
+            long start = System.nanoTime();
+            int rows = batch.size();
+            if (features.length < rows * inputSize) {
+                features = new double[rows * inputSize];
+                scores = new double[rows];
+            }
+            for (int i = 0; i < rows; i++) {
+                System.arraycopy(batch.get(i).getFeatures(), 0, features, i * inputSize, inputSize);
+            }
+            model.predictBatch(features, rows, scores);
+            for (int i = 0; i < rows; i++) {
+                batch.get(i).setFactorValue(scores[i]);
+            }
+            listener.onScored(batch, scores);
+            scoreMetrics.recordBatch(rows, System.nanoTime() - start);
+        }
+        scoreMetrics.finish();
+    }
+
+    /**
+     * 阶段任务
+     */
+    private interface StageTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 运行阶段任务，失败时记录首个异常并中断其余阶段
+     */
+    private static void runStage(AtomicReference<Throwable> failure, ExecutorService stages, StageTask task) {
+        try {
+            task.run();
+        } catch (InterruptedException | CancellationException e) {
+            // 其他阶段失败导致的中断，异常已记录
+        } catch (Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                logger.error("Pipeline stage failed: {}", e.getMessage(), e);
+            }
+            stages.shutdownNow();
+        }
+    }
+
+    /**
+     * 阻塞写入队列，队列满时形成背压
+     */
+    private static void put(BlockingQueue<List<FactorData>> queue, List<FactorData> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Pipeline cancelled");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.quant.altdata.backtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 参数扫描网格 - 策略、模型和训练轮数的笛卡尔积，以及可选的滚动前推（walk-forward）窗口
+ * <p>
+ * 配置了滚动窗口时，每个窗口用前trainDays天的数据训练模型副本，在随后testDays天上做样本外回测，
+ * 窗口每次前移stepDays天；未配置时直接使用模型管理器中的当前模型对全部历史回测，训练轮数不生效。
+ */
+public class SweepGrid {
+    private final List<String> strategies;
+    private final List<String> models;
+    private final List<Integer> epochs;
+    private final int trainDays;
+    private final int testDays;
+    private final int stepDays;
+
+    private SweepGrid(Builder builder) {
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(builder.strategies));
+        this.models = Collections.unmodifiableList(new ArrayList<>(builder.models));
+        this.epochs = Collections.unmodifiableList(new ArrayList<>(builder.epochs));
+        this.trainDays = builder.trainDays;
+        this.testDays = builder.testDays;
+        this.stepDays = builder.stepDays;
+    }
+
+    /**
+     * 创建网格构建器
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 展开网格中的全部参数组合
+     * @return 参数组合列表
+     */
+    public List<Configuration> configurations() {
+        List<Configuration> configurations = new ArrayList<>(strategies.size() * models.size() * epochs.size());
+        for (String model : models) {
+            for (int epoch : epochs) {
+                for (String strategy : strategies) {
+                    configurations.add(new Configuration(TradingStrategy.forName(strategy), model, epoch));
+                }
+            }
+        }
+        return configurations;
+    }
+
+    public boolean isWalkForward() {
+        return testDays > 0;
+    }
+
+    public int getTrainDays() {
+        return trainDays;
+    }
+
+    public int getTestDays() {
+        return testDays;
+    }
+
+    public int getStepDays() {
+        return stepDays;
+    }
+
+    /**
+     * 网格构建器
+     */
+    public static class Builder {
+        private List<String> strategies = Collections.emptyList();
+        private List<String> models = Collections.emptyList();
+        private List<Integer> epochs = Collections.singletonList(0);
+        private int trainDays;
+        private int testDays;
+        private int stepDays;
+
+        public Builder strategies(String... names) {
+            this.strategies = Arrays.asList(names);
+            return this;
+        }
+
+        public Builder models(String... names) {
+            this.models = Arrays.asList(names);
+            return this;
+        }
+
+        public Builder epochs(Integer... values) {
+            this.epochs = Arrays.asList(values);
+            return this;
+        }
+
+        /**
+         * 设置滚动前推窗口
+         * @param trainDays 训练窗口天数
+         * @param testDays 样本外测试窗口天数
+         * @param stepDays 窗口前移天数
+         * @return 构建器
+         */
+        public Builder walkForward(int trainDays, int testDays, int stepDays) {
+            if (trainDays <= 0 || testDays <= 0 || stepDays <= 0) {
+                throw new IllegalArgumentException("Walk-forward window lengths must be positive");
+            }
+            this.trainDays = trainDays;
+            this.testDays = testDays;
+            this.stepDays = stepDays;
+            return this;
+        }
+
+        public SweepGrid build() {
+            if (strategies.isEmpty() || models.isEmpty() || epochs.isEmpty()) {
+                throw new IllegalArgumentException("Sweep grid needs at least one strategy, model and epoch value");
+            }
+            return new SweepGrid(this);
+        }
+    }
+
+    /**
+     * 单个参数组合
+     */
+    public static final class Configuration {
+        private final TradingStrategy strategy;
+        private final String modelName;
+        private final int epochs;
+
+        Configuration(TradingStrategy strategy, String modelName, int epochs) {
+            this.strategy = strategy;
+            this.modelName = modelName;
+            this.epochs = epochs;
+        }
+
+        public TradingStrategy getStrategy() {
+            return strategy;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        public int getEpochs() {
+            return epochs;
+        }
+
+        @Override
+        public String toString() {
+            return strategy.name().toLowerCase() + "/" + modelName + "/epochs=" + epochs;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.quant.altdata.backtest;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 参数扫描结果 - 单个参数组合拼接全部样本外窗口后的回测绩效
+ */
+public class SweepResult {
+    /** 排名顺序：夏普比率降序，相同时最大回撤较小者优先 */
+    public static final Comparator<SweepResult> RANKING = Comparator
+            .comparingDouble(SweepResult::getSharpeRatio).reversed()
+            .thenComparing(Comparator.comparingDouble(SweepResult::getMaxDrawdown).reversed());
+
+    private final SweepGrid.Configuration configuration;
+    private final int windows;
+    private final BacktestResult backtestResult;
+    private final long days;
+
+    /**
+     * 构造函数
+     * @param configuration 参数组合
+     * @param windows 参与回测的窗口数
+     * @param days 回测交易日数
+     * @param backtestResult 回测结果
+     */
+    public SweepResult(SweepGrid.Configuration configuration, int windows, long days, BacktestResult backtestResult) {
+        this.configuration = configuration;
+        this.windows = windows;
+        this.days = days;
+        this.backtestResult = backtestResult;
+    }
+
+    /**
+     * 将排好序的结果格式化为文本表格
+     * @param results 扫描结果
+     * @return 表格文本
+     */
+    public static String toTable(List<SweepResult> results) {
+        StringBuilder table = new StringBuilder(String.format("%-4s %-12s %-14s %6s %8s %10s %12s %12s%n",
+                "rank", "strategy", "model", "epochs", "windows", "sharpe", "maxDrawdown", "totalReturn"));
+        int rank = 1;
+        for (SweepResult result : results) {
+            SweepGrid.Configuration c = result.configuration;
+            table.append(String.format("%-4d %-12s %-14s %6d %8d %10.4f %12.4f %12.4f%n", rank++,
+                    c.getStrategy().name().toLowerCase(), c.getModelName(), c.getEpochs(), result.windows,
+                    result.getSharpeRatio(), result.getMaxDrawdown(), result.getTotalReturn()));
+        }
+        return table.toString();
+    }
+
+    public SweepGrid.Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public int getWindows() {
+        return windows;
+    }
+
+    public long getDays() {
+        return days;
+    }
+
+    public double getSharpeRatio() {
+        return backtestResult.getSharpeRatio();
+    }
+
+    public double getMaxDrawdown() {
+        return backtestResult.getMaxDrawdown();
+    }
+
+    public double getTotalReturn() {
+        return backtestResult.getTotalReturn();
+    }
+
+    public BacktestResult getBacktestResult() {
+        return backtestResult;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,337 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.factor.model.FactorModelManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 参数扫描运行器 - 在多核上并行运行参数网格和滚动前推窗口的回测
+ * <p>
+ * 所有任务共享同一个按日期排序的只读数据帧，每个窗口通过slice取零拷贝视图；
+ * 模型预测写入任务自己的信号数组，不修改数据帧。信号只取决于模型、训练轮数和窗口，与策略无关，
+ * 因此每个(模型, 训练轮数, 窗口)是一个独立任务，训练一次后由所有策略共享；
+ * 每个参数组合的各窗口信号完成后按时间顺序依次送入增量回测引擎，拼接成样本外净值曲线。
+ */
+public class SweepRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SweepRunner.class);
+
+    private final FactorModelManager modelManager;
+    private final ExecutorService executor;
+
+    /**
+     * 扫描进度监听器
+     */
+    public interface ProgressListener {
+        /**
+         * 一个任务完成
+         * @param completed 已完成任务数
+         * @param total 任务总数
+         */
+        void onProgress(int completed, int total);
+    }
+
+    /**
+     * 构造函数
+     * @param modelManager 模型管理器
+     * @param threads 并行线程数
+     */
+    public SweepRunner(FactorModelManager modelManager, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.modelManager = modelManager;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "backtest-sweep-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交参数扫描
+     * @param grid 参数网格
+     * @param history 历史数据帧，扫描期间不会被修改
+     * @param listener 进度监听器，可以为null
+     * @return 扫描任务
+     */
+    public SweepJob submit(SweepGrid grid, FactorFrame history, ProgressListener listener) {
+        if (history == null || history.isEmpty()) {
+            throw new IllegalArgumentException("Factor data cannot be null or empty");
+        }
+
+        FactorFrame frame = sortedByDate(history);
+        List<int[]> windows = grid.isWalkForward() ? walkForwardWindows(frame, grid) : fullHistoryWindow(frame);
+        if (windows.isEmpty()) {
+            throw new IllegalArgumentException("History is too short for the walk-forward windows");
+        }
+
+        List<SweepGrid.Configuration> configurations = grid.configurations();
+        // 按(模型, 训练轮数)分组，不做滚动前推时训练轮数不生效，只按模型分组
+        Map<String, List<SweepGrid.Configuration>> groups = new LinkedHashMap<>();
+        for (SweepGrid.Configuration configuration : configurations) {
+            String key = grid.isWalkForward()
+                    ? configuration.getModelName() + "/" + configuration.getEpochs() : configuration.getModelName();
+            groups.computeIfAbsent(key, ignored -> new ArrayList<>()).add(configuration);
+        }
+
+        SweepJob job = new SweepJob(groups.size() * windows.size(), listener);
+        List<CompletableFuture<SweepResult>> results = new ArrayList<>(configurations.size());
+        for (List<SweepGrid.Configuration> group : groups.values()) {
+            SweepGrid.Configuration first = group.get(0);
+            List<CompletableFuture<double[]>> signals = new ArrayList<>(windows.size());
+            for (int[] window : windows) {
+                signals.add(CompletableFuture.supplyAsync(
+                        () -> job.track(() -> predictWindow(job, first, frame, window, grid.isWalkForward())),
+                        executor));
+            }
+            CompletableFuture<Void> ready = CompletableFuture.allOf(signals.toArray(new CompletableFuture[0]));
+            for (SweepGrid.Configuration configuration : group) {
+                results.add(ready.thenApply(ignored -> combine(configuration, frame, windows, signals)));
+            }
+        }
+
+        job.start(results);
+        logger.info("Submitted sweep of {} configurations over {} windows, training {} models per window",
+                configurations.size(), windows.size(), groups.size());
+        return job;
+    }
+
+    /**
+     * 训练窗口内的模型副本并对测试区间打分
+     */
+    private double[] predictWindow(SweepJob job, SweepGrid.Configuration configuration, FactorFrame frame,
+                                   int[] window, boolean walkForward) {
+        job.checkCancelled();
+        FactorModel model = modelManager.getModel(configuration.getModelName());
+        if (walkForward) {
+            try {
+                model = model.copy();
+            } catch (UnsupportedOperationException e) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                        "Model " + configuration.getModelName() + " cannot be copied for walk-forward training", e);
+            }
+            model.train(frame.slice(window[0], window[1]), configuration.getEpochs());
+            job.checkCancelled();
+        }
+
+        FactorFrame test = frame.slice(window[1], window[2]);
+        double[] predictions = new double[test.rowCount()];
+        model.predictBatch(test, predictions);
+        return predictions;
+    }
+
+    /**
+     * 按窗口顺序把样本外信号送入同一个增量回测引擎
+     */
+    private static SweepResult combine(SweepGrid.Configuration configuration, FactorFrame frame,
+                                       List<int[]> windows, List<CompletableFuture<double[]>> signals) {
+        IncrementalBacktestEngine backtest = new IncrementalBacktestEngine(configuration.getStrategy());
+        for (int w = 0; w < windows.size(); w++) {
+            int[] window = windows.get(w);
+            backtest.process(frame.slice(window[1], window[2]), signals.get(w).join());
+        }
+        return new SweepResult(configuration, windows.size(), backtest.getDays(),
+                backtest.toResult(configuration.getModelName()));
+    }
+
+    /**
+     * 生成滚动前推窗口，每个窗口为[训练起始行, 测试起始行, 测试结束行)
+     */
+    static List<int[]> walkForwardWindows(FactorFrame frame, SweepGrid grid) {
+        List<int[]> windows = new ArrayList<>();
+        int firstDay = frame.date(0);
+        int lastDay = frame.date(frame.rowCount() - 1);
+        for (int trainStart = firstDay; ; trainStart += grid.getStepDays()) {
+            int testStart = trainStart + grid.getTrainDays();
+            if (testStart > lastDay) {
+                break;
+            }
+            int testEnd = testStart + grid.getTestDays();
+            int[] window = {lowerBound(frame, trainStart), lowerBound(frame, testStart), lowerBound(frame, testEnd)};
+            if (window[1] > window[0] && window[2] > window[1]) {
+                windows.add(window);
+            }
+        }
+        return windows;
+    }
+
+    private static List<int[]> fullHistoryWindow(FactorFrame frame) {
+        List<int[]> windows = new ArrayList<>(1);
+        windows.add(new int[]{0, 0, frame.rowCount()});
+        return windows;
+    }
+
+    /**
+     * 第一个日期不早于epochDay的行下标
+     */
+    private static int lowerBound(FactorFrame frame, int epochDay) {
+        int low = 0;
+        int high = frame.rowCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (frame.date(mid) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 已按日期排序时直接返回原数据帧，否则按日期稳定排序行下标后复制一次，标的编号随行保留
+     */
+    static FactorFrame sortedByDate(FactorFrame frame) {
+        int rows = frame.rowCount();
+        for (int i = 1; i < rows; i++) {
+            if (frame.date(i) < frame.date(i - 1)) {
+                // 高32位为日期，低32位为行号，同一日期内保持原有顺序
+                long[] keys = new long[rows];
+                for (int row = 0; row < rows; row++) {
+                    keys[row] = ((long) frame.date(row) << 32) | row;
+                }
+                Arrays.sort(keys);
+                int[] order = new int[rows];
+                for (int k = 0; k < rows; k++) {
+                    order[k] = (int) keys[k];
+                }
+                return frame.copyRows(order, rows);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 参数扫描任务 - 提供进度查询、取消和等待排名结果
+     */
+    public static class SweepJob {
+        private final int totalTasks;
+        private final AtomicInteger completedTasks = new AtomicInteger();
+        private final ProgressListener listener;
+        private final Set<Thread> running = new HashSet<>();
+        private volatile boolean cancelled;
+        private volatile CompletableFuture<List<SweepResult>> ranked;
+
+        private SweepJob(int totalTasks, ProgressListener listener) {
+            this.totalTasks = totalTasks;
+            this.listener = listener;
+        }
+
+        private void start(List<CompletableFuture<SweepResult>> results) {
+            ranked = CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                List<SweepResult> table = new ArrayList<>(results.size());
+                results.forEach(result -> table.add(result.join()));
+                table.sort(SweepResult.RANKING);
+                return table;
+            });
+        }
+
+        /**
+         * 执行任务并登记执行线程，取消时中断登记的线程
+         */
+        private <T> T track(Supplier<T> task) {
+            Thread current = Thread.currentThread();
+            synchronized (running) {
+                checkCancelled();
+                running.add(current);
+            }
+            try {
+                T result = task.get();
+                int completed = completedTasks.incrementAndGet();
+                if (listener != null) {
+                    listener.onProgress(completed, totalTasks);
+                }
+                return result;
+            } finally {
+                synchronized (running) {
+                    running.remove(current);
+                    if (cancelled) {
+                        // 清除取消留下的中断标志，线程池线程还要继续执行其他任务
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Sweep cancelled");
+            }
+        }
+
+        /**
+         * 取消扫描，尚未开始的任务不再执行，正在执行的任务所在线程被中断；
+         * 模型训练不响应中断时，该任务在当前窗口训练结束后停止
+         */
+        public void cancel() {
+            synchronized (running) {
+                cancelled = true;
+                running.forEach(Thread::interrupt);
+            }
+            ranked.cancel(false);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public int getCompletedTasks() {
+            return completedTasks.get();
+        }
+
+        public int getTotalTasks() {
+            return totalTasks;
+        }
+
+        /**
+         * 完成比例
+         * @return 0到1之间的进度
+         */
+        public double getProgress() {
+            return totalTasks == 0 ? 1.0 : (double) completedTasks.get() / totalTasks;
+        }
+
+        /**
+         * 等待扫描完成
+         * @return 按夏普比率降序排列的结果
+         */
+        public List<SweepResult> await() {
+            try {
+                return ranked.join();
+            } catch (CancellationException e) {
+                throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR, "Sweep cancelled", e);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof FactorEngineException) {
+                    throw (FactorEngineException) e.getCause();
+                }
+                throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                        "Parameter sweep failed", e.getCause());
+            }
+        }
+    }
+}
\ No newline at end of file
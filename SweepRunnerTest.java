@@ -0,0 +1,232 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.exception.FactorEngineException;
+import com.quant.altdata.factor.model.FactorModel;
+import com.quant.altdata.factor.model.FactorModelManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 参数扫描运行器测试类
+ */
+public class SweepRunnerTest {
+    private static final int SYMBOLS = 3;
+
+    /**
+     * 以第一个特征为信号的模型，副本共享训练计数，训练时记录训练区间的最后日期，等待期间被中断时计数
+     */
+    private static class SignalModel implements FactorModel {
+        private final AtomicInteger trainings;
+        private final List<Integer> lastTrainDays;
+        private final CountDownLatch release;
+        private final CountDownLatch training;
+        private final CountDownLatch interrupted;
+
+        SignalModel(AtomicInteger trainings, List<Integer> lastTrainDays, CountDownLatch release, CountDownLatch training,
+                    CountDownLatch interrupted) {
+            this.trainings = trainings;
+            this.lastTrainDays = lastTrainDays;
+            this.release = release;
+            this.training = training;
+            this.interrupted = interrupted;
+        }
+
+        @Override
+        public void train(FactorFrame trainingData, int epochs) {
+            trainings.incrementAndGet();
+            synchronized (lastTrainDays) {
+                lastTrainDays.add(trainingData.date(trainingData.rowCount() - 1));
+            }
+            training.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void train(List<FactorData> trainingData, int epochs) {
+            train(FactorFrame.from(trainingData), epochs);
+        }
+
+        @Override
+        public double predict(double[] features) {
+            return features[0];
+        }
+
+        @Override
+        public double evaluate(List<FactorData> testData) {
+            return 0.0;
+        }
+
+        @Override
+        public boolean isTrained() {
+            return true;
+        }
+
+        @Override
+        public int getInputSize() {
+            return 1;
+        }
+
+        @Override
+        public FactorModel copy() {
+            return new SignalModel(trainings, lastTrainDays, release, training, interrupted);
+        }
+    }
+
+    private final AtomicInteger trainings = new AtomicInteger();
+    private final List<Integer> lastTrainDays = new ArrayList<>();
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private FactorFrame frame;
+    private SweepRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        // 准备测试数据：只有工作日，特征等于当天收益，顺势策略每天都盈利
+        Random random = new Random(11);
+        List<FactorData> data = new ArrayList<>();
+        for (LocalDate date = LocalDate.of(2024, 1, 1); date.isBefore(LocalDate.of(2024, 4, 1)); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                double dailyReturn = random.nextGaussian() * 0.01;
+                FactorData row = new FactorData(date, new double[]{dailyReturn}, 0.0);
+                row.setReturn(dailyReturn);
+                data.add(row);
+            }
+        }
+        frame = FactorFrame.from(data);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (runner != null) {
+            runner.shutdown();
+        }
+    }
+
+    private SweepRunner runner(int threads, CountDownLatch release, CountDownLatch training) {
+        FactorModelManager manager = new FactorModelManager(new Properties());
+        manager.registerModel("signal", new SignalModel(trainings, lastTrainDays, release, training, interrupted));
+        runner = new SweepRunner(manager, threads);
+        return runner;
+    }
+
+    @Test
+    void testWalkForwardWindowsFollowCalendarDays() {
+        SweepGrid grid = SweepGrid.builder().strategies("momentum").models("signal").walkForward(14, 7, 7).build();
+
+        List<int[]> windows = SweepRunner.walkForwardWindows(frame, grid);
+
+        int firstDay = frame.date(0);
+        assertEquals((frame.date(frame.rowCount() - 1) - firstDay - 14) / 7 + 1, windows.size());
+        for (int w = 0; w < windows.size(); w++) {
+            int[] window = windows.get(w);
+            int trainStart = firstDay + 7 * w;
+            int testStart = trainStart + 14;
+            assertTrue(frame.date(window[0]) >= trainStart && (window[0] == 0 || frame.date(window[0] - 1) < trainStart));
+            assertTrue(frame.date(window[1]) >= testStart && frame.date(window[1] - 1) < testStart);
+            assertTrue(window[2] == frame.rowCount() || frame.date(window[2]) >= testStart + 7);
+            assertTrue(frame.date(window[2] - 1) < testStart + 7);
+            // 测试区间按步长首尾相接，不重叠也不遗漏
+            if (w > 0) {
+                assertEquals(windows.get(w - 1)[2], window[1]);
+            }
+        }
+        assertEquals(frame.rowCount(), windows.get(windows.size() - 1)[2]);
+    }
+
+    @Test
+    void testStrategiesShareTrainedSignalsAndRankBySharpe() {
+        CountDownLatch released = new CountDownLatch(0);
+        SweepGrid grid = SweepGrid.builder().strategies("contrarian", "longonly", "momentum").models("signal")
+                .epochs(1, 2).walkForward(28, 14, 14).build();
+        List<int[]> walkForward = SweepRunner.walkForwardWindows(frame, grid);
+        int windows = walkForward.size();
+
+        SweepRunner.SweepJob job = runner(4, released, new CountDownLatch(1)).submit(grid, frame, null);
+        List<SweepResult> results = job.await();
+
+        // 每个(模型, 训练轮数, 窗口)只训练一次，三个策略共享信号
+        assertEquals(2 * windows, trainings.get());
+        assertEquals(2 * windows, job.getTotalTasks());
+        assertEquals(1.0, job.getProgress());
+        // 训练区间止于测试区间之前的最后一个交易日
+        List<Integer> expectedDays = new ArrayList<>();
+        for (int[] window : walkForward) {
+            expectedDays.add(frame.date(window[1] - 1));
+            expectedDays.add(frame.date(window[1] - 1));
+        }
+        lastTrainDays.sort(null);
+        assertEquals(expectedDays, lastTrainDays);
+
+        assertEquals(6, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getSharpeRatio() >= results.get(i).getSharpeRatio());
+        }
+        assertEquals(TradingStrategy.MOMENTUM, results.get(0).getConfiguration().getStrategy());
+        assertEquals(TradingStrategy.CONTRARIAN, results.get(5).getConfiguration().getStrategy());
+        // 两种训练轮数的信号相同，净值曲线也相同
+        assertEquals(results.get(0).getTotalReturn(), results.get(1).getTotalReturn(), 1e-12);
+        assertEquals(windows, results.get(0).getWindows());
+    }
+
+    @Test
+    void testCancelInterruptsRunningAndStopsPendingWindows() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch training = new CountDownLatch(1);
+        SweepGrid grid = SweepGrid.builder().strategies("momentum").models("signal").walkForward(14, 7, 7).build();
+
+        SweepRunner.SweepJob job = runner(1, release, training).submit(grid, frame, null);
+        assertTrue(training.await(10, TimeUnit.SECONDS));
+        job.cancel();
+
+        // 正在训练的窗口被中断，无需等待训练自行结束
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(job.isCancelled());
+        assertThrows(FactorEngineException.class, job::await);
+        // 单线程下第一个窗口训练时被取消，排队的窗口不再训练
+        runner.shutdown();
+        assertEquals(1, trainings.get());
+        assertEquals(0, job.getCompletedTasks());
+    }
+
+    @Test
+    void testSortingKeepsSymbolIds() {
+        // 日期倒序输入，标的按名称编号：AAPL为0，MSFT为1
+        List<FactorData> rows = new ArrayList<>();
+        List<String> symbols = new ArrayList<>();
+        for (int day = 2; day >= 0; day--) {
+            for (String symbol : day == 1 ? Arrays.asList("MSFT", "AAPL") : Arrays.asList("AAPL", "MSFT")) {
+                rows.add(new FactorData(LocalDate.of(2024, 1, 1).plusDays(day),
+                        new double[]{symbol.equals("AAPL") ? 1.0 : 2.0}, 0.0));
+                symbols.add(symbol);
+            }
+        }
+
+        FactorFrame sorted = SweepRunner.sortedByDate(FactorFrame.from(rows, symbols));
+
+        for (int row = 0; row < sorted.rowCount(); row++) {
+            assertTrue(row == 0 || sorted.date(row) >= sorted.date(row - 1));
+            assertEquals(sorted.feature(row, 0) == 1.0 ? 0 : 1, sorted.symbolId(row));
+        }
+    }
+}
\ No newline at end of file
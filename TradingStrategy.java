@@ -0,0 +1,52 @@
+package com.quant.altdata.backtest;
+
+import com.quant.altdata.exception.FactorEngineException;
+
+/**
+ * 交易策略 - 将模型信号转换为仓位
+ */
+public enum TradingStrategy {
+    /** 顺势：信号为正做多，为负做空 */
+    MOMENTUM {
+        @Override
+        public double position(double signal) {
+            return Math.signum(signal);
+        }
+    },
+    /** 逆势：与信号方向相反 */
+    CONTRARIAN {
+        @Override
+        public double position(double signal) {
+            return -Math.signum(signal);
+        }
+    },
+    /** 只做多：信号为正时满仓，否则空仓 */
+    LONGONLY {
+        @Override
+        public double position(double signal) {
+            return signal > 0 ? 1.0 : 0.0;
+        }
+    };
+
+    /**
+     * 根据模型信号计算仓位
+     * @param signal 模型信号
+     * @return 仓位，-1到1之间
+     */
+    public abstract double position(double signal);
+
+    /**
+     * 按名称查找策略，不区分大小写
+     * @param strategyName 策略名称（momentum、contrarian、longonly）
+     * @return 交易策略
+     */
+    public static TradingStrategy forName(String strategyName) {
+        for (TradingStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(strategyName)) {
+                return strategy;
+            }
+        }
+        throw new FactorEngineException(FactorEngineException.ErrorCode.BACKTEST_ERROR,
+                "Unknown strategy: " + strategyName);
+    }
+}
\ No newline at end of file
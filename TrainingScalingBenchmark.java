@@ -0,0 +1,67 @@
+package com.quant.altdata.benchmark;
+
+import com.quant.altdata.data.model.FactorFrame;
+import com.quant.altdata.factor.model.DeepLearningFactorModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据并行训练扩展性基准 - 固定数据量下比较不同工作线程数的单轮训练耗时。
+ * 模型默认整批训练，这里显式设置小批量大小，所有线程数都按相同的小批量拟合，单线程即一个分片；网络初始化在计时之外，且不划分验证集、不做评估，
+ * 计时只包含训练本身。更多核的机器可以用-p workers=1,2,4,...,64覆盖线程数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrainingScalingBenchmark {
+    private static final int FEATURE_COUNT = 10;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int workers;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"5"})
+    private int averagingFrequency;
+
+    @Param({"256"})
+    private int batchSize;
+
+    private FactorFrame trainingFrame;
+    private DeepLearningFactorModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trainingFrame = SyntheticFactorData.generateFrame(rows, FEATURE_COUNT, 500, 31L);
+    }
+
+    @Setup(Level.Invocation)
+    public void createModel() {
+        model = new DeepLearningFactorModel(FEATURE_COUNT);
+        model.setTrainingWorkers(workers);
+        model.setAveragingFrequency(averagingFrequency);
+        model.setTrainBatchSize(batchSize);
+        model.setValidationFraction(0);
+    }
+
+    @Benchmark
+    public DeepLearningFactorModel trainOneEpoch() {
+        model.train(trainingFrame, 1);
+        return model;
+    }
+}
\ No newline at end of file
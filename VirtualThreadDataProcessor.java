@@ -0,0 +1,116 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import com.quant.altdata.exception.FactorEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程数据处理器 - 面向I/O密集型的替代数据加工阶段
+ * <p>
+ * 每个小批次在独立的虚拟线程上运行，线程数不再受CPU核数限制；
+ * 对下游资源的并发访问由ResourceLimiter按资源分别限流。结果按输入顺序返回。
+ * 运行在不支持虚拟线程的JDK（21之前）上时退化为固定大小的平台线程池，线程数取fallbackThreads，
+ * 委托处理器占用的资源配置了限额时不超过该限额（多出的线程只会阻塞在许可上）。
+ */
+public class VirtualThreadDataProcessor implements DataProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadDataProcessor.class);
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final DataProcessor delegate;
+    private final ResourceLimiter limiter;
+    private final String resource;
+
+    /**
+     * 构造函数
+     * @param batchSize 每个虚拟线程处理的记录数
+     * @param fallbackThreads 不支持虚拟线程时平台线程池的最大线程数
+     * @param delegate 实际执行处理的处理器
+     * @param limiter 资源并发限制器
+     * @param resource 委托处理器占用的资源名
+     */
+    public VirtualThreadDataProcessor(int batchSize, int fallbackThreads, DataProcessor delegate,
+                                      ResourceLimiter limiter, String resource) {
+        if (batchSize <= 0 || fallbackThreads <= 0) {
+            throw new IllegalArgumentException("Batch size and fallback threads must be positive");
+        }
+        int limit = limiter.getLimit(resource);
+        this.executor = newVirtualThreadExecutor(limit > 0 ? Math.min(fallbackThreads, limit) : fallbackThreads);
+        this.batchSize = batchSize;
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.resource = resource;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，以便在Java 11上编译运行
+     */
+    private static ExecutorService newVirtualThreadExecutor(int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not available on this JVM; falling back to {} platform threads",
+                    fallbackThreads);
+            AtomicInteger threadIndex = new AtomicInteger();
+            return Executors.newFixedThreadPool(fallbackThreads, runnable -> {
+                Thread thread = new Thread(runnable, "io-processor-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public List<FactorData> process(List<FactorData> data) {
+        if (data == null || data.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Future<List<FactorData>>> futures = new ArrayList<>((data.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < data.size(); from += batchSize) {
+            List<FactorData> batch = data.subList(from, Math.min(from + batchSize, data.size()));
+            futures.add(executor.submit(() -> limiter.withPermit(resource, () -> delegate.process(batch))));
+        }
+
+        List<FactorData> result = new ArrayList<>(data.size());
+        try {
+            for (Future<List<FactorData>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Interrupted while processing data", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new FactorEngineException(FactorEngineException.ErrorCode.DATA_PROCESSING_ERROR,
+                    "Data processing failed", e.getCause());
+        }
+
+        logger.debug("Processed {} records in {} virtual-thread batches", data.size(), futures.size());
+        return result;
+    }
+
+    /**
+     * 资源并发限制器，供委托处理器内部对其他下游资源限流
+     * @return 资源限制器
+     */
+    public ResourceLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 关闭执行器
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
\ No newline at end of file
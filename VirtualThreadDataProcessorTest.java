@@ -0,0 +1,83 @@
+package com.quant.altdata.processing;
+
+import com.quant.altdata.data.model.FactorData;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程数据处理器测试类
+ */
+public class VirtualThreadDataProcessorTest {
+
+    /**
+     * 随机阻塞后把目标值加1的处理器，记录同时执行的批次数和使用过的线程
+     */
+    private static class SlowProcessor implements DataProcessor {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public List<FactorData> process(List<FactorData> batch) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread());
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextInt(200, 2000)));
+            List<FactorData> result = new ArrayList<>(batch.size());
+            for (FactorData data : batch) {
+                result.add(new FactorData(data.getDate(), data.getFeatures(), data.getTarget() + 1));
+            }
+            running.decrementAndGet();
+            return result;
+        }
+    }
+
+    private static List<FactorData> data(int size) {
+        List<FactorData> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(new FactorData(LocalDate.of(2024, 1, 1).plusDays(i), new double[]{i}, i));
+        }
+        return data;
+    }
+
+    @Test
+    void testPreservesInputOrder() {
+        SlowProcessor delegate = new SlowProcessor();
+        VirtualThreadDataProcessor processor = new VirtualThreadDataProcessor(3, 4, delegate,
+                new ResourceLimiter(Map.of()), "processor");
+
+        List<FactorData> output = processor.process(data(200));
+        processor.shutdown();
+
+        assertEquals(200, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i + 1.0, output.get(i).getTarget());
+            assertEquals(i, output.get(i).getFeatures()[0]);
+        }
+    }
+
+    @Test
+    void testLimiterCapsConcurrentBatches() {
+        SlowProcessor delegate = new SlowProcessor();
+        VirtualThreadDataProcessor processor = new VirtualThreadDataProcessor(2, 16, delegate,
+                new ResourceLimiter(Map.of("processor", 3)), "processor");
+
+        assertEquals(300, processor.process(data(300)).size());
+        processor.shutdown();
+
+        assertTrue(delegate.maxRunning.get() <= 3, "At most 3 batches may hold the resource at once");
+        if (Runtime.version().feature() < 21) {
+            // 平台线程回退：线程池不超过资源限额
+            assertTrue(delegate.threads.size() <= 3, "Fallback pool must be bounded by the limit");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+#!/bin/bash
+# 快速启动脚本：使用AppCDS（应用类数据共享）归档缩短JVM启动和类加载时间。
+#
+#   CLASSPATH=<应用和依赖的classpath> ./run-fast.sh --dump [config.properties]   训练运行一次并生成归档
+#   CLASSPATH=<应用和依赖的classpath> ./run-fast.sh [config.properties]          使用归档启动
+#
+# 归档与JDK版本和classpath绑定，二者变化后需要重新--dump。
+# JAVA_OPTS会追加在默认参数之后，可以覆盖默认的GC和JIT设置。
+set -e
+
+ARCHIVE="${CDS_ARCHIVE:-altdata-app.jsa}"
+MAIN_CLASS="com.quant.altdata.Main"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+if [ -z "$CLASSPATH" ]; then
+    echo "CLASSPATH must point to the application classes and dependencies" >&2
+    exit 1
+fi
+
+JAVA_VERSION=$("$JAVA" -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+JAVA_MAJOR=${JAVA_VERSION%%.*}
+
+if [ "$1" = "--dump" ]; then
+    shift
+    if [ "$JAVA_MAJOR" -ge 13 ]; then
+        # JDK 13+：运行结束时把加载过的应用类写入动态归档
+        "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$CLASSPATH" $JAVA_OPTS "$MAIN_CLASS" "$@"
+    else
+        # JDK 11：先记录加载的类列表，再单独生成静态归档
+        "$JAVA" -Xshare:off -XX:DumpLoadedClassList=altdata-classes.lst -cp "$CLASSPATH" $JAVA_OPTS "$MAIN_CLASS" "$@"
+        "$JAVA" -Xshare:dump -XX:SharedClassListFile=altdata-classes.lst -XX:SharedArchiveFile="$ARCHIVE" \
+            -cp "$CLASSPATH"
+    fi
+    echo "CDS archive written to $ARCHIVE"
+    exit 0
+fi
+
+SHARE_OPTS=""
+if [ -f "$ARCHIVE" ]; then
+    SHARE_OPTS="-XX:SharedArchiveFile=$ARCHIVE"
+fi
+
+# 短任务默认只用C1编译和串行GC，启动和预热更快；长时间运行的回测应通过JAVA_OPTS改回C2和并行GC
+exec "$JAVA" $SHARE_OPTS -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -cp "$CLASSPATH" $JAVA_OPTS "$MAIN_CLASS" "$@"